@@ -0,0 +1,78 @@
+package com.hack.app.chat.finance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hack.app.games.typing.Sentence;
+import com.hack.app.games.typing.SentenceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@State(Scope.Benchmark)
+public class FinanceKnowledgeBaseBenchmark {
+
+    private static final Pattern SENTENCE = Pattern.compile("VALUES \\('(.*)'\\);");
+    private static final String ANSWERED = "예금이랑 적금 차이가 뭐야?";
+    private static final String GROUNDED = "배당금은 언제 받아?";
+    private static final String MISSED = "오늘 점심 메뉴 추천해줘";
+
+    private FinanceKnowledgeBase knowledgeBase;
+
+    @Setup
+    public void setUp() throws IOException {
+        knowledgeBase = new FinanceKnowledgeBase(new FinanceChatProperties(),
+            FinanceKnowledgeBase.loadFaq(new ObjectMapper()), sentences(), new SimpleMeterRegistry());
+        knowledgeBase.loadCorpus();
+        if (knowledgeBase.lookup(ANSWERED).answer() == null || knowledgeBase.lookup(GROUNDED).grounding().isEmpty()) {
+            throw new IllegalStateException("Benchmark questions no longer hit the intended lookup path");
+        }
+    }
+
+    @Benchmark
+    public FinanceKnowledgeBase.Lookup answered() {
+        return knowledgeBase.lookup(ANSWERED);
+    }
+
+    @Benchmark
+    public FinanceKnowledgeBase.Lookup grounded() {
+        return knowledgeBase.lookup(GROUNDED);
+    }
+
+    @Benchmark
+    public FinanceKnowledgeBase.Lookup missed() {
+        return knowledgeBase.lookup(MISSED);
+    }
+
+    /**
+     * Serves the {@code data.sql} sentences through the repository interface so the benchmark
+     * indexes the same corpus as the application without a database.
+     */
+    private static SentenceRepository sentences() throws IOException {
+        List<Sentence> sentences = new ArrayList<>();
+        try (InputStream input = FinanceKnowledgeBaseBenchmark.class.getResourceAsStream("/data.sql")) {
+            Matcher matcher = SENTENCE.matcher(new String(input.readAllBytes(), StandardCharsets.UTF_8));
+            while (matcher.find()) {
+                Sentence sentence = new Sentence();
+                sentence.setContent(matcher.group(1));
+                sentences.add(sentence);
+            }
+        }
+        return (SentenceRepository) Proxy.newProxyInstance(SentenceRepository.class.getClassLoader(),
+            new Class<?>[] {SentenceRepository.class}, (proxy, method, args) -> {
+                if (method.getName().equals("findAll") && method.getParameterCount() == 0) {
+                    return sentences;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    }
+}
@@ -0,0 +1,59 @@
+package com.hack.app.llm;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@State(Scope.Benchmark)
+public class PromptTemplateBenchmark {
+
+    private String templateText;
+    private PromptTemplate compiled;
+    private Map<String, String> tokens;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream input = getClass().getResourceAsStream("/prompts/survey-recommendation/user.v1.txt")) {
+            templateText = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        compiled = PromptTemplate.compile("user.v1", templateText);
+
+        tokens = new LinkedHashMap<>();
+        tokens.put("age_sentence", "17세 (고1 응답)");
+        tokens.put("allowance_sentence", "10만~20만원 (약 150000원)");
+        tokens.put("spending_sentence", "food, transport, game");
+        tokens.put("goal_sentence", "college");
+        tokens.put("horizon_sentence", "1년");
+        tokens.put("risk_sentence", "안정성과 혜택의 균형을 원합니다");
+        tokens.put("digital_sentence", "모바일 앱을 주로 이용합니다");
+        tokens.put("guardian_sentence", "보호자와 함께 진행하길 원합니다");
+        tokens.put("card_sentence", "관심은 있지만 아직 발급받지 않았습니다");
+        tokens.put("prompt_parameters", "{\n  \"tone\" : \"친근하게\"\n}");
+        tokens.put("answer_summary", "- 학년: 고1\n- 월 용돈: 10만~20만원\n- 주요 지출: 음식, 교통, 게임");
+
+        if (!legacyReplace().equals(compiled())) {
+            throw new IllegalStateException("Compiled template output differs from the legacy implementation");
+        }
+    }
+
+    @Benchmark
+    public String legacyReplace() {
+        String result = templateText;
+        for (Map.Entry<String, String> entry : tokens.entrySet()) {
+            result = result.replace("${" + entry.getKey() + "}", entry.getValue());
+        }
+        return result;
+    }
+
+    @Benchmark
+    public String compiled() {
+        return compiled.render(tokens);
+    }
+}
@@ -0,0 +1,102 @@
+package com.hack.app.chat.finance;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable in-memory inverted index scored with Okapi BM25. Besides the score, each match carries
+ * its coverage: the share of the query's IDF weight that the passage contains, with terms missing
+ * from the whole corpus weighted like the rarest term. Coverage is comparable across queries, unlike
+ * the raw score, so it is what confidence thresholds are set against.
+ */
+final class Bm25Index {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final List<KnowledgePassage> passages;
+    private final Map<String, int[][]> postings;
+    private final int[] lengths;
+    private final double averageLength;
+
+    private Bm25Index(List<KnowledgePassage> passages, Map<String, int[][]> postings, int[] lengths) {
+        this.passages = passages;
+        this.postings = postings;
+        this.lengths = lengths;
+        long total = 0;
+        for (int length : lengths) {
+            total += length;
+        }
+        this.averageLength = lengths.length == 0 ? 0 : (double) total / lengths.length;
+    }
+
+    static Bm25Index build(List<KnowledgePassage> passages) {
+        Map<String, List<int[]>> building = new HashMap<>();
+        int[] lengths = new int[passages.size()];
+        for (int doc = 0; doc < passages.size(); doc++) {
+            List<String> terms = HangulTokenizer.tokenize(passages.get(doc).indexedText());
+            lengths[doc] = terms.size();
+            Map<String, Integer> frequencies = new HashMap<>();
+            terms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+            int docId = doc;
+            frequencies.forEach((term, tf) -> building.computeIfAbsent(term, key -> new ArrayList<>()).add(new int[] {docId, tf}));
+        }
+        Map<String, int[][]> postings = new HashMap<>(building.size() * 2);
+        building.forEach((term, list) -> postings.put(term, list.toArray(int[][]::new)));
+        return new Bm25Index(List.copyOf(passages), postings, lengths);
+    }
+
+    int size() {
+        return passages.size();
+    }
+
+    List<Match> search(String query, int limit) {
+        List<String> queryTerms = HangulTokenizer.tokenize(query);
+        if (queryTerms.isEmpty() || passages.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Map<String, Integer> distinct = new LinkedHashMap<>();
+        queryTerms.forEach(term -> distinct.merge(term, 1, Integer::sum));
+
+        double[] scores = new double[passages.size()];
+        double[] matchedWeight = new double[passages.size()];
+        double totalWeight = 0;
+        double unseenIdf = idf(0);
+        for (Map.Entry<String, Integer> entry : distinct.entrySet()) {
+            int[][] list = postings.get(entry.getKey());
+            if (list == null) {
+                totalWeight += unseenIdf * entry.getValue();
+                continue;
+            }
+            double idf = idf(list.length);
+            totalWeight += idf * entry.getValue();
+            for (int[] posting : list) {
+                int doc = posting[0];
+                double tf = posting[1];
+                double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                scores[doc] += entry.getValue() * idf * tf * (K1 + 1) / (tf + norm);
+                matchedWeight[doc] += idf * entry.getValue();
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (int doc = 0; doc < scores.length; doc++) {
+            if (scores[doc] > 0) {
+                matches.add(new Match(passages.get(doc), scores[doc], matchedWeight[doc] / totalWeight));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::score).reversed());
+        return matches.size() > limit ? List.copyOf(matches.subList(0, limit)) : matches;
+    }
+
+    private double idf(int documentFrequency) {
+        return Math.log(1 + (passages.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    record Match(KnowledgePassage passage, double score, double coverage) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.hack.app.chat.finance;
+
+import com.hack.app.llm.LlmGateway;
+import com.hack.app.llm.LlmRequest;
+import com.hack.app.llm.LlmResult;
+import com.hack.app.llm.Priority;
+import com.hack.app.llm.TokenEstimator;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+@Component
+class ChatHistorySummarizer {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatHistorySummarizer.class);
+
+    private static final String SUMMARY_PROMPT = """
+        너는 금융 상담 대화를 요약하는 도우미야.
+        기존 요약과 새로 밀려난 대화를 합쳐서, 이후 상담에 필요한 사실(사용자의 상황, 목표, 이미 안내한 내용)만 한국어로 간결하게 정리해.
+        요약만 출력하고 다른 문장은 쓰지 마.
+    """;
+
+    private final LlmGateway llmGateway;
+    private final FinanceChatProperties properties;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chat-summarizer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    ChatHistorySummarizer(LlmGateway llmGateway, FinanceChatProperties properties) {
+        this.llmGateway = llmGateway;
+        this.properties = properties;
+    }
+
+    void summarizeAsync(ChatSession session) {
+        if (!properties.isSummaryEnabled() || !session.hasPendingEvictions()) {
+            return;
+        }
+        try {
+            executor.execute(() -> summarize(session));
+        } catch (RejectedExecutionException ex) {
+            log.debug("Chat summarizer is shutting down; skipping summary update");
+        }
+    }
+
+    private void summarize(ChatSession session) {
+        List<ChatTurn> evicted = session.claimEvicted();
+        if (evicted.isEmpty()) {
+            return;
+        }
+
+        String updated = null;
+        try {
+            updated = requestSummary(session.summary(), evicted).orElse(null);
+        } catch (Exception ex) {
+            log.warn("Failed to summarize evicted chat turns", ex);
+        } finally {
+            session.completeSummary(updated);
+        }
+
+        if (session.hasPendingEvictions()) {
+            summarizeAsync(session);
+        }
+    }
+
+    private Optional<String> requestSummary(String previousSummary, List<ChatTurn> evicted) {
+        StringBuilder transcript = new StringBuilder();
+        if (previousSummary != null) {
+            transcript.append("기존 요약:\n").append(previousSummary).append("\n\n");
+        }
+        transcript.append("새로 밀려난 대화:\n");
+        evicted.forEach(turn -> transcript
+            .append("사용자: ").append(turn.userMessage()).append('\n')
+            .append("상담가: ").append(turn.assistantMessage()).append('\n'));
+
+        LlmRequest request = LlmRequest.of("chat-summary", "openai", SUMMARY_PROMPT, transcript.toString(), 0.2)
+            .withPriority(Priority.BACKGROUND);
+        return llmGateway.complete(request)
+            .map(LlmResult::text)
+            .map(String::trim)
+            .map(this::truncateToBudget);
+    }
+
+    private String truncateToBudget(String summary) {
+        int limit = properties.getSummaryMaxTokens();
+        if (TokenEstimator.estimate(summary) <= limit) {
+            return summary;
+        }
+        int end = summary.length();
+        while (end > 0 && TokenEstimator.estimate(summary.substring(0, end)) > limit) {
+            end = end * 9 / 10;
+        }
+        return summary.substring(0, end);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,87 @@
+package com.hack.app.chat.finance;
+
+import com.hack.app.llm.TokenEstimator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+class ChatSession {
+
+    private final ReentrantLock turnLock = new ReentrantLock(true);
+    private final Deque<ChatTurn> turns = new ArrayDeque<>();
+    private final List<ChatTurn> evicted = new ArrayList<>();
+    private int turnTokens;
+    private String summary;
+    private int summaryTokens;
+    private boolean summarizing;
+
+    ReentrantLock turnLock() {
+        return turnLock;
+    }
+
+    synchronized void append(ChatTurn turn, int tokenBudget, int maxTurns) {
+        turns.addLast(turn);
+        turnTokens += turn.tokenCount();
+        while (turns.size() > maxTurns || (turns.size() > 1 && turnTokens + summaryTokens > tokenBudget)) {
+            ChatTurn oldest = turns.pollFirst();
+            turnTokens -= oldest.tokenCount();
+            evicted.add(oldest);
+        }
+    }
+
+    synchronized HistoryWindow window(int tokenBudget) {
+        int remaining = tokenBudget;
+        String includedSummary = null;
+        if (summary != null && summaryTokens <= remaining) {
+            includedSummary = summary;
+            remaining -= summaryTokens;
+        }
+
+        Deque<ChatTurn> selected = new ArrayDeque<>();
+        var iterator = turns.descendingIterator();
+        while (iterator.hasNext()) {
+            ChatTurn turn = iterator.next();
+            if (turn.tokenCount() > remaining) {
+                break;
+            }
+            selected.addFirst(turn);
+            remaining -= turn.tokenCount();
+        }
+        return new HistoryWindow(includedSummary, List.copyOf(selected), tokenBudget - remaining);
+    }
+
+    synchronized List<ChatTurn> claimEvicted() {
+        if (summarizing || evicted.isEmpty()) {
+            return List.of();
+        }
+        summarizing = true;
+        List<ChatTurn> claimed = List.copyOf(evicted);
+        evicted.clear();
+        return claimed;
+    }
+
+    synchronized String summary() {
+        return summary;
+    }
+
+    synchronized void completeSummary(String updatedSummary) {
+        if (updatedSummary != null && !updatedSummary.isBlank()) {
+            summary = updatedSummary;
+            summaryTokens = TokenEstimator.estimateMessage(updatedSummary);
+        }
+        summarizing = false;
+    }
+
+    synchronized boolean hasPendingEvictions() {
+        return !evicted.isEmpty();
+    }
+
+    record HistoryWindow(String summary, List<ChatTurn> turns, int tokens) {
+        boolean isEmpty() {
+            return summary == null && turns.isEmpty();
+        }
+    }
+}
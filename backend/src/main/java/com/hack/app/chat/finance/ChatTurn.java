@@ -1,4 +1,11 @@
 package com.hack.app.chat.finance;
 
-public record ChatTurn(String userMessage, String assistantMessage) {
-}
\ No newline at end of file
+import com.hack.app.llm.TokenEstimator;
+
+public record ChatTurn(String userMessage, String assistantMessage, int tokenCount) {
+
+    public static ChatTurn of(String userMessage, String assistantMessage) {
+        int tokens = TokenEstimator.estimateMessage(userMessage) + TokenEstimator.estimateMessage(assistantMessage);
+        return new ChatTurn(userMessage, assistantMessage, tokens);
+    }
+}
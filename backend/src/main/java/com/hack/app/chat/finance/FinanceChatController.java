@@ -1,9 +1,14 @@
 package com.hack.app.chat.finance;
 
+import com.hack.app.llm.Deadline;
+import com.hack.app.llm.quota.UsageSubject;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -18,8 +23,12 @@ public class FinanceChatController {
     }
 
     @PostMapping
-    public ResponseEntity<FinanceChatResponse> chat(@Valid @RequestBody FinanceChatRequest request) {
-        FinanceChatResponse response = financeChatService.chat(request);
+    public ResponseEntity<FinanceChatResponse> chat(@Valid @RequestBody FinanceChatRequest request,
+                                                    @RequestHeader(value = UsageSubject.USER_HEADER, required = false) String zepUserId,
+                                                    @RequestAttribute(Deadline.REQUEST_ATTRIBUTE) Deadline deadline,
+                                                    HttpServletRequest servletRequest) {
+        UsageSubject subject = UsageSubject.of(zepUserId, servletRequest.getRemoteAddr());
+        FinanceChatResponse response = financeChatService.chat(request, subject, deadline);
         return ResponseEntity.ok(response);
     }
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+package com.hack.app.chat.finance;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "finance-chat")
+public class FinanceChatProperties {
+
+    private int maxHistory = 6;
+    private int historyTokenBudget = 1200;
+    private boolean summaryEnabled = true;
+    private int summaryMaxTokens = 300;
+    private final Batching batching = new Batching();
+    private final Knowledge knowledge = new Knowledge();
+
+    public int getMaxHistory() {
+        return maxHistory;
+    }
+
+    public void setMaxHistory(int maxHistory) {
+        this.maxHistory = maxHistory;
+    }
+
+    public int getHistoryTokenBudget() {
+        return historyTokenBudget;
+    }
+
+    public void setHistoryTokenBudget(int historyTokenBudget) {
+        this.historyTokenBudget = historyTokenBudget;
+    }
+
+    public boolean isSummaryEnabled() {
+        return summaryEnabled;
+    }
+
+    public void setSummaryEnabled(boolean summaryEnabled) {
+        this.summaryEnabled = summaryEnabled;
+    }
+
+    public int getSummaryMaxTokens() {
+        return summaryMaxTokens;
+    }
+
+    public void setSummaryMaxTokens(int summaryMaxTokens) {
+        this.summaryMaxTokens = summaryMaxTokens;
+    }
+
+    public Batching getBatching() {
+        return batching;
+    }
+
+    public Knowledge getKnowledge() {
+        return knowledge;
+    }
+
+    public static class Batching {
+
+        private boolean enabled = false;
+        private Duration window = Duration.ofMillis(30);
+        private int maxBatchSize = 16;
+        private Duration maxWait = Duration.ofSeconds(10);
+        private double maxWaitFactor = 3.0;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public double getMaxWaitFactor() {
+            return maxWaitFactor;
+        }
+
+        public void setMaxWaitFactor(double maxWaitFactor) {
+            this.maxWaitFactor = maxWaitFactor;
+        }
+    }
+
+    public static class Knowledge {
+
+        private boolean enabled = true;
+        private double answerCoverage = 0.8;
+        private double groundingCoverage = 0.3;
+        private int groundingPassages = 3;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getAnswerCoverage() {
+            return answerCoverage;
+        }
+
+        public void setAnswerCoverage(double answerCoverage) {
+            this.answerCoverage = answerCoverage;
+        }
+
+        public double getGroundingCoverage() {
+            return groundingCoverage;
+        }
+
+        public void setGroundingCoverage(double groundingCoverage) {
+            this.groundingCoverage = groundingCoverage;
+        }
+
+        public int getGroundingPassages() {
+            return groundingPassages;
+        }
+
+        public void setGroundingPassages(int groundingPassages) {
+            this.groundingPassages = groundingPassages;
+        }
+    }
+}
@@ -2,21 +2,37 @@ package com.hack.app.chat.finance;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.hack.app.openai.OpenAiClient;
+import com.hack.app.config.ServerTiming;
+import com.hack.app.llm.Deadline;
+import com.hack.app.llm.LlmGateway;
+import com.hack.app.llm.LlmRequest;
+import com.hack.app.llm.LlmResult;
+import com.hack.app.llm.Priority;
+import com.hack.app.llm.TokenEstimator;
+import com.hack.app.llm.quota.UsageQuotas;
+import com.hack.app.llm.quota.UsageSubject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class FinanceChatService {
@@ -37,43 +53,199 @@ public class FinanceChatService {
         - JSON 외 다른 문장은 출력하지 마.
     """;
 
+    static final String PURPOSE = "finance-chat";
+
     private static final String REFUSAL_MESSAGE = "금융이나 자산 관리와 관련된 질문을 보내줘. 다른 주제는 답변하기 어려워.";
     private static final String TEMPORARY_ISSUE_MESSAGE = "지금은 상담 답변을 준비하지 못했어요. 잠시 뒤에 다시 시도해 줄래요?";
-    private static final String MISSING_KEY_MESSAGE = "OpenAI API 설정이 아직 완료되지 않았어요. 환경 변수를 확인해 주세요.";
+    private static final String MISSING_KEY_MESSAGE = "AI 상담 API 설정이 아직 완료되지 않았어요. 환경 변수를 확인해 주세요.";
+    private static final int SYSTEM_PROMPT_TOKENS = TokenEstimator.estimateMessage(SYSTEM_PROMPT);
 
-    private final OpenAiClient openAiClient;
+    private final LlmGateway llmGateway;
     private final ObjectMapper objectMapper;
-    private final Map<String, Deque<ChatTurn>> historyStore = new ConcurrentHashMap<>();
-
-    public FinanceChatService(OpenAiClient openAiClient, ObjectMapper objectMapper) {
-        this.openAiClient = openAiClient;
+    private final FinanceChatProperties properties;
+    private final ChatHistorySummarizer summarizer;
+    private final FinanceClassificationBatcher classificationBatcher;
+    private final FinanceKnowledgeBase knowledgeBase;
+    private final UsageQuotas usageQuotas;
+    private final DistributionSummary promptTokens;
+    private final Counter malformedDecisions;
+    private final Counter missingDecisions;
+    private final Map<String, ChatSession> sessions = new ConcurrentHashMap<>();
+    private final Map<InFlightKey, CompletableFuture<FinanceChatResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public FinanceChatService(LlmGateway llmGateway,
+                              ObjectMapper objectMapper,
+                              FinanceChatProperties properties,
+                              ChatHistorySummarizer summarizer,
+                              FinanceClassificationBatcher classificationBatcher,
+                              FinanceKnowledgeBase knowledgeBase,
+                              UsageQuotas usageQuotas,
+                              MeterRegistry meterRegistry) {
+        this.llmGateway = llmGateway;
         this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.summarizer = summarizer;
+        this.classificationBatcher = classificationBatcher;
+        this.knowledgeBase = knowledgeBase;
+        this.usageQuotas = usageQuotas;
+        this.promptTokens = DistributionSummary.builder("finance.chat.prompt.tokens")
+            .description("Estimated input tokens sent to the LLM per finance chat request")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        this.malformedDecisions = parseFailures(meterRegistry, "malformed_json");
+        this.missingDecisions = parseFailures(meterRegistry, "missing_decision");
+        Gauge.builder("finance.chat.sessions", sessions, Map::size)
+            .description("Chat sessions held in memory")
+            .register(meterRegistry);
+        Gauge.builder("finance.chat.in-flight", inFlight, Map::size)
+            .description("Distinct finance questions currently being answered")
+            .register(meterRegistry);
     }
 
     public FinanceChatResponse chat(FinanceChatRequest request) {
+        return chat(request, null, null);
+    }
+
+    public FinanceChatResponse chat(FinanceChatRequest request, @Nullable Deadline deadline) {
+        return chat(request, null, deadline);
+    }
+
+    /**
+     * Answers within {@code deadline}; once it passes, the upstream call is abandoned and the
+     * temporary-issue reply is returned instead. With a {@code subject}, the turn is charged to the
+     * user's and the session's quota before the LLM is called. Questions the local knowledge base
+     * answers confidently never reach the LLM and are not charged.
+     */
+    public FinanceChatResponse chat(FinanceChatRequest request,
+                                    @Nullable UsageSubject subject,
+                                    @Nullable Deadline deadline) {
         String trimmedQuestion = request.question().trim();
         String sessionId = (request.sessionId() == null || request.sessionId().isBlank())
             ? generateSessionId()
             : request.sessionId();
 
-        if (!openAiClient.isEnabled()) {
-            log.warn("OpenAI API key is not configured; cannot fulfill chat request.");
+        InFlightKey inFlightKey = new InFlightKey(sessionId, trimmedQuestion);
+        CompletableFuture<FinanceChatResponse> pending = new CompletableFuture<>();
+        CompletableFuture<FinanceChatResponse> existing = inFlight.putIfAbsent(inFlightKey, pending);
+        if (existing != null) {
+            log.debug("Coalescing duplicate in-flight finance question for session={}", sessionId);
+            return awaitCoalesced(existing, sessionId, deadline);
+        }
+
+        try {
+            FinanceChatResponse response = answerInOrder(sessionId, trimmedQuestion,
+                subject == null ? null : subject.withSession(sessionId), deadline);
+            pending.complete(response);
+            return response;
+        } catch (RuntimeException ex) {
+            pending.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(inFlightKey, pending);
+        }
+    }
+
+    private FinanceChatResponse answerInOrder(String sessionId,
+                                              String trimmedQuestion,
+                                              @Nullable UsageSubject subject,
+                                              @Nullable Deadline deadline) {
+        ChatSession session = sessions.computeIfAbsent(sessionId, key -> new ChatSession());
+        ReentrantLock turnLock = session.turnLock();
+        if (!lockTurn(turnLock, deadline)) {
+            log.warn("Finance question for session={} expired while waiting for the previous turn", sessionId);
+            return new FinanceChatResponse(sessionId, TEMPORARY_ISSUE_MESSAGE, false);
+        }
+        try {
+            return answer(session, sessionId, trimmedQuestion, subject, deadline);
+        } finally {
+            turnLock.unlock();
+        }
+    }
+
+    private static boolean lockTurn(ReentrantLock turnLock, @Nullable Deadline deadline) {
+        if (deadline == null) {
+            turnLock.lock();
+            return true;
+        }
+        try {
+            return turnLock.tryLock(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static FinanceChatResponse awaitCoalesced(CompletableFuture<FinanceChatResponse> existing,
+                                                      String sessionId,
+                                                      @Nullable Deadline deadline) {
+        try {
+            return deadline == null
+                ? existing.get()
+                : existing.get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            log.warn("Coalesced finance question for session={} expired while waiting for the first answer", sessionId);
+            return new FinanceChatResponse(sessionId, TEMPORARY_ISSUE_MESSAGE, false);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return new FinanceChatResponse(sessionId, TEMPORARY_ISSUE_MESSAGE, false);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private FinanceChatResponse answer(ChatSession session,
+                                       String sessionId,
+                                       String trimmedQuestion,
+                                       @Nullable UsageSubject subject,
+                                       @Nullable Deadline deadline) {
+        FinanceKnowledgeBase.Lookup knowledge = knowledgeBase.lookup(trimmedQuestion);
+        if (knowledge.answer() != null) {
+            addHistory(session, trimmedQuestion, knowledge.answer());
+            return new FinanceChatResponse(sessionId, knowledge.answer(), true);
+        }
+        if (!llmGateway.isAvailable()) {
+            log.warn("No LLM provider is configured; cannot fulfill chat request.");
             return new FinanceChatResponse(sessionId, MISSING_KEY_MESSAGE, false);
         }
 
-        List<OpenAiClient.Message> messages = buildMessages(sessionId, trimmedQuestion);
-        Map<String, Object> params = buildResponseFormatParams();
+        ChatSession.HistoryWindow window = session.window(properties.getHistoryTokenBudget());
+        List<String> grounding = knowledge.grounding();
+        int estimatedTokens = estimateTokens(window, grounding, trimmedQuestion);
+        if (subject != null) {
+            usageQuotas.acquire(subject, estimatedTokens);
+        }
 
         boolean financeRelated = false;
+        boolean decided = false;
         String reply = REFUSAL_MESSAGE;
 
         try {
-            Optional<String> rawResponse = openAiClient.createChatCompletion(messages, 0.4, params);
-            if (rawResponse.isPresent()) {
-                String raw = rawResponse.get();
-                Optional<FinanceDecision> decisionOptional = parseFinanceDecision(raw);
+            // The shared batch prompt has no room for per-question passages, so grounded questions
+            // go straight to their own call.
+            Optional<FinanceDecision> batchedDecision = window.isEmpty() && grounding.isEmpty()
+                ? classificationBatcher.classify(trimmedQuestion, deadline)
+                : Optional.empty();
+            Optional<String> rawResponse = Optional.empty();
+            if (batchedDecision.isEmpty()) {
+                LlmGateway.Completion completion = llmGateway.completeTracked(
+                    buildRequest(window, grounding, trimmedQuestion).withDeadline(deadline));
+                rawResponse = completion.result().map(LlmResult::text);
+                if (rawResponse.isEmpty() && !completion.sent() && subject != null) {
+                    usageQuotas.refund(subject, estimatedTokens);
+                }
+            }
+            if (batchedDecision.isPresent() || rawResponse.isPresent()) {
+                String raw = rawResponse.orElse(null);
+                if (subject != null) {
+                    usageQuotas.record(subject, TokenEstimator.estimate(raw != null ? raw : batchedDecision.get().reply()));
+                }
+                Optional<FinanceDecision> decisionOptional = batchedDecision.or(() -> parseFinanceDecision(raw));
                 if (decisionOptional.isPresent()) {
                     FinanceDecision decision = decisionOptional.get();
+                    decided = true;
                     financeRelated = decision.isFinance();
                     reply = decision.reply();
                     log.debug("Finance classification result category={} confidence={}",
@@ -84,7 +256,7 @@ public class FinanceChatService {
                 } else {
                     financeRelated = true;
                     reply = raw;
-                    log.warn("Received non-JSON response from OpenAI: {}", raw);
+                    log.warn("Received non-JSON response from the LLM: {}", raw);
                 }
             } else {
                 reply = TEMPORARY_ISSUE_MESSAGE;
@@ -95,27 +267,50 @@ public class FinanceChatService {
             financeRelated = false;
         }
 
-        addHistory(sessionId, trimmedQuestion, reply);
+        // Fallback replies (temporary issue, unparsed text) would be replayed to the model as if
+        // they were real answers, so only decided turns go into the history.
+        if (decided) {
+            addHistory(session, trimmedQuestion, reply);
+        }
         return new FinanceChatResponse(sessionId, reply, financeRelated);
     }
 
-    private List<OpenAiClient.Message> buildMessages(String sessionId, String question) {
-        List<OpenAiClient.Message> messages = new ArrayList<>();
-        messages.add(OpenAiClient.Message.system(SYSTEM_PROMPT));
-
-        Deque<ChatTurn> pastTurns = historyStore.get(sessionId);
-        if (pastTurns != null) {
-            pastTurns.forEach(turn -> {
-                messages.add(OpenAiClient.Message.user(turn.userMessage()));
-                messages.add(OpenAiClient.Message.assistant(turn.assistantMessage()));
-            });
+    private LlmRequest buildRequest(ChatSession.HistoryWindow window, List<String> grounding, String question) {
+        String systemInstruction = SYSTEM_PROMPT + groundingInstruction(grounding);
+        if (window.summary() != null) {
+            systemInstruction += "\n이전 대화 요약:\n" + window.summary();
         }
 
-        messages.add(OpenAiClient.Message.user(question));
-        return messages;
+        List<LlmRequest.Message> messages = new ArrayList<>();
+        window.turns().forEach(turn -> {
+            messages.add(LlmRequest.Message.user(turn.userMessage()));
+            messages.add(LlmRequest.Message.assistant(turn.assistantMessage()));
+        });
+        messages.add(LlmRequest.Message.user(question));
+
+        int estimatedTokens = estimateTokens(window, grounding, question);
+        promptTokens.record(estimatedTokens);
+        log.debug("Finance chat prompt estimatedTokens={} historyTurns={} summarized={} groundingPassages={}",
+            estimatedTokens, window.turns().size(), window.summary() != null, grounding.size());
+        return new LlmRequest(PURPOSE, "openai", systemInstruction, messages, 0.4, null, null, Priority.INTERACTIVE)
+            .withResponseSchema("FinanceAdvisorResponse", buildResponseSchema());
+    }
+
+    private static int estimateTokens(ChatSession.HistoryWindow window, List<String> grounding, String question) {
+        return SYSTEM_PROMPT_TOKENS + TokenEstimator.estimate(groundingInstruction(grounding))
+            + window.tokens() + TokenEstimator.estimateMessage(question);
+    }
+
+    private static String groundingInstruction(List<String> grounding) {
+        if (grounding.isEmpty()) {
+            return "";
+        }
+        StringBuilder instruction = new StringBuilder("\n참고 자료 (질문과 관련 있을 때만 활용해):");
+        grounding.forEach(passage -> instruction.append("\n- ").append(passage));
+        return instruction.toString();
     }
 
-    private Map<String, Object> buildResponseFormatParams() {
+    private Map<String, Object> buildResponseSchema() {
         Map<String, Object> categoryProperty = new HashMap<>();
         categoryProperty.put("type", "string");
         categoryProperty.put("enum", List.of("finance", "not_finance"));
@@ -141,43 +336,32 @@ public class FinanceChatService {
         schema.put("type", "object");
         schema.put("properties", properties);
         schema.put("required", List.of("category", "reply", "confidence"));
-
-        Map<String, Object> jsonSchema = new HashMap<>();
-        jsonSchema.put("name", "FinanceAdvisorResponse");
-        jsonSchema.put("schema", schema);
-
-        Map<String, Object> responseFormat = new HashMap<>();
-        responseFormat.put("type", "json_schema");
-        responseFormat.put("json_schema", jsonSchema);
-
-        Map<String, Object> params = new HashMap<>();
-        params.put("response_format", responseFormat);
-        return params;
+        return schema;
     }
 
     private Optional<FinanceDecision> parseFinanceDecision(String rawJson) {
-        try {
+        try (ServerTiming.Span ignored = ServerTiming.start("parse")) {
             JsonNode root = objectMapper.readTree(rawJson);
-            JsonNode candidate = extractDecisionNode(root);
-            if (candidate == null) {
-                return Optional.empty();
-            }
-
-            String category = candidate.path("category").asText();
-            String reply = candidate.path("reply").asText();
-            double confidence = candidate.path("confidence").asDouble(0.0);
-            if (category == null || category.isBlank() || reply == null || reply.isBlank()) {
-                return Optional.empty();
+            Optional<FinanceDecision> decision = FinanceDecision.fromNode(extractDecisionNode(root));
+            if (decision.isEmpty()) {
+                missingDecisions.increment();
             }
-
-            boolean isFinance = "finance".equalsIgnoreCase(category);
-            return Optional.of(new FinanceDecision(isFinance, reply, confidence));
+            return decision;
         } catch (Exception ex) {
+            malformedDecisions.increment();
             log.warn("Failed to parse finance decision JSON: {}", rawJson, ex);
             return Optional.empty();
         }
     }
 
+    private static Counter parseFailures(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("llm.parse.failures")
+            .description("LLM replies that could not be turned into a usable result")
+            .tag("parser", "finance-decision")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
     private JsonNode extractDecisionNode(JsonNode root) {
         if (root == null) {
             return null;
@@ -204,22 +388,15 @@ public class FinanceChatService {
         return null;
     }
 
-    private record FinanceDecision(boolean isFinance, String reply, double confidence) {
+    private record InFlightKey(String sessionId, String question) {
     }
 
-    private void addHistory(String sessionId, String userMessage, String assistantMessage) {
-        historyStore.compute(sessionId, (key, deque) -> {
-            Deque<ChatTurn> history = deque == null ? new ArrayDeque<>() : deque;
-            if (history.size() >= MAX_HISTORY) {
-                history.pollFirst();
-            }
-            history.addLast(new ChatTurn(userMessage, assistantMessage));
-            return history;
-        });
+    private void addHistory(ChatSession session, String userMessage, String assistantMessage) {
+        session.append(ChatTurn.of(userMessage, assistantMessage),
+            properties.getHistoryTokenBudget(), properties.getMaxHistory());
+        summarizer.summarizeAsync(session);
     }
 
-    private static final int MAX_HISTORY = 6;
-
     private String generateSessionId() {
         return Instant.now().toEpochMilli() + "-" + UUID.randomUUID();
     }
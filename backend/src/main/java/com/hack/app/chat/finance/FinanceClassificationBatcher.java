@@ -0,0 +1,228 @@
+package com.hack.app.chat.finance;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hack.app.llm.Deadline;
+import com.hack.app.llm.LlmGateway;
+import com.hack.app.llm.LlmRequest;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Component
+class FinanceClassificationBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(FinanceClassificationBatcher.class);
+
+    private static final String BATCH_PROMPT = """
+        너는 친절한 금융 상담가야. 여러 학생의 첫 질문이 id와 함께 JSON 배열로 주어져.
+        각 질문이 금융, 경제, 투자, 소비, 자산, 연금, 보험과 관련 있는지 판단하고, 질문마다 정확히 하나의 결정을 만들어.
+        반드시 {"decisions": [...]} 형태의 JSON 한 개만 출력해. 각 원소는 아래 필드를 가져.
+        - "id": 입력 질문의 id 그대로
+        - "category": "finance" 또는 "not_finance"
+        - "confidence": 0.0 이상 1.0 이하 숫자
+        - "reply": 한국어로 3~4문장 설명 (finance면 질문에 답하고 필요하면 마지막 문장에 주의 문구, not_finance면 거절 안내)
+        질문끼리 내용을 섞지 말고 JSON 외 다른 문장은 출력하지 마.
+    """;
+
+    private final LlmGateway llmGateway;
+    private final ObjectMapper objectMapper;
+    private final FinanceChatProperties.Batching properties;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "finance-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Object lock = new Object();
+    private List<PendingQuestion> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private long sequence;
+
+    FinanceClassificationBatcher(LlmGateway llmGateway,
+                                 ObjectMapper objectMapper,
+                                 FinanceChatProperties properties) {
+        this.llmGateway = llmGateway;
+        this.objectMapper = objectMapper;
+        this.properties = properties.getBatching();
+    }
+
+    /**
+     * Waits for the shared batch call at most {@link #maxWait()}, or until {@code deadline} if that
+     * is sooner. A question that gives up is taken out of the batch so the caller's direct call is
+     * its only one; if the batch has already been sent, its decision for the question is dropped.
+     * The batch call itself is not cancelled, since other questions ride on it.
+     */
+    Optional<FinanceDecision> classify(String question, @Nullable Deadline deadline) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+
+        Duration maxWait = deadline == null ? maxWait() : deadline.cap(maxWait());
+        PendingQuestion item = enqueue(question);
+        try {
+            return item.decision().get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            log.warn("Batched finance classification exceeded {}ms; falling back to a direct call",
+                maxWait.toMillis());
+            abandon(item);
+            return Optional.empty();
+        } catch (ExecutionException ex) {
+            log.warn("Batched finance classification failed; falling back to a direct call", ex.getCause());
+            return Optional.empty();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            abandon(item);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The window plus {@code max-wait-factor} times the p95 of a direct finance chat call, capped at
+     * {@code max-wait}; just {@code max-wait} until enough direct calls have been seen.
+     */
+    Duration maxWait() {
+        Duration ceiling = properties.getMaxWait();
+        OptionalLong single = llmGateway.latencyMillis("openai", FinanceChatService.PURPOSE, 0.95);
+        if (single.isEmpty()) {
+            return ceiling;
+        }
+        Duration relative = properties.getWindow()
+            .plusMillis(Math.round(single.getAsLong() * properties.getMaxWaitFactor()));
+        return relative.compareTo(ceiling) < 0 ? relative : ceiling;
+    }
+
+    private void abandon(PendingQuestion item) {
+        synchronized (lock) {
+            pending.remove(item);
+        }
+        item.decision().complete(Optional.empty());
+    }
+
+    private PendingQuestion enqueue(String question) {
+        List<PendingQuestion> ready = null;
+        PendingQuestion item;
+        synchronized (lock) {
+            item = new PendingQuestion("q" + (++sequence), question, new CompletableFuture<>());
+            pending.add(item);
+            if (pending.size() >= properties.getMaxBatchSize()) {
+                ready = drainLocked();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush,
+                    properties.getWindow().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        if (ready != null) {
+            send(ready);
+        }
+        return item;
+    }
+
+    private void flush() {
+        List<PendingQuestion> ready;
+        synchronized (lock) {
+            ready = drainLocked();
+        }
+        send(ready);
+    }
+
+    private List<PendingQuestion> drainLocked() {
+        List<PendingQuestion> ready = pending;
+        pending = new ArrayList<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return ready;
+    }
+
+    private void send(List<PendingQuestion> drained) {
+        List<PendingQuestion> batch = drained.stream()
+            .filter(item -> !item.decision().isDone())
+            .toList();
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Map<String, String>> questions = batch.stream()
+            .map(item -> Map.of("id", item.id(), "question", item.question()))
+            .toList();
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(questions);
+        } catch (Exception ex) {
+            batch.forEach(item -> item.decision().completeExceptionally(ex));
+            return;
+        }
+
+        LlmRequest request = LlmRequest.of("finance-batch", "openai", BATCH_PROMPT, payload, 0.4)
+            .withResponseSchema("FinanceAdvisorBatchResponse", buildResponseSchema());
+        log.debug("Sending batched finance classification size={}", batch.size());
+        llmGateway.completeAsync(request)
+            .whenComplete((result, error) -> {
+                Map<String, FinanceDecision> decisions = error == null
+                    ? result.map(value -> parseDecisions(value.text())).orElse(Map.of())
+                    : Map.of();
+                batch.forEach(item -> item.decision().complete(Optional.ofNullable(decisions.get(item.id()))));
+            });
+    }
+
+    private Map<String, FinanceDecision> parseDecisions(String rawJson) {
+        Map<String, FinanceDecision> decisions = new HashMap<>();
+        try {
+            JsonNode root = objectMapper.readTree(rawJson);
+            for (JsonNode node : root.path("decisions")) {
+                String id = node.path("id").asText();
+                FinanceDecision.fromNode(node).ifPresent(decision -> decisions.put(id, decision));
+            }
+        } catch (Exception ex) {
+            log.warn("Failed to parse batched finance decision JSON: {}", rawJson, ex);
+        }
+        return decisions;
+    }
+
+    private Map<String, Object> buildResponseSchema() {
+        Map<String, Object> decisionProperties = new LinkedHashMap<>();
+        decisionProperties.put("id", Map.of("type", "string"));
+        decisionProperties.put("category", Map.of("type", "string", "enum", List.of("finance", "not_finance")));
+        decisionProperties.put("confidence", Map.of("type", "number", "minimum", 0, "maximum", 1));
+        decisionProperties.put("reply", Map.of("type", "string"));
+
+        Map<String, Object> decision = Map.of(
+            "type", "object",
+            "properties", decisionProperties,
+            "required", List.of("id", "category", "confidence", "reply")
+        );
+        return Map.of(
+            "type", "object",
+            "properties", Map.of("decisions", Map.of("type", "array", "items", decision)),
+            "required", List.of("decisions")
+        );
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private record PendingQuestion(String id, String question, CompletableFuture<Optional<FinanceDecision>> decision) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.hack.app.chat.finance;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Optional;
+
+record FinanceDecision(boolean isFinance, String reply, double confidence) {
+
+    static Optional<FinanceDecision> fromNode(JsonNode candidate) {
+        if (candidate == null) {
+            return Optional.empty();
+        }
+
+        String category = candidate.path("category").asText();
+        String reply = candidate.path("reply").asText();
+        double confidence = candidate.path("confidence").asDouble(0.0);
+        if (category == null || category.isBlank() || reply == null || reply.isBlank()) {
+            return Optional.empty();
+        }
+
+        boolean isFinance = "finance".equalsIgnoreCase(category);
+        return Optional.of(new FinanceDecision(isFinance, reply, confidence));
+    }
+}
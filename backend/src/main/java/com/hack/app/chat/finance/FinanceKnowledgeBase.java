@@ -0,0 +1,151 @@
+package com.hack.app.chat.finance;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hack.app.games.typing.Sentence;
+import com.hack.app.games.typing.SentenceRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers common finance questions from the bundled FAQ without calling the LLM, and otherwise
+ * finds passages from the FAQ answers and the economics sentences in {@code data.sql} to ground the
+ * LLM prompt. Both are BM25 indexes over {@link HangulTokenizer} terms; the sentence corpus is read
+ * from the database once the application is ready, and the index is swapped in whole.
+ */
+@Component
+class FinanceKnowledgeBase {
+
+    private static final Logger log = LoggerFactory.getLogger(FinanceKnowledgeBase.class);
+
+    private static final String FAQ_RESOURCE = "data/finance-faq.json";
+
+    private final FinanceChatProperties.Knowledge properties;
+    private final List<FaqEntry> faq;
+    private final SentenceRepository sentenceRepository;
+    private final Bm25Index questionIndex;
+    private volatile Bm25Index passageIndex;
+    private final Timer answeredTimer;
+    private final Timer groundedTimer;
+    private final Timer missedTimer;
+
+    @Autowired
+    FinanceKnowledgeBase(FinanceChatProperties properties,
+                         ObjectMapper objectMapper,
+                         SentenceRepository sentenceRepository,
+                         MeterRegistry meterRegistry) {
+        this(properties, loadFaq(objectMapper), sentenceRepository, meterRegistry);
+    }
+
+    FinanceKnowledgeBase(FinanceChatProperties properties,
+                         List<FaqEntry> faq,
+                         @Nullable SentenceRepository sentenceRepository,
+                         MeterRegistry meterRegistry) {
+        this.properties = properties.getKnowledge();
+        this.faq = List.copyOf(faq);
+        this.sentenceRepository = sentenceRepository;
+        this.questionIndex = Bm25Index.build(this.faq.stream().map(FaqEntry::asQuestion).toList());
+        this.passageIndex = Bm25Index.build(this.faq.stream().map(FaqEntry::asPassage).toList());
+        this.answeredTimer = lookupTimer(meterRegistry, "answered");
+        this.groundedTimer = lookupTimer(meterRegistry, "grounded");
+        this.missedTimer = lookupTimer(meterRegistry, "missed");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCorpus() {
+        if (sentenceRepository == null) {
+            return;
+        }
+        List<KnowledgePassage> passages = new ArrayList<>(faq.stream().map(FaqEntry::asPassage).toList());
+        sentenceRepository.findAll().stream()
+            .map(Sentence::getContent)
+            .filter(content -> content != null && !content.isBlank())
+            .map(KnowledgePassage::sentence)
+            .forEach(passages::add);
+        passageIndex = Bm25Index.build(passages);
+        log.info("Finance knowledge base indexed faq={} passages={}", faq.size(), passages.size());
+    }
+
+    /**
+     * Looks the question up in a few microseconds. The result either carries an FAQ answer whose
+     * question covers at least {@code answer-coverage} of the query's weight, or up to
+     * {@code grounding-passages} passages covering at least {@code grounding-coverage}, or neither.
+     */
+    Lookup lookup(String question) {
+        if (!properties.isEnabled()) {
+            return Lookup.NONE;
+        }
+        long started = System.nanoTime();
+        Optional<Bm25Index.Match> answer = questionIndex.search(question, 1).stream()
+            .filter(match -> match.coverage() >= properties.getAnswerCoverage())
+            .findFirst();
+        if (answer.isPresent()) {
+            answeredTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            log.debug("Answering finance question locally from {} coverage={}", answer.get().passage().source(),
+                answer.get().coverage());
+            return new Lookup(answer.get().passage().text(), List.of());
+        }
+
+        List<String> grounding = passageIndex.search(question, properties.getGroundingPassages()).stream()
+            .filter(match -> match.coverage() >= properties.getGroundingCoverage())
+            .map(match -> match.passage().text())
+            .toList();
+        (grounding.isEmpty() ? missedTimer : groundedTimer).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return grounding.isEmpty() ? Lookup.NONE : new Lookup(null, grounding);
+    }
+
+    static List<FaqEntry> loadFaq(ObjectMapper objectMapper) {
+        ClassPathResource resource = new ClassPathResource(FAQ_RESOURCE);
+        try (InputStream inputStream = resource.getInputStream()) {
+            FaqHolder holder = objectMapper.readValue(inputStream, FaqHolder.class);
+            return holder.faq() == null ? List.of() : List.copyOf(holder.faq());
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to load finance FAQ", ex);
+        }
+    }
+
+    private static Timer lookupTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("finance.knowledge.lookup")
+            .description("Local finance knowledge base lookups; the answered share is the local hit rate")
+            .tag("result", result)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    }
+
+    record Lookup(@Nullable String answer, List<String> grounding) {
+
+        static final Lookup NONE = new Lookup(null, List.of());
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record FaqEntry(String id, String question, List<String> keywords, String answer) {
+
+        private KnowledgePassage asQuestion() {
+            String indexed = keywords == null ? question : question + " " + String.join(" ", keywords);
+            return new KnowledgePassage("faq:" + id, indexed, answer);
+        }
+
+        private KnowledgePassage asPassage() {
+            return new KnowledgePassage("faq:" + id, answer, answer);
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record FaqHolder(List<FaqEntry> faq) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.hack.app.chat.finance;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits Korean text into syllable bigrams, which match across the particles and endings that a
+ * whitespace split would glue onto each word ("금리가", "금리는" both yield "금리"). One trailing
+ * particle is stripped first and the bigrams of common question phrasing are dropped, so
+ * "적금이 뭐야?" reduces to the single term "적금". Latin words and numbers are kept whole.
+ */
+final class HangulTokenizer {
+
+    private static final List<String> PARTICLES = List.of(
+        "에서", "으로", "이란", "이랑", "에게", "한테", "까지", "부터", "이나", "이요",
+        "이", "가", "은", "는", "을", "를", "의", "에", "와", "과", "로", "란", "랑", "도", "만", "나", "요");
+
+    private static final Set<String> STOP_TERMS = Set.of(
+        "뭐", "뭐야", "뭐예", "예요", "뭔가", "뭔지", "무엇", "엇인", "인가", "가요", "인지", "건가",
+        "알려", "려줘", "려주", "주세", "세요", "해줘", "해주", "설명", "명해", "궁금", "금해", "금한",
+        "어떻", "떻게", "어떤", "하나", "나요", "싶어", "좋아", "좋을", "좋은", "할까", "까요", "있어",
+        "있나", "있는", "있을", "없어", "이야", "거야", "그럼", "그런", "그래", "요즘", "정말", "혹시",
+        "대해", "관해", "어야", "해야", "해도", "하면", "하는", "하고", "되나", "되는", "돼요", "얼마",
+        "마나", "언제",
+        "돼", "왜", "좀", "더", "잘", "꼭", "그", "이", "저", "난", "나", "너", "내", "제", "해", "줘",
+        "봐", "할", "수", "것", "게", "거", "뭘", "안", "못", "다", "법");
+
+    private HangulTokenizer() {
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            // "etf는" splits into "etf" and a particle, the way a space would have.
+            boolean scriptChange = wordChar && start >= 0
+                && isHangul(normalized.charAt(i)) != isHangul(normalized.charAt(start));
+            if (start >= 0 && (!wordChar || scriptChange)) {
+                addWord(normalized.substring(start, i), terms);
+                start = -1;
+            }
+            if (wordChar && start < 0) {
+                start = i;
+            }
+        }
+        return terms;
+    }
+
+    private static void addWord(String word, List<String> terms) {
+        if (!isHangul(word.charAt(0))) {
+            terms.add(word);
+            return;
+        }
+        String stem = stripParticle(word);
+        if (PARTICLES.contains(stem)) {
+            return;
+        }
+        if (stem.length() == 1) {
+            addTerm(stem, terms);
+            return;
+        }
+        for (int i = 0; i + 1 < stem.length(); i++) {
+            addTerm(stem.substring(i, i + 2), terms);
+        }
+    }
+
+    private static void addTerm(String term, List<String> terms) {
+        if (!STOP_TERMS.contains(term)) {
+            terms.add(term);
+        }
+    }
+
+    private static String stripParticle(String word) {
+        for (String particle : PARTICLES) {
+            if (word.length() - particle.length() >= 2 && word.endsWith(particle)) {
+                return word.substring(0, word.length() - particle.length());
+            }
+        }
+        return word;
+    }
+
+    private static boolean isHangul(char ch) {
+        return Character.UnicodeScript.of(ch) == Character.UnicodeScript.HANGUL;
+    }
+}
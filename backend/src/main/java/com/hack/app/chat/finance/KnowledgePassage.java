@@ -0,0 +1,13 @@
+package com.hack.app.chat.finance;
+
+/**
+ * A searchable unit of the finance knowledge base. {@code indexedText} is what queries match
+ * against and {@code text} is what is shown: an FAQ entry is indexed by its question and keywords
+ * but carries its answer, while a corpus sentence is both.
+ */
+record KnowledgePassage(String source, String indexedText, String text) {
+
+    static KnowledgePassage sentence(String text) {
+        return new KnowledgePassage("sentence", text, text);
+    }
+}
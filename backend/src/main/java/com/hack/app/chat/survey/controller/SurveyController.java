@@ -1,30 +1,72 @@
 package com.hack.app.chat.survey.controller;
 
+import com.hack.app.chat.survey.dto.BatchRecommendationRequest;
+import com.hack.app.chat.survey.dto.PrefetchStatus;
+import com.hack.app.chat.survey.dto.RecommendationJobStatus;
 import com.hack.app.chat.survey.dto.RecommendationResponse;
 import com.hack.app.chat.survey.dto.SurveyQuestion;
 import com.hack.app.chat.survey.dto.SurveyResponsePayload;
+import com.hack.app.chat.survey.dto.WarmupStatus;
+import com.hack.app.chat.survey.service.RecommendationBatch;
+import com.hack.app.chat.survey.service.RecommendationJobs;
+import com.hack.app.chat.survey.service.RecommendationPrefetcher;
+import com.hack.app.chat.survey.service.RecommendationResult;
 import com.hack.app.chat.survey.service.RecommendationService;
+import com.hack.app.chat.survey.service.RecommendationWarmer;
 import com.hack.app.chat.survey.service.SurveyService;
+import com.hack.app.llm.Deadline;
+import com.hack.app.llm.quota.UsageSubject;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api")
 public class SurveyController {
 
+    private static final String SOURCE_HEADER = "X-Recommendation-Source";
+    private static final String KEY_HEADER = "X-Recommendation-Key";
+    private static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
     private final SurveyService surveyService;
     private final RecommendationService recommendationService;
+    private final RecommendationWarmer recommendationWarmer;
+    private final RecommendationJobs recommendationJobs;
+    private final RecommendationBatch recommendationBatch;
+    private final RecommendationPrefetcher recommendationPrefetcher;
 
-    public SurveyController(SurveyService surveyService, RecommendationService recommendationService) {
+    public SurveyController(SurveyService surveyService,
+                            RecommendationService recommendationService,
+                            RecommendationWarmer recommendationWarmer,
+                            RecommendationJobs recommendationJobs,
+                            RecommendationBatch recommendationBatch,
+                            RecommendationPrefetcher recommendationPrefetcher) {
         this.surveyService = surveyService;
         this.recommendationService = recommendationService;
+        this.recommendationWarmer = recommendationWarmer;
+        this.recommendationJobs = recommendationJobs;
+        this.recommendationBatch = recommendationBatch;
+        this.recommendationPrefetcher = recommendationPrefetcher;
     }
 
     @GetMapping("/survey")
@@ -33,7 +75,95 @@ public class SurveyController {
     }
 
     @PostMapping("/recommendations")
-    public ResponseEntity<RecommendationResponse> recommend(@Valid @RequestBody SurveyResponsePayload payload) {
-        return ResponseEntity.ok(recommendationService.recommend(payload));
+    public ResponseEntity<RecommendationResponse> recommend(@Valid @RequestBody SurveyResponsePayload payload,
+                                                            @RequestHeader(value = UsageSubject.USER_HEADER, required = false) String zepUserId,
+                                                            @RequestAttribute(Deadline.REQUEST_ATTRIBUTE) Deadline deadline,
+                                                            HttpServletRequest request) {
+        RecommendationResult result = recommendationService.recommend(payload,
+            UsageSubject.of(zepUserId, request.getRemoteAddr()), deadline);
+        return ResponseEntity.ok()
+            .header(SOURCE_HEADER, result.source().name().toLowerCase(Locale.ROOT))
+            .header(KEY_HEADER, result.key())
+            .body(result.response());
+    }
+
+    @PostMapping("/recommendations/prefetch")
+    public ResponseEntity<PrefetchStatus> prefetch(@Valid @RequestBody SurveyResponsePayload payload,
+                                                   @RequestHeader(value = UsageSubject.USER_HEADER, required = false) String zepUserId,
+                                                   HttpServletRequest request) {
+        return ResponseEntity.accepted().body(recommendationPrefetcher.prefetch(payload,
+            UsageSubject.of(zepUserId, request.getRemoteAddr())));
+    }
+
+    @PostMapping("/recommendations/batch")
+    public ResponseEntity<ResponseBodyEmitter> recommendBatch(@Valid @RequestBody BatchRecommendationRequest batchRequest,
+                                                              @RequestHeader(value = UsageSubject.USER_HEADER, required = false) String zepUserId,
+                                                              HttpServletRequest request) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(recommendationBatch.stream(batchRequest, UsageSubject.of(zepUserId, request.getRemoteAddr())));
+    }
+
+    @PostMapping("/recommendations/jobs")
+    public ResponseEntity<RecommendationJobStatus> submitJob(@Valid @RequestBody SurveyResponsePayload payload,
+                                                             @RequestHeader(value = UsageSubject.USER_HEADER, required = false) String zepUserId,
+                                                             HttpServletRequest request) {
+        RecommendationJobStatus status = recommendationJobs.submit(payload, UsageSubject.of(zepUserId, request.getRemoteAddr()));
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/recommendations/jobs/" + status.jobId()))
+            .body(status);
+    }
+
+    @GetMapping("/recommendations/jobs/{jobId}")
+    public DeferredResult<ResponseEntity<RecommendationJobStatus>> jobStatus(
+        @PathVariable String jobId,
+        @RequestParam(defaultValue = "0") long waitSeconds) {
+        RecommendationJobStatus current = recommendationJobs.find(jobId)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown recommendation job: " + jobId));
+
+        long waitMillis = Math.min(Duration.ofSeconds(Math.max(0, waitSeconds)).toMillis(),
+            recommendationJobs.maxLongPoll().toMillis());
+        if (current.isFinished() || waitMillis == 0) {
+            DeferredResult<ResponseEntity<RecommendationJobStatus>> immediate = new DeferredResult<>();
+            immediate.setResult(ResponseEntity.ok(current));
+            return immediate;
+        }
+
+        DeferredResult<ResponseEntity<RecommendationJobStatus>> result = new DeferredResult<>(waitMillis,
+            () -> ResponseEntity.ok(recommendationJobs.find(jobId).orElse(current)));
+        recommendationJobs.completion(jobId)
+            .ifPresent(completion -> completion.thenAccept(status -> result.setResult(ResponseEntity.ok(status))));
+        return result;
+    }
+
+    @GetMapping("/recommendations/{key}")
+    public ResponseEntity<RecommendationResponse> upgradedRecommendation(@PathVariable String key) {
+        return recommendationService.findCached(key)
+            .map(response -> ResponseEntity.ok().header(SOURCE_HEADER, "cache").body(response))
+            .orElseGet(() -> ResponseEntity.status(recommendationService.isGenerating(key)
+                ? HttpStatus.ACCEPTED
+                : HttpStatus.NOT_FOUND).build());
+    }
+
+    @PostMapping(value = "/recommendations/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRecommendation(@Valid @RequestBody SurveyResponsePayload payload,
+                                           @RequestHeader(value = UsageSubject.USER_HEADER, required = false) String zepUserId,
+                                           @RequestAttribute(Deadline.REQUEST_ATTRIBUTE) Deadline deadline,
+                                           HttpServletRequest request) {
+        return recommendationService.stream(payload, UsageSubject.of(zepUserId, request.getRemoteAddr()), deadline);
+    }
+
+    @GetMapping("/recommendations/warmup")
+    public ResponseEntity<WarmupStatus> warmupStatus() {
+        return ResponseEntity.ok(recommendationWarmer.status());
+    }
+
+    @PostMapping("/recommendations/warmup")
+    public ResponseEntity<WarmupStatus> triggerWarmup(@RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String adminToken) {
+        if (!recommendationWarmer.acceptsAdminToken(adminToken)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Warmup can only be started with the admin token");
+        }
+        HttpStatus status = recommendationWarmer.trigger() ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(recommendationWarmer.status());
     }
 }
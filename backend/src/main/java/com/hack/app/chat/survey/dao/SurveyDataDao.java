@@ -3,25 +3,39 @@ package com.hack.app.chat.survey.dao;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hack.app.chat.survey.dto.SurveyQuestion;
+import com.hack.app.chat.survey.model.CatalogProduct;
+import com.hack.app.chat.survey.model.SurveyIndex;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Repository;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
 
 @Repository
 public class SurveyDataDao {
 
     private final List<SurveyQuestion> questions;
+    private final String version;
+    private final SurveyIndex index;
+    private final List<CatalogProduct> products;
 
     public SurveyDataDao(ObjectMapper objectMapper) {
         ClassPathResource resource = new ClassPathResource("data/survey-data.json");
         try (InputStream inputStream = resource.getInputStream()) {
-            SurveyDataHolder holder = objectMapper.readValue(inputStream, SurveyDataHolder.class);
+            byte[] content = inputStream.readAllBytes();
+            SurveyDataHolder holder = objectMapper.readValue(content, SurveyDataHolder.class);
             this.questions = List.copyOf(holder.questions());
+            this.products = holder.products() == null ? List.of() : List.copyOf(holder.products());
+            this.index = SurveyIndex.of(questions);
+            this.version = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content), 0, 6);
         } catch (IOException ex) {
             throw new IllegalStateException("Failed to load survey data", ex);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
         }
     }
 
@@ -29,6 +43,18 @@ public class SurveyDataDao {
         return questions;
     }
 
+    public String getVersion() {
+        return version;
+    }
+
+    public SurveyIndex getIndex() {
+        return index;
+    }
+
+    public List<CatalogProduct> getProducts() {
+        return products;
+    }
+
     @JsonIgnoreProperties(ignoreUnknown = true)
-    private record SurveyDataHolder(List<SurveyQuestion> questions) {}
+    private record SurveyDataHolder(List<SurveyQuestion> questions, List<CatalogProduct> products) {}
 }
@@ -0,0 +1,22 @@
+package com.hack.app.chat.survey.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchRecommendationItem(
+    int index,
+    String key,
+    String source,
+    RecommendationResponse result,
+    Integer status,
+    String error
+) {
+
+    public static BatchRecommendationItem success(int index, String key, String source, RecommendationResponse result) {
+        return new BatchRecommendationItem(index, key, source, result, 200, null);
+    }
+
+    public static BatchRecommendationItem failure(int index, String key, int status, String error) {
+        return new BatchRecommendationItem(index, key, null, null, status, error);
+    }
+}
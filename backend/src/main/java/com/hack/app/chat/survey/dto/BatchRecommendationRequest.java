@@ -0,0 +1,11 @@
+package com.hack.app.chat.survey.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record BatchRecommendationRequest(
+    @NotEmpty List<@Valid SurveyResponsePayload> items
+) {
+}
@@ -0,0 +1,21 @@
+package com.hack.app.chat.survey.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PrefetchStatus(
+    State state,
+    String key,
+    Map<String, List<String>> predictedAnswers
+) {
+
+    public enum State {
+        STARTED,
+        IN_FLIGHT,
+        CACHED,
+        SKIPPED
+    }
+}
@@ -0,0 +1,32 @@
+package com.hack.app.chat.survey.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RecommendationJobStatus(
+    String jobId,
+    State state,
+    Instant submittedAt,
+    Instant startedAt,
+    Instant finishedAt,
+    Integer queuePosition,
+    String source,
+    RecommendationResponse result,
+    String error
+) {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return state == State.SUCCEEDED || state == State.FAILED;
+    }
+}
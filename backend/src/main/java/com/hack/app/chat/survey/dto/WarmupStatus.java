@@ -0,0 +1,20 @@
+package com.hack.app.chat.survey.dto;
+
+import java.time.Instant;
+
+public record WarmupStatus(
+    String surveyVersion,
+    boolean enabled,
+    boolean running,
+    int cachedEntries,
+    int candidateProfiles,
+    int warmedProfiles,
+    double coverage,
+    Instant lastStartedAt,
+    Instant lastFinishedAt,
+    int lastGenerated,
+    int lastFailed,
+    Long oldestEntryAgeSeconds,
+    int staleEntries
+) {
+}
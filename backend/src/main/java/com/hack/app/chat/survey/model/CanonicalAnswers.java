@@ -0,0 +1,50 @@
+package com.hack.app.chat.survey.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+public record CanonicalAnswers(String key) {
+
+    public static CanonicalAnswers of(EncodedAnswers answers, Map<String, String> promptParams) {
+        StringBuilder canonical = new StringBuilder();
+        SurveyIndex index = answers.index();
+        for (int q = 0; q < index.size(); q++) {
+            if (answers.isAnswered(q)) {
+                canonical.append(index.question(q).id())
+                    .append('=')
+                    .append(Long.toHexString(answers.mask(q)))
+                    .append(';');
+            }
+        }
+
+        canonical.append('|');
+        if (promptParams != null) {
+            Map<String, String> sortedParams = new TreeMap<>();
+            promptParams.forEach((name, value) -> {
+                if (name != null && value != null && !value.isBlank()) {
+                    sortedParams.put(normalize(name), value.trim().replaceAll("\\s+", " "));
+                }
+            });
+            sortedParams.forEach((name, value) -> canonical.append(name).append('=').append(value).append(';'));
+        }
+        return new CanonicalAnswers(digest(canonical.toString()));
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String digest(String canonical) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.hack.app.chat.survey.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record CatalogProduct(
+    String id,
+    ProductType type,
+    String name,
+    String headline,
+    List<String> benefits,
+    String caution,
+    Integer minAge,
+    Integer maxAge,
+    Integer minMonthlyAmount,
+    Integer maxMonthlyAmount,
+    List<String> suitabilityGoals,
+    List<String> suitabilityHorizons,
+    List<String> riskProfiles,
+    List<String> highlightCategories,
+    boolean digitalFriendly,
+    boolean guardianRequired
+) {
+
+    public CatalogProduct {
+        benefits = benefits == null ? List.of() : List.copyOf(benefits);
+        suitabilityGoals = suitabilityGoals == null ? List.of() : List.copyOf(suitabilityGoals);
+        suitabilityHorizons = suitabilityHorizons == null ? List.of() : List.copyOf(suitabilityHorizons);
+        riskProfiles = riskProfiles == null ? List.of() : List.copyOf(riskProfiles);
+        highlightCategories = highlightCategories == null ? List.of() : List.copyOf(highlightCategories);
+    }
+}
@@ -0,0 +1,75 @@
+package com.hack.app.chat.survey.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Validated survey answers as one option bitmask per question ordinal; zero means unanswered.
+ */
+public final class EncodedAnswers {
+
+    private final SurveyIndex index;
+    private final long[] masks;
+
+    EncodedAnswers(SurveyIndex index, long[] masks) {
+        this.index = index;
+        this.masks = masks;
+    }
+
+    public SurveyIndex index() {
+        return index;
+    }
+
+    public long mask(int questionOrdinal) {
+        return masks[questionOrdinal];
+    }
+
+    public boolean isAnswered(int questionOrdinal) {
+        return masks[questionOrdinal] != 0;
+    }
+
+    public List<String> optionIds(int questionOrdinal) {
+        return collect(questionOrdinal, false);
+    }
+
+    public List<String> optionLabels(int questionOrdinal) {
+        return collect(questionOrdinal, true);
+    }
+
+    /**
+     * Answers keyed by question id in survey order, with option ids in survey order.
+     */
+    public Map<String, List<String>> toAnswerMap() {
+        Map<String, List<String>> answers = new LinkedHashMap<>();
+        for (int q = 0; q < masks.length; q++) {
+            if (masks[q] != 0) {
+                answers.put(index.question(q).id(), optionIds(q));
+            }
+        }
+        return answers;
+    }
+
+    private List<String> collect(int questionOrdinal, boolean labels) {
+        long mask = masks[questionOrdinal];
+        List<String> values = new ArrayList<>(Long.bitCount(mask));
+        while (mask != 0) {
+            int o = Long.numberOfTrailingZeros(mask);
+            values.add(labels ? index.optionLabel(questionOrdinal, o) : index.optionId(questionOrdinal, o));
+            mask &= mask - 1;
+        }
+        return values;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof EncodedAnswers that && index == that.index && Arrays.equals(masks, that.masks);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(masks);
+    }
+}
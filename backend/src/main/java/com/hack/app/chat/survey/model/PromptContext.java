@@ -5,6 +5,7 @@ import java.util.Map;
 public record PromptContext(
     String systemInstruction,
     String userPrompt,
-    Map<String, String> promptParams
+    Map<String, String> promptParams,
+    int estimatedInputTokens
 ) {
 }
@@ -0,0 +1,52 @@
+package com.hack.app.chat.survey.model;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Derives the prompt parameters the survey page sends from a set of answers, for requests the server
+ * builds itself (warmup profiles, speculative prefetches) so their cache keys match a real
+ * submission. Mirrors {@code buildPromptParams} in {@code SurveyPage.tsx}; change both together.
+ */
+public final class PromptParams {
+
+    private PromptParams() {
+    }
+
+    public static Map<String, String> fromAnswers(Map<String, List<String>> answers) {
+        String age = first(answers, "age-band");
+        String risk = first(answers, "risk-attitude");
+        String tone;
+        if ("middle-1-2".equals(age) || "middle-3".equals(age)) {
+            tone = "friendly";
+        } else if ("growth".equals(risk)) {
+            tone = "energetic";
+        } else {
+            tone = "calm";
+        }
+
+        Map<String, String> params = new LinkedHashMap<>();
+        put(params, "customer_age_band", age);
+        put(params, "allowance_bracket", first(answers, "monthly-funds"));
+        put(params, "goal_theme", first(answers, "saving-goal"));
+        put(params, "saving_horizon", first(answers, "horizon"));
+        put(params, "risk_profile", risk);
+        put(params, "top_spending_categories", String.join(",", answers.getOrDefault("spend-focus", List.of())));
+        put(params, "digital_native", first(answers, "digital-behavior"));
+        put(params, "requires_guardian", first(answers, "guardian-preference"));
+        put(params, "tone", tone);
+        return params;
+    }
+
+    private static String first(Map<String, List<String>> answers, String questionId) {
+        List<String> selected = answers.get(questionId);
+        return selected == null || selected.isEmpty() ? null : selected.get(0);
+    }
+
+    private static void put(Map<String, String> params, String name, String value) {
+        if (value != null && !value.isEmpty()) {
+            params.put(name, value);
+        }
+    }
+}
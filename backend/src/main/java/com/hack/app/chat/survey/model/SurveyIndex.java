@@ -0,0 +1,153 @@
+package com.hack.app.chat.survey.model;
+
+import com.hack.app.chat.survey.dto.SurveyAnswer;
+import com.hack.app.chat.survey.dto.SurveyOption;
+import com.hack.app.chat.survey.dto.SurveyQuestion;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable lookup tables over the survey definition, built once when the survey is loaded.
+ * Options are addressed by ordinal so a question's answer fits in a single {@code long} bitmask.
+ */
+public final class SurveyIndex {
+
+    static final int MAX_OPTIONS = Long.SIZE;
+
+    private final List<SurveyQuestion> questions;
+    private final Map<String, Integer> questionOrdinals;
+    private final List<Map<String, Integer>> optionOrdinals;
+    private final String[][] optionIds;
+    private final String[][] optionLabels;
+    private final int[] maxSelections;
+
+    private SurveyIndex(List<SurveyQuestion> questions) {
+        this.questions = List.copyOf(questions);
+        int size = questions.size();
+        Map<String, Integer> questionOrdinals = new HashMap<>();
+        List<Map<String, Integer>> optionOrdinals = new ArrayList<>(size);
+        this.optionIds = new String[size][];
+        this.optionLabels = new String[size][];
+        this.maxSelections = new int[size];
+
+        for (int q = 0; q < size; q++) {
+            SurveyQuestion question = questions.get(q);
+            if (questionOrdinals.put(question.id(), q) != null) {
+                throw new IllegalStateException("Duplicate survey question id: " + question.id());
+            }
+            List<SurveyOption> options = question.options();
+            if (options.size() > MAX_OPTIONS) {
+                throw new IllegalStateException("Survey question " + question.id() + " has more than " + MAX_OPTIONS + " options");
+            }
+
+            Map<String, Integer> ordinals = new HashMap<>();
+            optionIds[q] = new String[options.size()];
+            optionLabels[q] = new String[options.size()];
+            for (int o = 0; o < options.size(); o++) {
+                SurveyOption option = options.get(o);
+                if (ordinals.put(normalize(option.id()), o) != null) {
+                    throw new IllegalStateException("Duplicate option id " + option.id() + " in question " + question.id());
+                }
+                optionIds[q][o] = option.id();
+                optionLabels[q][o] = option.label();
+            }
+            optionOrdinals.add(Map.copyOf(ordinals));
+
+            int limit = question.multiSelect() ? options.size() : 1;
+            if (question.maxSelections() != null) {
+                limit = Math.min(limit, question.maxSelections());
+            }
+            maxSelections[q] = limit;
+        }
+        this.questionOrdinals = Map.copyOf(questionOrdinals);
+        this.optionOrdinals = List.copyOf(optionOrdinals);
+    }
+
+    public static SurveyIndex of(List<SurveyQuestion> questions) {
+        return new SurveyIndex(questions);
+    }
+
+    public int size() {
+        return questions.size();
+    }
+
+    public List<SurveyQuestion> questions() {
+        return questions;
+    }
+
+    public SurveyQuestion question(int ordinal) {
+        return questions.get(ordinal);
+    }
+
+    public int questionOrdinal(String questionId) {
+        return questionOrdinals.getOrDefault(questionId, -1);
+    }
+
+    public int optionOrdinal(int questionOrdinal, String optionId) {
+        return optionOrdinals.get(questionOrdinal).getOrDefault(normalize(optionId), -1);
+    }
+
+    public String optionId(int questionOrdinal, int optionOrdinal) {
+        return optionIds[questionOrdinal][optionOrdinal];
+    }
+
+    public String optionLabel(int questionOrdinal, int optionOrdinal) {
+        return optionLabels[questionOrdinal][optionOrdinal];
+    }
+
+    /**
+     * Encodes and validates a submitted payload.
+     *
+     * @throws IllegalArgumentException when a question or option is unknown, a question is answered
+     *                                  twice, or more options are selected than the question allows
+     */
+    public EncodedAnswers encode(List<SurveyAnswer> answers) {
+        long[] masks = new long[questions.size()];
+        for (SurveyAnswer answer : answers) {
+            int q = questionOrdinal(answer.questionId());
+            if (q < 0) {
+                throw new IllegalArgumentException("Unknown question ID: " + answer.questionId());
+            }
+            if (masks[q] != 0) {
+                throw new IllegalArgumentException("Question answered more than once: " + answer.questionId());
+            }
+            masks[q] = encodeOptions(q, answer.selectedOptionIds());
+        }
+        return new EncodedAnswers(this, masks);
+    }
+
+    public EncodedAnswers encode(Map<String, List<String>> answers) {
+        return encode(answers.entrySet().stream()
+            .map(entry -> new SurveyAnswer(entry.getKey(), entry.getValue()))
+            .toList());
+    }
+
+    private long encodeOptions(int q, List<String> selectedOptionIds) {
+        long mask = 0L;
+        for (String optionId : selectedOptionIds) {
+            int o = optionOrdinal(q, optionId);
+            if (o < 0) {
+                throw new IllegalArgumentException(
+                    "Unknown option ID " + optionId + " for question " + questions.get(q).id());
+            }
+            mask |= 1L << o;
+        }
+        int selected = Long.bitCount(mask);
+        if (selected == 0) {
+            throw new IllegalArgumentException("No option selected for question " + questions.get(q).id());
+        }
+        if (selected > maxSelections[q]) {
+            throw new IllegalArgumentException("Question " + questions.get(q).id()
+                + " allows at most " + maxSelections[q] + " selection(s)");
+        }
+        return mask;
+    }
+
+    private static String normalize(String optionId) {
+        return optionId.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,182 @@
+package com.hack.app.chat.survey.service;
+
+import com.hack.app.chat.survey.dto.ProductRecommendation;
+import com.hack.app.chat.survey.dto.RecommendationResponse;
+import com.hack.app.chat.survey.model.CatalogProduct;
+import com.hack.app.chat.survey.model.ProductType;
+import com.hack.app.chat.survey.model.SurveyContext;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deterministic recommender over the bundled product catalog, used when Gemini misses its
+ * latency budget or fails. Products are indexed by type and sorted by minimum monthly amount,
+ * so the affordability filter is a prefix of each array; the rest is scored against the survey.
+ */
+@Component
+public class LocalRecommender {
+
+    private static final int MAX_PER_GROUP = 2;
+    private static final String SUMMARY_SUFFIX = " 지금은 조건이 맞는 상품을 먼저 골라 보여드려요.";
+
+    private final Map<ProductType, CatalogProduct[]> byType = new EnumMap<>(ProductType.class);
+
+    public LocalRecommender(SurveyService surveyService) {
+        for (ProductType type : ProductType.values()) {
+            byType.put(type, surveyService.getProducts().stream()
+                .filter(product -> product.type() == type)
+                .sorted(Comparator.comparingInt(LocalRecommender::minAmount))
+                .toArray(CatalogProduct[]::new));
+        }
+    }
+
+    public RecommendationResponse recommend(SurveyContext context) {
+        List<ProductRecommendation> savings = pick(context, ProductType.SAVINGS, ProductType.DEPOSIT);
+        List<ProductRecommendation> cards = pick(context, ProductType.CARD);
+        return new RecommendationResponse(summary(context), insights(context), savings, cards);
+    }
+
+    private List<ProductRecommendation> pick(SurveyContext context, ProductType... types) {
+        List<Scored> scored = new ArrayList<>();
+        for (ProductType type : types) {
+            CatalogProduct[] products = byType.get(type);
+            int affordable = affordablePrefix(products, context.allowanceAmount().orElse(Integer.MAX_VALUE));
+            for (int i = 0; i < affordable; i++) {
+                if (fitsAge(products[i], context)) {
+                    scored.add(new Scored(products[i], score(products[i], context)));
+                }
+            }
+        }
+        if (scored.isEmpty()) {
+            // Nothing affordable or age-appropriate: fall back to the lowest entry point of each type.
+            Arrays.stream(types)
+                .map(byType::get)
+                .filter(products -> products.length > 0)
+                .forEach(products -> scored.add(new Scored(products[0], 0)));
+        }
+        return scored.stream()
+            .sorted(Comparator.comparingInt(Scored::score).reversed()
+                .thenComparing(entry -> entry.product().id()))
+            .limit(MAX_PER_GROUP)
+            .map(entry -> toRecommendation(entry.product(), context))
+            .toList();
+    }
+
+    private int affordablePrefix(CatalogProduct[] products, int allowance) {
+        int low = 0;
+        int high = products.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (minAmount(products[mid]) <= allowance) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean fitsAge(CatalogProduct product, SurveyContext context) {
+        if (context.estimatedAge().isEmpty()) {
+            return true;
+        }
+        int age = context.estimatedAge().get();
+        return (product.minAge() == null || age >= product.minAge())
+            && (product.maxAge() == null || age <= product.maxAge());
+    }
+
+    private int score(CatalogProduct product, SurveyContext context) {
+        int score = 0;
+        for (String goal : context.savingGoals()) {
+            if (product.suitabilityGoals().contains(goal)) {
+                score += 3;
+            }
+        }
+        if (context.savingHorizon() != null && product.suitabilityHorizons().contains(context.savingHorizon())) {
+            score += 2;
+        }
+        if (context.riskProfile() != null && product.riskProfiles().contains(context.riskProfile())) {
+            score += 2;
+        }
+        for (String focus : context.spendingFocus()) {
+            if (product.highlightCategories().contains(focus)) {
+                score += 1;
+            }
+        }
+        if ("mostly-digital".equals(context.digitalBehavior())) {
+            score += product.digitalFriendly() ? 1 : -1;
+        } else if ("mostly-cash".equals(context.digitalBehavior()) && product.digitalFriendly()) {
+            score -= 1;
+        }
+        if ("independent".equals(context.guardianPreference()) && product.guardianRequired()) {
+            score -= 2;
+        } else if ("need-guardian".equals(context.guardianPreference()) && product.guardianRequired()) {
+            score += 1;
+        }
+        if (product.type() == ProductType.CARD && "using".equals(context.cardUsage())) {
+            score -= 1;
+        }
+        return score;
+    }
+
+    private ProductRecommendation toRecommendation(CatalogProduct product, SurveyContext context) {
+        String nextAction = product.guardianRequired()
+            ? "보호자와 함께 가입 조건과 필요 서류를 확인해 보세요."
+            : "앱에서 가입 조건을 확인하고 바로 시작해 보세요.";
+        return new ProductRecommendation(
+            product.id(),
+            product.type(),
+            product.name(),
+            product.headline(),
+            product.benefits(),
+            product.caution(),
+            nextAction,
+            product.minMonthlyAmount(),
+            product.maxMonthlyAmount(),
+            product.guardianRequired(),
+            product.highlightCategories().stream().filter(context.spendingFocus()::contains).toList(),
+            product.digitalFriendly()
+        );
+    }
+
+    private String summary(SurveyContext context) {
+        StringBuilder summary = new StringBuilder();
+        context.estimatedAge().ifPresent(age -> summary.append(age).append("세 학생의 "));
+        if (context.allowanceAmount().isPresent()) {
+            summary.append("월 약 ").append(context.allowanceAmount().get()).append("원 용돈을 기준으로 ");
+        }
+        summary.append("저축 목표와 소비 습관에 맞춰 추천했어요.");
+        return summary.append(SUMMARY_SUFFIX).toString();
+    }
+
+    private List<String> insights(SurveyContext context) {
+        List<String> insights = new ArrayList<>();
+        if (context.savingGoals().contains("emergency")) {
+            insights.add("비상금은 언제든 꺼낼 수 있도록 자유적립식이나 짧은 만기로 나눠 모아 보세요.");
+        }
+        if (context.savingGoals().contains("college")) {
+            insights.add("입시·대학 준비 자금은 기간을 길게 잡고 매달 같은 금액을 자동이체로 모으는 게 좋아요.");
+        }
+        if ("safety-first".equals(context.riskProfile())) {
+            insights.add("원금이 보장되는 예·적금 위주로 시작하고, 중도 해지 조건을 꼭 확인하세요.");
+        }
+        if (context.spendingFocus().contains("transport") || context.spendingFocus().contains("food")) {
+            insights.add("자주 쓰는 교통·식비 할인이 있는 체크카드를 쓰면 고정 지출을 줄일 수 있어요.");
+        }
+        insights.add("용돈을 받는 날 저축할 금액부터 먼저 떼어 두는 습관을 만들어 보세요.");
+        return insights.stream().limit(RecommendationParser.MAX_INSIGHTS).toList();
+    }
+
+    private static int minAmount(CatalogProduct product) {
+        return product.minMonthlyAmount() == null ? 0 : product.minMonthlyAmount();
+    }
+
+    private record Scored(CatalogProduct product, int score) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.hack.app.chat.survey.service;
+
+import com.hack.app.chat.survey.dto.SurveyQuestion;
+import com.hack.app.chat.survey.model.CanonicalAnswers;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class ObservedProfiles {
+
+    private static final int MAX_TRACKED_PROFILES = 2000;
+
+    private final Map<String, Tracked> profiles = new ConcurrentHashMap<>();
+
+    public void record(CanonicalAnswers key, Map<String, List<String>> answers, Map<String, String> promptParams) {
+        Tracked tracked = profiles.get(key.key());
+        if (tracked == null) {
+            if (profiles.size() >= MAX_TRACKED_PROFILES) {
+                return;
+            }
+            tracked = profiles.computeIfAbsent(key.key(), ignored -> new Tracked(
+                Map.copyOf(answers),
+                promptParams == null ? Map.of() : Map.copyOf(promptParams)
+            ));
+        }
+        tracked.count().incrementAndGet();
+    }
+
+    public List<Profile> mostFrequent(int limit) {
+        return profiles.values().stream()
+            .map(tracked -> new Profile(tracked.answers(), tracked.promptParams(), tracked.count().get()))
+            .sorted(Comparator.comparingLong(Profile::count).reversed())
+            .limit(limit)
+            .toList();
+    }
+
+    public Optional<String> mostCommonOption(String questionId) {
+        Map<String, Long> counts = new HashMap<>();
+        profiles.values().forEach(tracked -> tracked.answers().getOrDefault(questionId, List.of())
+            .forEach(optionId -> counts.merge(optionId, tracked.count().get(), Long::sum)));
+        return counts.entrySet().stream()
+            .max(Map.Entry.comparingByValue())
+            .map(Map.Entry::getKey);
+    }
+
+    /**
+     * Best guess for an unanswered question: the most commonly observed option, else the first one.
+     */
+    public String predictedOption(SurveyQuestion question) {
+        return mostCommonOption(question.id()).orElse(question.options().get(0).id());
+    }
+
+    public record Profile(Map<String, List<String>> answers, Map<String, String> promptParams, long count) {
+    }
+
+    private record Tracked(Map<String, List<String>> answers, Map<String, String> promptParams, AtomicLong count) {
+        Tracked(Map<String, List<String>> answers, Map<String, String> promptParams) {
+            this(answers, promptParams, new AtomicLong());
+        }
+    }
+}
@@ -3,19 +3,24 @@ package com.hack.app.chat.survey.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import com.hack.app.chat.survey.dto.SurveyOption;
-import com.hack.app.chat.survey.dto.SurveyQuestion;
+import com.hack.app.chat.survey.model.EncodedAnswers;
 import com.hack.app.chat.survey.model.PromptContext;
 import com.hack.app.chat.survey.model.SurveyContext;
+import com.hack.app.chat.survey.model.SurveyIndex;
+import com.hack.app.config.ServerTiming;
+import com.hack.app.llm.PromptTemplateSource;
+import com.hack.app.llm.TokenEstimator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Path;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Component
@@ -24,57 +29,68 @@ public class PromptContextBuilder {
     private static final Logger log = LoggerFactory.getLogger(PromptContextBuilder.class);
 
     private final ObjectMapper objectMapper;
-
-    public PromptContextBuilder(ObjectMapper objectMapper) {
+    private final String version;
+    private final PromptTemplateSource systemTemplate;
+    private final PromptTemplateSource userTemplate;
+    private final DistributionSummary promptTokens;
+
+    public PromptContextBuilder(ObjectMapper objectMapper,
+                                RecommendationProperties properties,
+                                MeterRegistry meterRegistry) {
         this.objectMapper = objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT);
-    }
 
-    public PromptContext build(Map<String, List<String>> answers,
-                               Map<String, SurveyQuestion> questions,
+        RecommendationProperties.Prompt prompt = properties.getPrompt();
+        this.version = prompt.getVersion();
+        Path overrideDir = prompt.getOverrideDir() == null || prompt.getOverrideDir().isBlank()
+            ? null
+            : Path.of(prompt.getOverrideDir());
+        this.systemTemplate = new PromptTemplateSource(
+            "survey-recommendation/system." + prompt.getVersion() + ".txt", overrideDir, prompt.getReloadInterval());
+        this.userTemplate = new PromptTemplateSource(
+            "survey-recommendation/user." + prompt.getVersion() + ".txt", overrideDir, prompt.getReloadInterval());
+        this.promptTokens = DistributionSummary.builder("recommendation.prompt.tokens")
+            .description("Estimated input tokens per rendered survey recommendation prompt")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Identifies the templates prompts are currently rendered from: the configured version plus a
+     * fingerprint of each template's text, so editing an override file changes it too.
+     */
+    public String templateVersion() {
+        return version + "-" + systemTemplate.get().fingerprint() + userTemplate.get().fingerprint();
+    }
+
+    public PromptContext build(EncodedAnswers answers,
                                SurveyContext context,
                                Map<String, String> promptParams) {
-        String answerSummary = buildAnswerSummary(answers, questions);
-        String systemInstruction = buildSystemInstruction();
-        String userPrompt = buildUserPrompt(answerSummary, context, promptParams);
-        return new PromptContext(systemInstruction, userPrompt, promptParams);
+        try (ServerTiming.Span ignored = ServerTiming.start("prompt")) {
+            String answerSummary = buildAnswerSummary(answers);
+            String systemInstruction = systemTemplate.get().render(Map.of());
+            String userPrompt = buildUserPrompt(answerSummary, context, promptParams);
+            int estimatedTokens = TokenEstimator.estimate(systemInstruction) + TokenEstimator.estimate(userPrompt);
+            promptTokens.record(estimatedTokens);
+            return new PromptContext(systemInstruction, userPrompt, promptParams, estimatedTokens);
+        }
     }
 
-    private String buildAnswerSummary(Map<String, List<String>> answers, Map<String, SurveyQuestion> questionMap) {
+    private String buildAnswerSummary(EncodedAnswers answers) {
+        SurveyIndex index = answers.index();
         StringBuilder builder = new StringBuilder();
-        answers.forEach((questionId, selectedIds) -> {
-            SurveyQuestion question = questionMap.get(questionId);
-            if (question == null) {
-                return;
+        for (int q = 0; q < index.size(); q++) {
+            if (!answers.isAnswered(q)) {
+                continue;
+            }
+            if (!builder.isEmpty()) {
+                builder.append('\n');
             }
-            String labels = selectedIds.stream()
-                .map(optionId -> findLabel(question, optionId))
-                .filter(Objects::nonNull)
-                .collect(Collectors.joining(", "));
             builder.append("- ")
-                .append(question.title())
+                .append(index.question(q).title())
                 .append(": ")
-                .append(labels)
-                .append("\n");
-        });
-        return builder.toString().trim();
-    }
-
-    private String findLabel(SurveyQuestion question, String optionId) {
-        return question.options().stream()
-            .filter(option -> option.id().equalsIgnoreCase(optionId))
-            .map(SurveyOption::label)
-            .findFirst()
-            .orElse(optionId);
-    }
-
-    private String buildSystemInstruction() {
-        return String.join("\n",
-            "당신은 한국 청소년을 돕는 금융 코치입니다.",
-            "한국 시중은행과 카드사가 실제 제공하는 상품을 중심으로 맞춤 추천을 제공합니다.",
-            "답변은 JSON 한 개만 출력하고, 다른 문장은 포함하지 마세요.",
-            "조건이 불확실한 정보는 '정보 확인 필요'라고 명시하고, 허구의 상품을 만들지 마세요.",
-            "어조는 따뜻하고 믿음직한 한국어를 사용하세요."
-        );
+                .append(String.join(", ", answers.optionLabels(q)));
+        }
+        return builder.toString();
     }
 
     private String buildUserPrompt(String answerSummary,
@@ -93,66 +109,7 @@ public class PromptContextBuilder {
         tokens.put("prompt_parameters", serializePromptParams(promptParams));
         tokens.put("answer_summary", answerSummary.isEmpty() ? "설문 응답 요약 없음" : answerSummary);
 
-        String template = """
-고객 나이는 ${age_sentence}, 월평균 용돈은 ${allowance_sentence}입니다. 주요 지출 카테고리는 ${spending_sentence}, 저축 목표는 ${goal_sentence}, 계획 기간은 ${horizon_sentence}입니다. 위험 선호도는 ${risk_sentence}, 디지털 이용 성향은 ${digital_sentence}, 보호자 협조 여부는 ${guardian_sentence}, 체크카드 이용 상태는 ${card_sentence}입니다.
-
-아래 JSON 구조와 동일하게만 응답하세요 (추가 설명 금지).
-{
-  "summary": "<고객 상황을 2~3문장으로 요약>",
-  "insights": [
-    "<맞춤 조언 1>",
-    "<맞춤 조언 2>",
-    "<맞춤 조언 3>"
-  ],
-  "savings": [
-    {
-      "productId": "SAV_<고유ID>",
-      "type": "SAVINGS",
-      "name": "<상품명>",
-      "headline": "<한 줄 요약>",
-      "benefits": ["<혜택 1>", "<혜택 2>", "<혜택 3>"] ,
-      "caution": "<주의사항>",
-      "nextAction": "<추천 행동>",
-      "minMonthlyAmount": 10000,
-      "maxMonthlyAmount": 300000,
-      "guardianRequired": true,
-      "digitalFriendly": true,
-      "highlightCategories": ["<강조 카테고리>"]
-    }
-  ],
-  "cards": [
-    {
-      "productId": "CARD_<고유ID>",
-      "type": "CARD",
-      "name": "<카드명>",
-      "headline": "<한 줄 요약>",
-      "benefits": ["<혜택 1>", "<혜택 2>"] ,
-      "caution": "<주의사항>",
-      "nextAction": "<추천 행동>",
-      "minMonthlyAmount": 0,
-      "maxMonthlyAmount": 300000,
-      "guardianRequired": true,
-      "digitalFriendly": true,
-      "highlightCategories": ["<강조 카테고리>"]
-    }
-  ]
-}
-
-필수 지침:
-- `type` 값은 반드시 SAVINGS, DEPOSIT, CARD 중 하나를 대문자로 사용하세요.
-- 각 배열은 고객 상황에 맞게 1~3개까지 채울 수 있습니다. 동일한 상품을 중복으로 넣지 마세요.
-- 실제 한국 금융기관 상품을 우선 추천하고, 세부 정보가 불확실하면 '정보 확인 필요'라고 표기하세요.
-- 금액 필드는 숫자만 사용합니다 (예: 200000). 쉼표나 원 단위를 쓰지 마세요.
-- 고객에게 의미 있는 설명과 행동 가이드를 제공하세요.
-
-참고: 설문으로부터 도출된 파라미터는 JSON으로 정리되어 있습니다.
-${prompt_parameters}
-
-설문 응답 요약:
-${answer_summary}
-""";
-
-        return applyTemplate(template, tokens);
+        return userTemplate.get().render(tokens);
     }
 
     private String buildAgeSentence(SurveyContext context) {
@@ -255,12 +212,4 @@ ${answer_summary}
             return "{}";
         }
     }
-
-    private String applyTemplate(String template, Map<String, String> tokens) {
-        String result = template;
-        for (Map.Entry<String, String> entry : tokens.entrySet()) {
-            result = result.replace("${" + entry.getKey() + "}", entry.getValue());
-        }
-        return result;
-    }
-}
\ No newline at end of file
+}
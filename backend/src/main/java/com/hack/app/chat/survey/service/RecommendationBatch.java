@@ -0,0 +1,190 @@
+package com.hack.app.chat.survey.service;
+
+import com.hack.app.chat.survey.dto.BatchRecommendationItem;
+import com.hack.app.chat.survey.dto.BatchRecommendationRequest;
+import com.hack.app.chat.survey.dto.SurveyResponsePayload;
+import com.hack.app.chat.survey.model.CanonicalAnswers;
+import com.hack.app.chat.survey.model.EncodedAnswers;
+import com.hack.app.llm.quota.UsageSubject;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Generates recommendations for a whole class in one call. Identical answer sets are generated once
+ * and the unique ones fan out on a bounded pool, so a batch takes about as long as its slowest item
+ * when it fits in one wave of {@code parallelism}, and one item deadline per extra wave otherwise.
+ */
+@Component
+public class RecommendationBatch {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationBatch.class);
+
+    /** Headroom over the item deadlines for the local fallback and writing the last lines. */
+    private static final Duration STREAM_SLACK = Duration.ofSeconds(15);
+
+    private final RecommendationService recommendationService;
+    private final SurveyService surveyService;
+    private final RecommendationProperties.Batch properties;
+    private final ExecutorService executor;
+
+    public RecommendationBatch(RecommendationService recommendationService,
+                               SurveyService surveyService,
+                               RecommendationProperties properties) {
+        this.recommendationService = recommendationService;
+        this.surveyService = surveyService;
+        this.properties = properties.getBatch();
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, this.properties.getParallelism()), runnable -> {
+            Thread thread = new Thread(runnable, "recommendation-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Streams one NDJSON line per input item as soon as its recommendation is ready. Every unique
+     * item that needs a new generation is charged to {@code subject}; once the quota runs out the
+     * remaining items fail with 429.
+     */
+    public ResponseBodyEmitter stream(BatchRecommendationRequest request, @Nullable UsageSubject subject) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(streamTimeout(request.items().size()).toMillis());
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ReentrantLock writeLock = new ReentrantLock();
+        emitter.onTimeout(() -> cancelled.set(true));
+        emitter.onError(error -> cancelled.set(true));
+
+        run(request, subject, cancelled, item -> send(emitter, writeLock, cancelled, item))
+            .whenComplete((ignored, error) -> {
+                if (!cancelled.get()) {
+                    emitter.complete();
+                }
+            });
+        return emitter;
+    }
+
+    /**
+     * Every item finishes within its deadline, so {@code items} unique answer sets need at most
+     * {@code ceil(items / parallelism)} deadlines back to back.
+     */
+    Duration streamTimeout(int items) {
+        int parallelism = Math.max(1, properties.getParallelism());
+        int waves = Math.max(1, (Math.min(items, properties.getMaxItems()) + parallelism - 1) / parallelism);
+        return properties.getItemDeadline().multipliedBy(waves).plus(STREAM_SLACK);
+    }
+
+    CompletableFuture<Void> run(BatchRecommendationRequest request,
+                                @Nullable UsageSubject subject,
+                                AtomicBoolean cancelled,
+                                Consumer<BatchRecommendationItem> sink) {
+        List<SurveyResponsePayload> items = request.items();
+        if (items.size() > properties.getMaxItems()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "A batch may contain at most " + properties.getMaxItems() + " survey responses.");
+        }
+
+        Map<CanonicalAnswers, List<Integer>> groups = new LinkedHashMap<>();
+        for (int index = 0; index < items.size(); index++) {
+            SurveyResponsePayload payload = items.get(index);
+            try {
+                EncodedAnswers answers = surveyService.encode(payload.answers());
+                groups.computeIfAbsent(CanonicalAnswers.of(answers, payload.promptParams()), key -> new ArrayList<>())
+                    .add(index);
+            } catch (ResponseStatusException ex) {
+                sink.accept(BatchRecommendationItem.failure(index, null, ex.getStatusCode().value(), ex.getReason()));
+            }
+        }
+
+        Instant started = Instant.now();
+        log.info("Survey recommendation batch items={} unique={} parallelism={}",
+            items.size(), groups.size(), properties.getParallelism());
+
+        List<CompletableFuture<Void>> pending = new ArrayList<>(groups.size());
+        groups.forEach((key, indices) -> {
+            SurveyResponsePayload payload = items.get(indices.get(0));
+            pending.add(CompletableFuture
+                .supplyAsync(() -> {
+                    if (cancelled.get()) {
+                        throw new CancellationException("Client disconnected");
+                    }
+                    return recommendationService.recommend(payload, properties.getItemDeadline(), subject);
+                }, executor)
+                .handle((result, error) -> {
+                    indices.forEach(index -> sink.accept(error == null
+                        ? BatchRecommendationItem.success(index, result.key(),
+                            result.source().name().toLowerCase(Locale.ROOT), result.response())
+                        : failure(index, key, error)));
+                    return null;
+                }));
+        });
+
+        return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+            .whenComplete((ignored, error) -> log.info("Survey recommendation batch finished unique={} latency={}ms",
+                groups.size(), Duration.between(started, Instant.now()).toMillis()));
+    }
+
+    private BatchRecommendationItem failure(int index, CanonicalAnswers key, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof ResponseStatusException ex) {
+            return BatchRecommendationItem.failure(index, key.key(), ex.getStatusCode().value(), ex.getReason());
+        }
+        if (!(cause instanceof CancellationException)) {
+            log.warn("Survey recommendation batch item failed key={}", key.key(), cause);
+        }
+        return BatchRecommendationItem.failure(index, key.key(), HttpStatus.INTERNAL_SERVER_ERROR.value(),
+            "Failed to generate a recommendation.");
+    }
+
+    /**
+     * Writes one NDJSON line. The lock keeps item and newline together; it is a {@link ReentrantLock}
+     * rather than a monitor so a virtual thread blocked on a slow client does not pin its carrier.
+     */
+    private void send(ResponseBodyEmitter emitter,
+                      ReentrantLock writeLock,
+                      AtomicBoolean cancelled,
+                      BatchRecommendationItem item) {
+        if (cancelled.get()) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            emitter.send(item, MediaType.APPLICATION_JSON);
+            emitter.send("\n", MediaType.TEXT_PLAIN);
+        } catch (IOException | IllegalStateException ex) {
+            cancelled.set(true);
+            log.debug("Client disconnected from the recommendation batch stream");
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,150 @@
+package com.hack.app.chat.survey.service;
+
+import com.hack.app.chat.survey.dto.RecommendationResponse;
+import com.hack.app.chat.survey.model.CanonicalAnswers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+public class RecommendationCache {
+
+    private final RecommendationProperties.Cache properties;
+    private final SurveyService surveyService;
+    private final PromptContextBuilder promptContextBuilder;
+    private final Clock clock;
+    private final Map<String, Entry> entries;
+
+    @Autowired
+    public RecommendationCache(RecommendationProperties properties,
+                               SurveyService surveyService,
+                               PromptContextBuilder promptContextBuilder) {
+        this(properties, surveyService, promptContextBuilder, Clock.systemUTC());
+    }
+
+    RecommendationCache(RecommendationProperties properties,
+                        SurveyService surveyService,
+                        PromptContextBuilder promptContextBuilder,
+                        Clock clock) {
+        this.properties = properties.getCache();
+        this.surveyService = surveyService;
+        this.promptContextBuilder = promptContextBuilder;
+        this.clock = clock;
+        int maxSize = this.properties.getMaxSize();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public Optional<RecommendationResponse> get(CanonicalAnswers answers) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+        String key = cacheKey(answers);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            if (isExpired(entry)) {
+                entries.remove(key);
+                return Optional.empty();
+            }
+            return Optional.of(entry.response());
+        }
+    }
+
+    public void put(CanonicalAnswers answers, RecommendationResponse response) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(cacheKey(answers), new Entry(response, clock.instant()));
+        }
+    }
+
+    public boolean contains(CanonicalAnswers answers) {
+        return get(answers).isPresent();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public Optional<Instant> oldestEntryCreatedAt() {
+        synchronized (entries) {
+            return entries.values().stream()
+                .map(Entry::createdAt)
+                .min(Instant::compareTo);
+        }
+    }
+
+    public int countOlderThan(Duration age) {
+        Instant threshold = clock.instant().minus(age);
+        synchronized (entries) {
+            return (int) entries.values().stream()
+                .filter(entry -> entry.createdAt().isBefore(threshold))
+                .count();
+        }
+    }
+
+    public List<Snapshot> snapshot() {
+        synchronized (entries) {
+            return entries.entrySet().stream()
+                .filter(entry -> !isExpired(entry.getValue()))
+                .map(entry -> new Snapshot(entry.getKey(), entry.getValue().response(), entry.getValue().createdAt()))
+                .toList();
+        }
+    }
+
+    public int restore(List<Snapshot> snapshots) {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        String versionPrefix = versionPrefix();
+        int restored = 0;
+        synchronized (entries) {
+            for (Snapshot snapshot : snapshots) {
+                Entry entry = new Entry(snapshot.response(), snapshot.createdAt());
+                if (snapshot.key().startsWith(versionPrefix) && !isExpired(entry)) {
+                    entries.putIfAbsent(snapshot.key(), entry);
+                    restored++;
+                }
+            }
+        }
+        return restored;
+    }
+
+    private boolean isExpired(Entry entry) {
+        return entry.createdAt().plus(properties.getTtl()).isBefore(clock.instant());
+    }
+
+    private String cacheKey(CanonicalAnswers answers) {
+        return versionPrefix() + answers.key();
+    }
+
+    /**
+     * Entries are only valid for the survey and prompt templates that produced them.
+     */
+    private String versionPrefix() {
+        return surveyService.getVersion() + ":" + promptContextBuilder.templateVersion() + ":";
+    }
+
+    public record Snapshot(String key, RecommendationResponse response, Instant createdAt) {
+    }
+
+    private record Entry(RecommendationResponse response, Instant createdAt) {
+    }
+}
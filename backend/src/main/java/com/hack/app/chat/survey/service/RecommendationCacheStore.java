@@ -0,0 +1,94 @@
+package com.hack.app.chat.survey.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class RecommendationCacheStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationCacheStore.class);
+
+    private final RecommendationCache recommendationCache;
+    private final RecommendationProperties.Cache properties;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock saveLock = new ReentrantLock();
+
+    public RecommendationCacheStore(RecommendationCache recommendationCache,
+                                    RecommendationProperties properties,
+                                    ObjectMapper objectMapper) {
+        this.recommendationCache = recommendationCache;
+        this.properties = properties.getCache();
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void load() {
+        Path path = persistPath();
+        if (path == null || !Files.isRegularFile(path)) {
+            return;
+        }
+        try {
+            List<RecommendationCache.Snapshot> snapshots = objectMapper.readValue(path.toFile(),
+                new TypeReference<List<RecommendationCache.Snapshot>>() {});
+            int restored = recommendationCache.restore(snapshots);
+            log.info("Restored {} of {} persisted survey recommendations from {}", restored, snapshots.size(), path);
+        } catch (IOException ex) {
+            log.warn("Failed to load persisted survey recommendations from {}", path, ex);
+        }
+    }
+
+    @PreDestroy
+    public void save() {
+        Path path = persistPath();
+        if (path == null) {
+            return;
+        }
+        saveLock.lock();
+        try {
+            write(path);
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    private void write(Path path) {
+        List<RecommendationCache.Snapshot> snapshots = recommendationCache.snapshot();
+        if (snapshots.isEmpty() && !Files.exists(path)) {
+            return;
+        }
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            objectMapper.writeValue(temp.toFile(), snapshots);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log.warn("Failed to persist survey recommendations to {}", path, ex);
+        }
+    }
+
+    private Path persistPath() {
+        if (!properties.isEnabled() || properties.getPersistPath() == null || properties.getPersistPath().isBlank()) {
+            return null;
+        }
+        return Path.of(properties.getPersistPath());
+    }
+}
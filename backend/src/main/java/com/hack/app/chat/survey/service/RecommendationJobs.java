@@ -0,0 +1,213 @@
+package com.hack.app.chat.survey.service;
+
+import com.hack.app.chat.survey.dto.RecommendationJobStatus;
+import com.hack.app.chat.survey.dto.SurveyResponsePayload;
+import com.hack.app.llm.quota.UsageSubject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs survey recommendations off the servlet threads on a fixed-size pool with a bounded queue.
+ * Submissions beyond the queue capacity are rejected with 429 instead of piling up.
+ */
+@Component
+public class RecommendationJobs {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationJobs.class);
+
+    private final RecommendationService recommendationService;
+    private final SurveyService surveyService;
+    private final RecommendationProperties.Jobs properties;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Timer waitTimer;
+    private final Timer runTimer;
+    private final Counter rejected;
+
+    public RecommendationJobs(RecommendationService recommendationService,
+                              SurveyService surveyService,
+                              RecommendationProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.recommendationService = recommendationService;
+        this.surveyService = surveyService;
+        this.properties = properties.getJobs();
+
+        AtomicInteger counter = new AtomicInteger();
+        int workers = Math.max(1, this.properties.getWorkers());
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, this.properties.getQueueCapacity())),
+            runnable -> {
+                Thread thread = new Thread(runnable, "recommendation-job-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("recommendation.jobs.queue.depth", executor, pool -> pool.getQueue().size())
+            .description("Recommendation jobs waiting for a worker")
+            .register(meterRegistry);
+        Gauge.builder("recommendation.jobs.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Recommendation jobs currently running")
+            .register(meterRegistry);
+        this.waitTimer = Timer.builder("recommendation.jobs.wait")
+            .description("Time a recommendation job spent queued before a worker picked it up")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        this.runTimer = Timer.builder("recommendation.jobs.run")
+            .description("Time a worker spent producing a recommendation")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        this.rejected = Counter.builder("recommendation.jobs.rejected")
+            .description("Recommendation jobs rejected because the queue was full")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Queues a recommendation; {@code subject}'s quota is charged when the job starts a generation.
+     */
+    public RecommendationJobStatus submit(SurveyResponsePayload payload, @Nullable UsageSubject subject) {
+        surveyService.encode(payload.answers());
+
+        Job job = new Job(UUID.randomUUID().toString(), payload, subject, Instant.now());
+        jobs.put(job.id, job);
+        try {
+            executor.execute(new JobTask(job));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(job.id);
+            rejected.increment();
+            log.warn("Recommendation job queue is full (capacity={})", properties.getQueueCapacity());
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Recommendation queue is full. Please retry shortly.");
+        }
+        return status(job);
+    }
+
+    public Optional<RecommendationJobStatus> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(this::status);
+    }
+
+    /**
+     * Completes when the job finishes; the caller decides how long to wait for it.
+     */
+    public Optional<CompletableFuture<RecommendationJobStatus>> completion(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId))
+            .map(job -> job.completion.thenApply(ignored -> status(job)));
+    }
+
+    public Duration maxLongPoll() {
+        return properties.getMaxLongPoll();
+    }
+
+    @Scheduled(fixedDelayString = "${recommendation.jobs.cleanup-interval:PT1M}")
+    void evictFinished() {
+        Instant threshold = Instant.now().minus(properties.getRetention());
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(threshold));
+    }
+
+    private RecommendationJobStatus status(Job job) {
+        RecommendationJobStatus.State state = job.state;
+        RecommendationResult result = job.result;
+        return new RecommendationJobStatus(
+            job.id,
+            state,
+            job.submittedAt,
+            job.startedAt,
+            job.finishedAt,
+            state == RecommendationJobStatus.State.QUEUED ? queuePosition(job) : null,
+            result == null ? null : result.source().name().toLowerCase(Locale.ROOT),
+            result == null ? null : result.response(),
+            job.error
+        );
+    }
+
+    private Integer queuePosition(Job job) {
+        int position = 1;
+        for (Runnable queued : executor.getQueue()) {
+            if (queued instanceof JobTask task && task.job == job) {
+                return position;
+            }
+            position++;
+        }
+        return null;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private final class JobTask implements Runnable {
+
+        private final Job job;
+
+        private JobTask(Job job) {
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            job.startedAt = Instant.now();
+            job.state = RecommendationJobStatus.State.RUNNING;
+            waitTimer.record(Duration.between(job.submittedAt, job.startedAt));
+            try {
+                job.result = runTimer.recordCallable(
+                    () -> recommendationService.recommend(job.payload, properties.getGenerationBudget(), job.subject));
+                job.state = RecommendationJobStatus.State.SUCCEEDED;
+            } catch (ResponseStatusException ex) {
+                job.error = ex.getReason();
+                job.state = RecommendationJobStatus.State.FAILED;
+            } catch (Exception ex) {
+                log.warn("Recommendation job {} failed", job.id, ex);
+                job.error = "Failed to generate a recommendation.";
+                job.state = RecommendationJobStatus.State.FAILED;
+            } finally {
+                job.finishedAt = Instant.now();
+                job.completion.complete(null);
+            }
+        }
+    }
+
+    private static final class Job {
+
+        private final String id;
+        private final SurveyResponsePayload payload;
+        private final UsageSubject subject;
+        private final Instant submittedAt;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private volatile RecommendationJobStatus.State state = RecommendationJobStatus.State.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile RecommendationResult result;
+        private volatile String error;
+
+        private Job(String id, SurveyResponsePayload payload, @Nullable UsageSubject subject, Instant submittedAt) {
+            this.id = id;
+            this.payload = payload;
+            this.subject = subject;
+            this.submittedAt = submittedAt;
+        }
+    }
+}
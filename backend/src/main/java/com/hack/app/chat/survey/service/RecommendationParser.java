@@ -6,6 +6,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hack.app.chat.survey.dto.ProductRecommendation;
 import com.hack.app.chat.survey.dto.RecommendationResponse;
 import com.hack.app.chat.survey.model.ProductType;
+import com.hack.app.config.ServerTiming;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -27,19 +30,26 @@ public class RecommendationParser {
     private static final String DEFAULT_HEADLINE = "DETAILS_UNAVAILABLE";
     private static final String DEFAULT_BENEFIT = "DETAILS_UNAVAILABLE";
     private static final String DEFAULT_CAUTION = "INFO_VALIDATION_REQUIRED";
+    static final int MAX_INSIGHTS = 4;
 
     private final ObjectMapper objectMapper;
+    private final Counter missingSummary;
+    private final Counter noProducts;
+    private final Counter malformedJson;
 
-    public RecommendationParser(ObjectMapper objectMapper) {
+    public RecommendationParser(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
         this.objectMapper = objectMapper;
+        this.missingSummary = parseFailures(meterRegistry, "missing_summary");
+        this.noProducts = parseFailures(meterRegistry, "no_products");
+        this.malformedJson = parseFailures(meterRegistry, "malformed_json");
     }
 
     public RecommendationResponse parse(String json) {
-        String sanitized = sanitize(json);
-        try {
-            JsonNode root = objectMapper.readTree(sanitized);
+        try (ServerTiming.Span ignored = ServerTiming.start("parse")) {
+            JsonNode root = readPayload(json);
             String summary = textValue(root, "summary");
             if (summary == null || summary.isBlank()) {
+                missingSummary.increment();
                 throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Summary field is missing.");
             }
 
@@ -48,6 +58,7 @@ public class RecommendationParser {
             List<ProductRecommendation> cards = parseProducts(root.path("cards"), ProductType.CARD);
 
             if (savings.isEmpty() && cards.isEmpty()) {
+                noProducts.increment();
                 throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Gemini returned no actionable recommendations.");
             }
 
@@ -55,15 +66,45 @@ public class RecommendationParser {
         } catch (ResponseStatusException ex) {
             throw ex;
         } catch (JsonProcessingException ex) {
+            malformedJson.increment();
             log.warn("Failed to parse Gemini response: {}", ex.getMessage());
             throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Unable to parse Gemini response payload.");
         }
     }
 
-    private String sanitize(String raw) {
+    private static Counter parseFailures(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("llm.parse.failures")
+            .description("LLM replies that could not be turned into a usable result")
+            .tag("parser", "recommendation")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
+    RecommendationStreamParser streamParser(RecommendationStreamParser.Listener listener) {
+        return new RecommendationStreamParser(objectMapper, this, listener);
+    }
+
+    private JsonNode readPayload(String raw) throws JsonProcessingException {
         if (raw == null) {
-            return "";
+            return objectMapper.readTree("");
+        }
+        if (startsWithFence(raw)) {
+            return objectMapper.readTree(stripFence(raw));
         }
+        return objectMapper.readTree(raw);
+    }
+
+    private boolean startsWithFence(String raw) {
+        for (int i = 0; i < raw.length(); i++) {
+            char ch = raw.charAt(i);
+            if (!Character.isWhitespace(ch)) {
+                return ch == '`';
+            }
+        }
+        return false;
+    }
+
+    private String stripFence(String raw) {
         String trimmed = raw.trim();
         if (trimmed.startsWith("```")) {
             int firstLineBreak = trimmed.indexOf('\n');
@@ -90,7 +131,7 @@ public class RecommendationParser {
                         results.add(text);
                     }
                 }
-                if (results.size() == 4) {
+                if (results.size() == MAX_INSIGHTS) {
                     break;
                 }
             }
@@ -116,7 +157,7 @@ public class RecommendationParser {
         return results;
     }
 
-    private ProductRecommendation toRecommendation(JsonNode node, ProductType defaultType, int index) {
+    ProductRecommendation toRecommendation(JsonNode node, ProductType defaultType, int index) {
         String rawId = textValue(node, "productId");
         String name = textValue(node, "name", DEFAULT_NAME);
         String productId = ensureProductId(rawId, name, index);
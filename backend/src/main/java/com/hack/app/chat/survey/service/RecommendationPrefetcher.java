@@ -0,0 +1,150 @@
+package com.hack.app.chat.survey.service;
+
+import com.hack.app.chat.survey.dto.PrefetchStatus;
+import com.hack.app.chat.survey.dto.RecommendationResponse;
+import com.hack.app.chat.survey.dto.SurveyAnswer;
+import com.hack.app.chat.survey.dto.SurveyQuestion;
+import com.hack.app.chat.survey.dto.SurveyResponsePayload;
+import com.hack.app.chat.survey.model.CanonicalAnswers;
+import com.hack.app.chat.survey.model.EncodedAnswers;
+import com.hack.app.chat.survey.model.PromptParams;
+import com.hack.app.chat.survey.model.SurveyIndex;
+import com.hack.app.llm.LlmGateway;
+import com.hack.app.llm.Priority;
+import com.hack.app.llm.quota.UsageSubject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts a speculative generation while the student is still answering. Unanswered questions are
+ * filled with the most commonly observed options and the prompt params are derived from the completed
+ * answers, ignoring any the page sent; when the final submission matches the prediction,
+ * {@link RecommendationService#recommend} joins the in-flight generation or finds it in the cache.
+ */
+@Component
+public class RecommendationPrefetcher {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationPrefetcher.class);
+
+    private final SurveyService surveyService;
+    private final RecommendationService recommendationService;
+    private final RecommendationCache recommendationCache;
+    private final ObservedProfiles observedProfiles;
+    private final LlmGateway llmGateway;
+    private final RecommendationProperties.Prefetch properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<PrefetchStatus.State, Counter> outcomes = new EnumMap<>(PrefetchStatus.State.class);
+
+    public RecommendationPrefetcher(SurveyService surveyService,
+                                    RecommendationService recommendationService,
+                                    RecommendationCache recommendationCache,
+                                    ObservedProfiles observedProfiles,
+                                    LlmGateway llmGateway,
+                                    RecommendationProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.surveyService = surveyService;
+        this.recommendationService = recommendationService;
+        this.recommendationCache = recommendationCache;
+        this.observedProfiles = observedProfiles;
+        this.llmGateway = llmGateway;
+        this.properties = properties.getPrefetch();
+        for (PrefetchStatus.State state : PrefetchStatus.State.values()) {
+            outcomes.put(state, Counter.builder("recommendation.prefetch")
+                .description("Speculative recommendation requests by outcome")
+                .tag("outcome", state.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * A speculative generation is charged to {@code subject} like any other; cache hits and joins
+     * are free.
+     */
+    public PrefetchStatus prefetch(SurveyResponsePayload payload, @Nullable UsageSubject subject) {
+        EncodedAnswers partial = surveyService.encode(payload.answers());
+        SurveyIndex index = partial.index();
+
+        List<String> missing = properties.getRequiredQuestions().stream()
+            .filter(questionId -> {
+                int ordinal = index.questionOrdinal(questionId);
+                return ordinal >= 0 && !partial.isAnswered(ordinal);
+            })
+            .toList();
+        if (!missing.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Prefetch requires answers to " + String.join(", ", missing));
+        }
+
+        Map<String, List<String>> completed = new LinkedHashMap<>();
+        for (SurveyAnswer answer : payload.answers()) {
+            completed.put(answer.questionId(), answer.selectedOptionIds());
+        }
+        Map<String, List<String>> predicted = new LinkedHashMap<>();
+        for (int q = 0; q < index.size(); q++) {
+            SurveyQuestion question = index.question(q);
+            if (!partial.isAnswered(q) && !question.options().isEmpty()) {
+                List<String> guess = List.of(observedProfiles.predictedOption(question));
+                predicted.put(question.id(), guess);
+                completed.put(question.id(), guess);
+            }
+        }
+
+        // Key on the params the final submission will carry rather than ones built from a partial
+        // survey; answered questions keep the submitted selection order the page joins them in.
+        Map<String, String> promptParams = PromptParams.fromAnswers(completed);
+        EncodedAnswers speculative = surveyService.encode(completed);
+        CanonicalAnswers key = CanonicalAnswers.of(speculative, promptParams);
+        return record(start(subject, key, speculative, promptParams), key, predicted);
+    }
+
+    private PrefetchStatus.State start(@Nullable UsageSubject subject,
+                                       CanonicalAnswers key,
+                                       EncodedAnswers answers,
+                                       Map<String, String> promptParams) {
+        if (recommendationCache.contains(key)) {
+            return PrefetchStatus.State.CACHED;
+        }
+        if (recommendationService.isGenerating(key)) {
+            return PrefetchStatus.State.IN_FLIGHT;
+        }
+        if (!properties.isEnabled() || !llmGateway.isAvailable()) {
+            return PrefetchStatus.State.SKIPPED;
+        }
+        if (inFlight.incrementAndGet() > properties.getMaxInFlight()) {
+            inFlight.decrementAndGet();
+            log.debug("Skipping speculative recommendation; {} already in flight", properties.getMaxInFlight());
+            return PrefetchStatus.State.SKIPPED;
+        }
+
+        log.debug("Starting speculative recommendation key={}", key.key());
+        CompletableFuture<RecommendationResponse> generation;
+        try {
+            generation = recommendationService.generateInBackground(subject, key, answers, promptParams, Priority.SURVEY);
+        } catch (RuntimeException ex) {
+            inFlight.decrementAndGet();
+            throw ex;
+        }
+        generation.whenComplete((response, error) -> inFlight.decrementAndGet());
+        // Already failed means the workers were saturated and nothing was started.
+        return generation.isCompletedExceptionally() ? PrefetchStatus.State.SKIPPED : PrefetchStatus.State.STARTED;
+    }
+
+    private PrefetchStatus record(PrefetchStatus.State state, CanonicalAnswers key, Map<String, List<String>> predicted) {
+        outcomes.get(state).increment();
+        return new PrefetchStatus(state, key.key(), predicted);
+    }
+}
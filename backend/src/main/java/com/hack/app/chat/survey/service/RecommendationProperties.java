@@ -0,0 +1,371 @@
+package com.hack.app.chat.survey.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "recommendation")
+public class RecommendationProperties {
+
+    private Duration streamTimeout = Duration.ofMinutes(4);
+    private final Cache cache = new Cache();
+    private final Warmup warmup = new Warmup();
+    private final Prompt prompt = new Prompt();
+    private final Fallback fallback = new Fallback();
+    private final Jobs jobs = new Jobs();
+    private final Batch batch = new Batch();
+    private final Prefetch prefetch = new Prefetch();
+    private final Workers workers = new Workers();
+
+    public Duration getStreamTimeout() {
+        return streamTimeout;
+    }
+
+    public void setStreamTimeout(Duration streamTimeout) {
+        this.streamTimeout = streamTimeout;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Warmup getWarmup() {
+        return warmup;
+    }
+
+    public Prompt getPrompt() {
+        return prompt;
+    }
+
+    public Fallback getFallback() {
+        return fallback;
+    }
+
+    public Jobs getJobs() {
+        return jobs;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Prefetch getPrefetch() {
+        return prefetch;
+    }
+
+    public Workers getWorkers() {
+        return workers;
+    }
+
+    public static class Cache {
+
+        private boolean enabled = true;
+        private int maxSize = 500;
+        private Duration ttl = Duration.ofHours(12);
+        private String persistPath = "data/recommendation-cache.json";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public String getPersistPath() {
+            return persistPath;
+        }
+
+        public void setPersistPath(String persistPath) {
+            this.persistPath = persistPath;
+        }
+    }
+
+    public static class Warmup {
+
+        private boolean enabled = false;
+        private boolean onStartup = true;
+        private int parallelism = 2;
+        private int ratePerMinute = 20;
+        private int maxProfiles = 100;
+        private int observedProfiles = 30;
+        private List<String> dimensions = List.of("age-band", "monthly-funds", "risk-attitude");
+        private String adminToken = "";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isOnStartup() {
+            return onStartup;
+        }
+
+        public void setOnStartup(boolean onStartup) {
+            this.onStartup = onStartup;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getRatePerMinute() {
+            return ratePerMinute;
+        }
+
+        public void setRatePerMinute(int ratePerMinute) {
+            this.ratePerMinute = ratePerMinute;
+        }
+
+        public int getMaxProfiles() {
+            return maxProfiles;
+        }
+
+        public void setMaxProfiles(int maxProfiles) {
+            this.maxProfiles = maxProfiles;
+        }
+
+        public int getObservedProfiles() {
+            return observedProfiles;
+        }
+
+        public void setObservedProfiles(int observedProfiles) {
+            this.observedProfiles = observedProfiles;
+        }
+
+        public List<String> getDimensions() {
+            return dimensions;
+        }
+
+        public void setDimensions(List<String> dimensions) {
+            this.dimensions = dimensions;
+        }
+
+        /**
+         * Token required to start a warmup over HTTP; when blank only the schedule can start one.
+         */
+        public String getAdminToken() {
+            return adminToken;
+        }
+
+        public void setAdminToken(String adminToken) {
+            this.adminToken = adminToken;
+        }
+    }
+
+    public static class Prompt {
+
+        private String version = "v2";
+        private String overrideDir = "";
+        private Duration reloadInterval = Duration.ofSeconds(2);
+
+        public String getVersion() {
+            return version;
+        }
+
+        public void setVersion(String version) {
+            this.version = version;
+        }
+
+        public String getOverrideDir() {
+            return overrideDir;
+        }
+
+        public void setOverrideDir(String overrideDir) {
+            this.overrideDir = overrideDir;
+        }
+
+        public Duration getReloadInterval() {
+            return reloadInterval;
+        }
+
+        public void setReloadInterval(Duration reloadInterval) {
+            this.reloadInterval = reloadInterval;
+        }
+    }
+
+    public static class Fallback {
+
+        private boolean enabled = true;
+        private Duration latencyBudget = Duration.ofSeconds(8);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getLatencyBudget() {
+            return latencyBudget;
+        }
+
+        public void setLatencyBudget(Duration latencyBudget) {
+            this.latencyBudget = latencyBudget;
+        }
+    }
+
+    /**
+     * Threads that run generations and streams for {@link RecommendationService}. When all are busy
+     * and the queue is full, new LLM work is refused and callers fall back to the local result.
+     */
+    public static class Workers {
+
+        private int threads = 16;
+        private int queueCapacity = 32;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class Jobs {
+
+        private int workers = 4;
+        private int queueCapacity = 50;
+        private Duration generationBudget = Duration.ofMinutes(3);
+        private Duration retention = Duration.ofMinutes(10);
+        private Duration maxLongPoll = Duration.ofSeconds(30);
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getGenerationBudget() {
+            return generationBudget;
+        }
+
+        public void setGenerationBudget(Duration generationBudget) {
+            this.generationBudget = generationBudget;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public Duration getMaxLongPoll() {
+            return maxLongPoll;
+        }
+
+        public void setMaxLongPoll(Duration maxLongPoll) {
+            this.maxLongPoll = maxLongPoll;
+        }
+    }
+
+    public static class Batch {
+
+        private int maxItems = 40;
+        private int parallelism = 10;
+        private Duration itemDeadline = Duration.ofSeconds(45);
+
+        public int getMaxItems() {
+            return maxItems;
+        }
+
+        public void setMaxItems(int maxItems) {
+            this.maxItems = maxItems;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public Duration getItemDeadline() {
+            return itemDeadline;
+        }
+
+        public void setItemDeadline(Duration itemDeadline) {
+            this.itemDeadline = itemDeadline;
+        }
+    }
+
+    public static class Prefetch {
+
+        private boolean enabled = true;
+        private List<String> requiredQuestions = List.of("age-band", "monthly-funds", "risk-attitude");
+        private int maxInFlight = 20;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getRequiredQuestions() {
+            return requiredQuestions;
+        }
+
+        public void setRequiredQuestions(List<String> requiredQuestions) {
+            this.requiredQuestions = requiredQuestions;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+    }
+}
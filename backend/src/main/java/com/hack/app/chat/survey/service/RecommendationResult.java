@@ -0,0 +1,12 @@
+package com.hack.app.chat.survey.service;
+
+import com.hack.app.chat.survey.dto.RecommendationResponse;
+
+public record RecommendationResult(RecommendationResponse response, Source source, String key) {
+
+    public enum Source {
+        CACHE,
+        LLM,
+        LOCAL
+    }
+}
@@ -0,0 +1,72 @@
+package com.hack.app.chat.survey.service;
+
+import com.hack.app.chat.survey.model.ProductType;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provider-neutral JSON Schema for the recommendation response; the gateway providers translate it
+ * to their structured-output formats.
+ */
+final class RecommendationSchema {
+
+    private static final Map<String, Object> RESPONSE_SCHEMA = buildResponseSchema();
+
+    private RecommendationSchema() {
+    }
+
+    static Map<String, Object> responseSchema() {
+        return RESPONSE_SCHEMA;
+    }
+
+    private static Map<String, Object> buildResponseSchema() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("summary", type("string"));
+        properties.put("insights", arrayOf(type("string")));
+        properties.put("savings", arrayOf(productSchema()));
+        properties.put("cards", arrayOf(productSchema()));
+        return objectSchema(properties, List.of("summary", "insights", "savings", "cards"));
+    }
+
+    private static Map<String, Object> productSchema() {
+        Map<String, Object> productType = type("string");
+        productType.put("enum", Arrays.stream(ProductType.values()).map(Enum::name).toList());
+
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("productId", type("string"));
+        properties.put("type", productType);
+        properties.put("name", type("string"));
+        properties.put("headline", type("string"));
+        properties.put("benefits", arrayOf(type("string")));
+        properties.put("caution", type("string"));
+        properties.put("nextAction", type("string"));
+        properties.put("minMonthlyAmount", type("integer"));
+        properties.put("maxMonthlyAmount", type("integer"));
+        properties.put("guardianRequired", type("boolean"));
+        properties.put("digitalFriendly", type("boolean"));
+        properties.put("highlightCategories", arrayOf(type("string")));
+        return objectSchema(properties, List.of("productId", "type", "name", "headline", "benefits", "caution"));
+    }
+
+    private static Map<String, Object> objectSchema(Map<String, Object> properties, List<String> required) {
+        Map<String, Object> schema = type("object");
+        schema.put("properties", properties);
+        schema.put("required", required);
+        return schema;
+    }
+
+    private static Map<String, Object> arrayOf(Map<String, Object> items) {
+        Map<String, Object> schema = type("array");
+        schema.put("items", items);
+        return schema;
+    }
+
+    private static Map<String, Object> type(String type) {
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", type);
+        return schema;
+    }
+}
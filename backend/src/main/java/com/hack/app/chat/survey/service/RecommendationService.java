@@ -1,26 +1,47 @@
 package com.hack.app.chat.survey.service;
 
+import com.hack.app.chat.survey.dto.ProductRecommendation;
 import com.hack.app.chat.survey.dto.RecommendationResponse;
-import com.hack.app.chat.survey.dto.SurveyAnswer;
-import com.hack.app.chat.survey.dto.SurveyQuestion;
 import com.hack.app.chat.survey.dto.SurveyResponsePayload;
+import com.hack.app.chat.survey.model.CanonicalAnswers;
+import com.hack.app.chat.survey.model.EncodedAnswers;
 import com.hack.app.chat.survey.model.PromptContext;
 import com.hack.app.chat.survey.model.SurveyContext;
-import com.hack.app.gemini.GeminiClient;
+import com.hack.app.config.ServerTiming;
+import com.hack.app.llm.Deadline;
+import com.hack.app.llm.LlmGateway;
+import com.hack.app.llm.LlmRequest;
+import com.hack.app.llm.LlmResult;
+import com.hack.app.llm.Priority;
+import com.hack.app.llm.quota.UsageQuotas;
+import com.hack.app.llm.quota.UsageSubject;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class RecommendationService {
@@ -30,72 +51,426 @@ public class RecommendationService {
     private final SurveyService surveyService;
     private final PromptContextBuilder promptContextBuilder;
     private final RecommendationParser recommendationParser;
-    private final GeminiClient geminiClient;
+    private final LlmGateway llmGateway;
+    private final RecommendationCache recommendationCache;
+    private final ObservedProfiles observedProfiles;
+    private final RecommendationProperties properties;
+    private final LocalRecommender localRecommender;
+    private final UsageQuotas usageQuotas;
+    private final Map<CanonicalAnswers, CompletableFuture<RecommendationResponse>> generations = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor workerExecutor;
 
     public RecommendationService(SurveyService surveyService,
                                  PromptContextBuilder promptContextBuilder,
                                  RecommendationParser recommendationParser,
-                                 GeminiClient geminiClient) {
+                                 LlmGateway llmGateway,
+                                 RecommendationCache recommendationCache,
+                                 ObservedProfiles observedProfiles,
+                                 RecommendationProperties properties,
+                                 LocalRecommender localRecommender,
+                                 UsageQuotas usageQuotas) {
         this.surveyService = surveyService;
         this.promptContextBuilder = promptContextBuilder;
         this.recommendationParser = recommendationParser;
-        this.geminiClient = geminiClient;
+        this.llmGateway = llmGateway;
+        this.recommendationCache = recommendationCache;
+        this.observedProfiles = observedProfiles;
+        this.properties = properties;
+        this.localRecommender = localRecommender;
+        this.usageQuotas = usageQuotas;
+
+        AtomicInteger counter = new AtomicInteger();
+        RecommendationProperties.Workers workers = properties.getWorkers();
+        int threads = Math.max(1, workers.getThreads());
+        this.workerExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, workers.getQueueCapacity())),
+            runnable -> {
+                Thread thread = new Thread(runnable, "recommendation-worker-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.workerExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    public RecommendationResult recommend(SurveyResponsePayload payload) {
+        return recommend(payload, properties.getFallback().getLatencyBudget());
+    }
+
+    /**
+     * Like {@link #recommend(SurveyResponsePayload)}, but never waits past the caller's deadline. The
+     * shared generation keeps running after the deadline so its result still reaches the cache.
+     */
+    public RecommendationResult recommend(SurveyResponsePayload payload, Deadline deadline) {
+        return recommend(payload, null, deadline);
+    }
+
+    /**
+     * Charges {@code subject}'s quota when the recommendation needs a new LLM generation; cache
+     * hits and joins of a generation already in flight are free.
+     */
+    public RecommendationResult recommend(SurveyResponsePayload payload, @Nullable UsageSubject subject, Deadline deadline) {
+        return recommend(payload, deadline.cap(properties.getFallback().getLatencyBudget()), subject, deadline);
+    }
+
+    /**
+     * Returns the cached or LLM recommendation, falling back to the local recommender when
+     * the LLM fails or has not answered within {@code latencyBudget}.
+     */
+    public RecommendationResult recommend(SurveyResponsePayload payload, Duration latencyBudget) {
+        return recommend(payload, latencyBudget, null);
+    }
+
+    /**
+     * Like {@link #recommend(SurveyResponsePayload, Duration)}, charging {@code subject}'s quota when a
+     * new generation is started.
+     */
+    public RecommendationResult recommend(SurveyResponsePayload payload,
+                                          Duration latencyBudget,
+                                          @Nullable UsageSubject subject) {
+        return recommend(payload, latencyBudget, subject, null);
+    }
+
+    private RecommendationResult recommend(SurveyResponsePayload payload,
+                                           Duration latencyBudget,
+                                           @Nullable UsageSubject subject,
+                                           @Nullable Deadline deadline) {
+        EncodedAnswers answers = surveyService.encode(payload.answers());
+
+        CanonicalAnswers canonicalAnswers = CanonicalAnswers.of(answers, payload.promptParams());
+        observedProfiles.record(canonicalAnswers, answers.toAnswerMap(), payload.promptParams());
+        Optional<RecommendationResponse> cached = recommendationCache.get(canonicalAnswers);
+        if (cached.isPresent()) {
+            log.debug("Serving survey recommendation from cache key={}", canonicalAnswers.key());
+            return new RecommendationResult(cached.get(), RecommendationResult.Source.CACHE, canonicalAnswers.key());
+        }
+
+        if (!properties.getFallback().isEnabled()) {
+            requireLlm();
+            return new RecommendationResult(awaitGeneration(generateInBackground(subject, canonicalAnswers, answers,
+                payload.promptParams(), Priority.SURVEY), deadline), RecommendationResult.Source.LLM, canonicalAnswers.key());
+        }
+        if (!llmGateway.isAvailable()) {
+            return local(canonicalAnswers, answers);
+        }
+
+        CompletableFuture<RecommendationResponse> generation = generateInBackground(subject, canonicalAnswers, answers,
+            payload.promptParams(), Priority.SURVEY);
+        try {
+            RecommendationResponse response = generation.get(latencyBudget.toMillis(), TimeUnit.MILLISECONDS);
+            return new RecommendationResult(response, RecommendationResult.Source.LLM, canonicalAnswers.key());
+        } catch (TimeoutException ex) {
+            log.info("LLM recommendation exceeded the {}ms budget; serving local result key={}",
+                latencyBudget.toMillis(), canonicalAnswers.key());
+        } catch (ExecutionException ex) {
+            log.warn("LLM recommendation failed; serving local result key={}", canonicalAnswers.key(), ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return local(canonicalAnswers, answers);
+    }
+
+    public Optional<RecommendationResponse> findCached(String key) {
+        return recommendationCache.get(new CanonicalAnswers(key));
+    }
+
+    public boolean isGenerating(String key) {
+        return isGenerating(new CanonicalAnswers(key));
+    }
+
+    boolean isGenerating(CanonicalAnswers canonicalAnswers) {
+        return generations.containsKey(canonicalAnswers);
+    }
+
+    public SseEmitter stream(SurveyResponsePayload payload) {
+        return stream(payload, Deadline.after(properties.getStreamTimeout()));
+    }
+
+    /**
+     * Streams the recommendation until {@code deadline}. When the client goes away or the deadline
+     * passes, the worker is interrupted so the upstream stream is aborted rather than drained.
+     */
+    public SseEmitter stream(SurveyResponsePayload payload, Deadline deadline) {
+        return stream(payload, null, deadline);
+    }
+
+    public SseEmitter stream(SurveyResponsePayload payload, @Nullable UsageSubject subject, Deadline deadline) {
+        EncodedAnswers answers = surveyService.encode(payload.answers());
+        CanonicalAnswers canonicalAnswers = CanonicalAnswers.of(answers, payload.promptParams());
+        observedProfiles.record(canonicalAnswers, answers.toAnswerMap(), payload.promptParams());
+
+        SseEmitter emitter = new SseEmitter(deadline.cap(properties.getStreamTimeout()).toMillis());
+        Optional<RecommendationResponse> cached = recommendationCache.get(canonicalAnswers);
+        if (cached.isPresent()) {
+            log.debug("Streaming survey recommendation from cache key={}", canonicalAnswers.key());
+            try {
+                workerExecutor.execute(() -> replay(emitter, cached.get()));
+            } catch (RejectedExecutionException ex) {
+                replay(emitter, cached.get());
+            }
+            return emitter;
+        }
+
+        requireLlm();
+        PromptContext promptContext = buildPrompt(answers, payload.promptParams());
+        chargeQuota(subject, promptContext);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Future<?> worker;
+        try {
+            worker = workerExecutor.submit(ServerTiming.wrap(() -> generateStreaming(emitter, cancelled,
+                deadline, canonicalAnswers, promptContext)));
+        } catch (RejectedExecutionException ex) {
+            refundQuota(subject, promptContext);
+            log.warn("Recommendation workers are saturated; refusing stream key={}", canonicalAnswers.key());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Recommendation workers are busy. Please retry shortly.");
+        }
+        emitter.onCompletion(() -> cancelled.set(true));
+        emitter.onTimeout(() -> {
+            cancelled.set(true);
+            worker.cancel(true);
+        });
+        emitter.onError(error -> {
+            cancelled.set(true);
+            worker.cancel(true);
+        });
+        return emitter;
+    }
+
+    /**
+     * Generates and caches the recommendation for a warmup candidate unless it is already cached,
+     * joining a generation already running for the same key instead of calling the LLM again.
+     */
+    public boolean precompute(EncodedAnswers answers, Map<String, String> promptParams) {
+        CanonicalAnswers canonicalAnswers = CanonicalAnswers.of(answers, promptParams);
+        if (recommendationCache.contains(canonicalAnswers)) {
+            return false;
+        }
+        requireLlm();
+        awaitGeneration(generateInBackground(null, canonicalAnswers, answers, promptParams, Priority.BACKGROUND), null);
+        return true;
+    }
+
+    /**
+     * Starts a generation for the key, or returns the one already running so callers join it
+     * instead of calling the LLM again. {@code priority} only applies, and {@code subject}'s quota is
+     * only charged, when this call starts the generation. The prompt is built once and used both for
+     * the quota estimate and the call. When the workers are saturated the generation is not started,
+     * the charge is taken back and the returned future fails, so callers with a fallback serve the
+     * local result without a background upgrade.
+     */
+    CompletableFuture<RecommendationResponse> generateInBackground(@Nullable UsageSubject subject,
+                                                                   CanonicalAnswers canonicalAnswers,
+                                                                   EncodedAnswers answers,
+                                                                   Map<String, String> promptParams,
+                                                                   Priority priority) {
+        CompletableFuture<RecommendationResponse> existing = generations.get(canonicalAnswers);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<RecommendationResponse> created = new CompletableFuture<>();
+        CompletableFuture<RecommendationResponse> raced = generations.putIfAbsent(canonicalAnswers, created);
+        if (raced != null) {
+            return raced;
+        }
+        PromptContext promptContext;
+        try {
+            promptContext = buildPrompt(answers, promptParams);
+            chargeQuota(subject, promptContext);
+        } catch (RuntimeException ex) {
+            generations.remove(canonicalAnswers, created);
+            created.completeExceptionally(ex);
+            throw ex;
+        }
+        try {
+            workerExecutor.execute(ServerTiming.wrap(() -> {
+                try {
+                    created.complete(generate(canonicalAnswers, promptContext, priority));
+                } catch (Throwable ex) {
+                    created.completeExceptionally(ex);
+                } finally {
+                    generations.remove(canonicalAnswers, created);
+                }
+            }));
+        } catch (RejectedExecutionException ex) {
+            generations.remove(canonicalAnswers, created);
+            refundQuota(subject, promptContext);
+            log.warn("Recommendation workers are saturated; skipping generation key={} priority={}",
+                canonicalAnswers.key(), priority);
+            created.completeExceptionally(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Recommendation workers are busy. Please retry shortly."));
+        }
+        return created;
     }
 
-    public RecommendationResponse recommend(SurveyResponsePayload payload) {
-        if (!geminiClient.isEnabled()) {
-            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Gemini API key is not configured.");
+    private RecommendationResponse awaitGeneration(CompletableFuture<RecommendationResponse> generation,
+                                                   @Nullable Deadline deadline) {
+        try {
+            return deadline == null
+                ? generation.join()
+                : generation.get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (CompletionException | ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "The recommendation was not ready before the deadline.");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for the recommendation.");
         }
+    }
+
+    private RecommendationResult local(CanonicalAnswers canonicalAnswers, EncodedAnswers answers) {
+        RecommendationResponse response = localRecommender.recommend(SurveyContext.fromAnswers(answers.toAnswerMap()));
+        return new RecommendationResult(response, RecommendationResult.Source.LOCAL, canonicalAnswers.key());
+    }
+
+    private RecommendationResponse generate(CanonicalAnswers canonicalAnswers,
+                                            PromptContext promptContext,
+                                            Priority priority) {
+        String raw = callLlm(promptContext, priority);
+        RecommendationResponse response = recommendationParser.parse(raw);
+        recommendationCache.put(canonicalAnswers, response);
+        return response;
+    }
+
+    private void generateStreaming(SseEmitter emitter,
+                                   AtomicBoolean cancelled,
+                                   Deadline deadline,
+                                   CanonicalAnswers canonicalAnswers,
+                                   PromptContext promptContext) {
+        Instant started = Instant.now();
+        AtomicBoolean firstEvent = new AtomicBoolean(true);
+        RecommendationStreamParser streamParser = recommendationParser.streamParser(new RecommendationStreamParser.Listener() {
+            @Override
+            public void onSummary(String summary) {
+                send(emitter, "summary", summary);
+            }
 
-        Map<String, SurveyQuestion> questionMap = surveyService.getQuestions().stream()
-            .collect(Collectors.toMap(SurveyQuestion::id, question -> question));
+            @Override
+            public void onInsight(String insight) {
+                send(emitter, "insight", insight);
+            }
 
-        Map<String, List<String>> answers = new LinkedHashMap<>();
-        for (SurveyAnswer answer : payload.answers()) {
-            SurveyQuestion question = questionMap.get(answer.questionId());
-            if (question == null) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown question ID: " + answer.questionId());
+            @Override
+            public void onProduct(String field, ProductRecommendation product) {
+                send(emitter, field, product);
             }
-            answers.put(question.id(), new ArrayList<>(answer.selectedOptionIds()));
+
+            private void send(SseEmitter target, String name, Object data) {
+                if (firstEvent.compareAndSet(true, false)) {
+                    log.info("LLM recommendation first event latency={}ms",
+                        Duration.between(started, Instant.now()).toMillis());
+                }
+                sendEvent(target, name, data);
+            }
+        });
+
+        try {
+            Optional<LlmResult> raw = llmGateway.stream(buildRequest(promptContext, Priority.SURVEY).withDeadline(deadline), chunk -> {
+                if (cancelled.get()) {
+                    throw new CancellationException("Client disconnected");
+                }
+                streamParser.feed(chunk);
+            });
+            if (raw.isEmpty() && deadline.isExpired()) {
+                throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "The recommendation was not ready before the deadline.");
+            }
+            if (raw.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Failed to receive a response from the LLM.");
+            }
+            RecommendationResponse response = recommendationParser.parse(raw.get().text());
+            recommendationCache.put(canonicalAnswers, response);
+            log.info("LLM streamed recommendation latency={}ms", Duration.between(started, Instant.now()).toMillis());
+            sendEvent(emitter, "done", response);
+            emitter.complete();
+        } catch (CancellationException ex) {
+            log.debug("Survey recommendation stream cancelled by client key={}", canonicalAnswers.key());
+        } catch (ResponseStatusException ex) {
+            try {
+                sendEvent(emitter, "error", Map.of("status", ex.getStatusCode().value(), "message", String.valueOf(ex.getReason())));
+                emitter.complete();
+            } catch (CancellationException ignored) {
+                log.debug("Client disconnected before the stream error could be delivered");
+            }
+        } catch (Exception ex) {
+            log.warn("Survey recommendation stream failed", ex);
+            emitter.completeWithError(ex);
         }
+    }
 
-        SurveyContext context = SurveyContext.fromAnswers(answers);
+    private void replay(SseEmitter emitter, RecommendationResponse response) {
+        try {
+            sendEvent(emitter, "summary", response.summary());
+            response.insights().forEach(insight -> sendEvent(emitter, "insight", insight));
+            response.savings().forEach(product -> sendEvent(emitter, "savings", product));
+            response.cards().forEach(product -> sendEvent(emitter, "cards", product));
+            sendEvent(emitter, "done", response);
+            emitter.complete();
+        } catch (CancellationException ex) {
+            log.debug("Client disconnected while replaying cached recommendation");
+        }
+    }
 
-        PromptContext promptContext = promptContextBuilder.build(
-            answers,
-            questionMap,
-            context,
-            payload.promptParams()
-        );
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException | IllegalStateException ex) {
+            throw new CancellationException("Client disconnected");
+        }
+    }
 
-        String raw = callGemini(promptContext);
-        return recommendationParser.parse(raw);
+    private PromptContext buildPrompt(EncodedAnswers answers, Map<String, String> promptParams) {
+        return promptContextBuilder.build(answers, SurveyContext.fromAnswers(answers.toAnswerMap()), promptParams);
     }
 
-    private String callGemini(PromptContext promptContext) {
+    private void chargeQuota(@Nullable UsageSubject subject, PromptContext promptContext) {
+        if (subject != null) {
+            usageQuotas.acquire(subject, promptContext.estimatedInputTokens());
+        }
+    }
+
+    private void refundQuota(@Nullable UsageSubject subject, PromptContext promptContext) {
+        if (subject != null) {
+            usageQuotas.refund(subject, promptContext.estimatedInputTokens());
+        }
+    }
+
+    private void requireLlm() {
+        if (!llmGateway.isAvailable()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No LLM provider is configured.");
+        }
+    }
+
+    private String callLlm(PromptContext promptContext, Priority priority) {
         Instant started = Instant.now();
-        Map<String, Object> generationConfig = buildGenerationConfig();
 
-        String prompt = promptContext.systemInstruction() + "\n\n" + promptContext.userPrompt();
         if (log.isDebugEnabled()) {
-            log.debug("Gemini prompt built for survey recommendation:\n{}", prompt);
+            log.debug("LLM prompt built for survey recommendation:\n{}", promptContext.userPrompt());
         }
 
-        Optional<String> response = geminiClient.generateContent(prompt, generationConfig);
+        Optional<LlmResult> response = llmGateway.complete(buildRequest(promptContext, priority));
         if (response.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Failed to receive a response from Gemini.");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Failed to receive a response from the LLM.");
         }
 
-        String content = response.get();
-        log.info("Gemini recommendation latency={}ms", Duration.between(started, Instant.now()).toMillis());
-        log.debug("Gemini raw response: {}", content);
+        String content = response.get().text();
+        log.info("LLM recommendation provider={} latency={}ms estimatedInputTokens={}", response.get().provider(),
+            Duration.between(started, Instant.now()).toMillis(), promptContext.estimatedInputTokens());
+        log.debug("LLM raw response: {}", content);
         return content;
     }
 
-    private Map<String, Object> buildGenerationConfig() {
-        Map<String, Object> config = new LinkedHashMap<>();
-        config.put("temperature", 0.6);
-        config.put("top_p", 0.9);
-        return config;
+    private static LlmRequest buildRequest(PromptContext promptContext, Priority priority) {
+        return LlmRequest.of("survey-recommendation", "gemini", promptContext.systemInstruction(),
+                promptContext.userPrompt(), 0.6)
+            .withResponseSchema("recommendation", RecommendationSchema.responseSchema())
+            .withPriority(priority);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workerExecutor.shutdownNow();
     }
 }
@@ -0,0 +1,156 @@
+package com.hack.app.chat.survey.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.hack.app.chat.survey.dto.ProductRecommendation;
+import com.hack.app.chat.survey.model.ProductType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Incrementally parses the recommendation JSON as Gemini streams it and reports each
+ * top-level field as soon as it is complete. Not thread-safe; one instance per stream.
+ */
+class RecommendationStreamParser {
+
+    interface Listener {
+
+        void onSummary(String summary);
+
+        void onInsight(String insight);
+
+        void onProduct(String field, ProductRecommendation product);
+    }
+
+    private final ObjectMapper objectMapper;
+    private final RecommendationParser recommendationParser;
+    private final Listener listener;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private final Set<String> savingsIds = new HashSet<>();
+    private final Set<String> cardIds = new HashSet<>();
+    private boolean started;
+    private boolean finished;
+    private int depth;
+    private String field;
+    private int insights;
+    private int savingsIndex;
+    private int cardIndex;
+    private TokenBuffer product;
+
+    RecommendationStreamParser(ObjectMapper objectMapper, RecommendationParser recommendationParser, Listener listener) {
+        this.objectMapper = objectMapper;
+        this.recommendationParser = recommendationParser;
+        this.listener = listener;
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    void feed(String chunk) {
+        if (finished || chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        String text = chunk;
+        if (!started) {
+            // Skip anything the model emits before the root object, such as a ```json fence.
+            int start = text.indexOf('{');
+            if (start < 0) {
+                return;
+            }
+            text = text.substring(start);
+            started = true;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            drain();
+        } catch (IOException ex) {
+            finished = true;
+        }
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!finished && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (product != null) {
+                product.copyCurrentEvent(parser);
+            }
+            switch (token) {
+                case START_OBJECT -> {
+                    depth++;
+                    if (depth == 3 && isProductField() && product == null) {
+                        product = new TokenBuffer(parser);
+                        product.copyCurrentEvent(parser);
+                    }
+                }
+                case END_OBJECT -> {
+                    depth--;
+                    if (depth == 2 && product != null) {
+                        completeProduct();
+                    } else if (depth == 0) {
+                        finished = true;
+                    }
+                }
+                case START_ARRAY -> depth++;
+                case END_ARRAY -> depth--;
+                case FIELD_NAME -> {
+                    if (depth == 1) {
+                        field = parser.currentName();
+                    }
+                }
+                case VALUE_STRING -> onString();
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void onString() throws IOException {
+        if (depth == 1 && "summary".equals(field)) {
+            String summary = parser.getText().trim();
+            if (!summary.isEmpty()) {
+                listener.onSummary(summary);
+            }
+        } else if (depth == 2 && "insights".equals(field) && insights < RecommendationParser.MAX_INSIGHTS) {
+            String insight = parser.getText().trim();
+            if (!insight.isEmpty()) {
+                insights++;
+                listener.onInsight(insight);
+            }
+        }
+    }
+
+    private boolean isProductField() {
+        return "savings".equals(field) || "cards".equals(field);
+    }
+
+    private void completeProduct() throws IOException {
+        JsonNode node;
+        try (JsonParser buffered = product.asParser(objectMapper)) {
+            node = objectMapper.readTree(buffered);
+        }
+        product = null;
+
+        boolean savings = "savings".equals(field);
+        ProductRecommendation recommendation = recommendationParser.toRecommendation(node,
+            savings ? ProductType.SAVINGS : ProductType.CARD,
+            savings ? savingsIndex++ : cardIndex++);
+        Set<String> usedIds = savings ? savingsIds : cardIds;
+        if (usedIds.add(recommendation.productId())) {
+            listener.onProduct(field, recommendation);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.hack.app.chat.survey.service;
+
+import com.hack.app.chat.survey.dto.SurveyOption;
+import com.hack.app.chat.survey.dto.SurveyQuestion;
+import com.hack.app.chat.survey.dto.WarmupStatus;
+import com.hack.app.chat.survey.model.CanonicalAnswers;
+import com.hack.app.chat.survey.model.EncodedAnswers;
+import com.hack.app.chat.survey.model.PromptParams;
+import com.hack.app.llm.LlmGateway;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class RecommendationWarmer {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationWarmer.class);
+
+    private final RecommendationService recommendationService;
+    private final SurveyService surveyService;
+    private final ObservedProfiles observedProfiles;
+    private final RecommendationCache recommendationCache;
+    private final RecommendationCacheStore cacheStore;
+    private final LlmGateway llmGateway;
+    private final RecommendationProperties properties;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(daemon("recommendation-warmup"));
+    private final ExecutorService workers;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile Instant lastStartedAt;
+    private volatile Instant lastFinishedAt;
+    private volatile int lastGenerated;
+    private volatile int lastFailed;
+    private long nextPermitNanos;
+
+    public RecommendationWarmer(RecommendationService recommendationService,
+                                SurveyService surveyService,
+                                ObservedProfiles observedProfiles,
+                                RecommendationCache recommendationCache,
+                                RecommendationCacheStore cacheStore,
+                                LlmGateway llmGateway,
+                                RecommendationProperties properties) {
+        this.recommendationService = recommendationService;
+        this.surveyService = surveyService;
+        this.observedProfiles = observedProfiles;
+        this.recommendationCache = recommendationCache;
+        this.cacheStore = cacheStore;
+        this.llmGateway = llmGateway;
+        this.properties = properties;
+        this.workers = Executors.newFixedThreadPool(Math.max(1, properties.getWarmup().getParallelism()),
+            daemon("recommendation-warmup-worker"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmOnStartup() {
+        if (properties.getWarmup().isEnabled() && properties.getWarmup().isOnStartup()) {
+            trigger();
+        }
+    }
+
+    @Scheduled(cron = "${recommendation.warmup.cron:0 0 3 * * *}")
+    public void warmOnSchedule() {
+        if (properties.getWarmup().isEnabled()) {
+            trigger();
+        }
+    }
+
+    public boolean trigger() {
+        if (!llmGateway.isAvailable() || !properties.getCache().isEnabled()) {
+            log.debug("Skipping recommendation warmup: Gemini or the recommendation cache is disabled");
+            return false;
+        }
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        coordinator.execute(() -> {
+            try {
+                run();
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Whether {@code token} may start a warmup over HTTP. Always false while no admin token is
+     * configured, leaving the schedule as the only trigger.
+     */
+    public boolean acceptsAdminToken(@Nullable String token) {
+        String expected = properties.getWarmup().getAdminToken();
+        if (expected == null || expected.isBlank() || token == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public WarmupStatus status() {
+        List<Candidate> candidates = candidates();
+        int warmed = (int) candidates.stream().filter(candidate -> recommendationCache.contains(candidate.key())).count();
+        Instant now = Instant.now();
+        Long oldestAge = recommendationCache.oldestEntryCreatedAt()
+            .map(createdAt -> Duration.between(createdAt, now).toSeconds())
+            .orElse(null);
+        return new WarmupStatus(
+            surveyService.getVersion(),
+            properties.getWarmup().isEnabled(),
+            running.get(),
+            recommendationCache.size(),
+            candidates.size(),
+            warmed,
+            candidates.isEmpty() ? 0.0 : (double) warmed / candidates.size(),
+            lastStartedAt,
+            lastFinishedAt,
+            lastGenerated,
+            lastFailed,
+            oldestAge,
+            recommendationCache.countOlderThan(properties.getCache().getTtl().dividedBy(2))
+        );
+    }
+
+    private void run() {
+        lastStartedAt = Instant.now();
+        List<Candidate> candidates = candidates();
+        log.info("Recommendation warmup started candidates={}", candidates.size());
+
+        AtomicInteger generated = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            tasks.add(CompletableFuture.runAsync(() -> {
+                if (recommendationCache.contains(candidate.key())) {
+                    return;
+                }
+                try {
+                    awaitPermit();
+                    if (recommendationService.precompute(candidate.answers(), candidate.promptParams())) {
+                        generated.incrementAndGet();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException ex) {
+                    failed.incrementAndGet();
+                    log.warn("Recommendation warmup failed for key={}", candidate.key().key(), ex);
+                }
+            }, workers));
+        }
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+
+        lastGenerated = generated.get();
+        lastFailed = failed.get();
+        lastFinishedAt = Instant.now();
+        cacheStore.save();
+        log.info("Recommendation warmup finished generated={} failed={} elapsed={}ms",
+            lastGenerated, lastFailed, Duration.between(lastStartedAt, lastFinishedAt).toMillis());
+    }
+
+    private List<Candidate> candidates() {
+        RecommendationProperties.Warmup warmup = properties.getWarmup();
+        List<SurveyQuestion> questions = surveyService.getQuestions();
+        Map<CanonicalAnswers, Candidate> candidates = new LinkedHashMap<>();
+
+        for (ObservedProfiles.Profile profile : observedProfiles.mostFrequent(warmup.getObservedProfiles())) {
+            addCandidate(candidates, profile.answers(), profile.promptParams());
+        }
+
+        Map<String, List<String>> defaults = new LinkedHashMap<>();
+        List<SurveyQuestion> dimensions = new ArrayList<>();
+        for (SurveyQuestion question : questions) {
+            if (question.options().isEmpty()) {
+                continue;
+            }
+            if (warmup.getDimensions().contains(question.id())) {
+                dimensions.add(question);
+            } else {
+                defaults.put(question.id(), List.of(observedProfiles.predictedOption(question)));
+            }
+        }
+        expand(candidates, dimensions, 0, new LinkedHashMap<>(defaults), warmup.getMaxProfiles());
+
+        return candidates.values().stream().limit(warmup.getMaxProfiles()).toList();
+    }
+
+    private void expand(Map<CanonicalAnswers, Candidate> candidates,
+                        List<SurveyQuestion> dimensions,
+                        int depth,
+                        Map<String, List<String>> answers,
+                        int limit) {
+        if (candidates.size() >= limit) {
+            return;
+        }
+        if (depth == dimensions.size()) {
+            addCandidate(candidates, new LinkedHashMap<>(answers), PromptParams.fromAnswers(answers));
+            return;
+        }
+        SurveyQuestion question = dimensions.get(depth);
+        for (SurveyOption option : question.options()) {
+            answers.put(question.id(), List.of(option.id()));
+            expand(candidates, dimensions, depth + 1, answers, limit);
+        }
+        answers.remove(question.id());
+    }
+
+    private void addCandidate(Map<CanonicalAnswers, Candidate> candidates,
+                              Map<String, List<String>> answers,
+                              Map<String, String> promptParams) {
+        EncodedAnswers encoded;
+        try {
+            encoded = surveyService.getIndex().encode(answers);
+        } catch (IllegalArgumentException ex) {
+            log.debug("Skipping warmup candidate that no longer matches the survey: {}", ex.getMessage());
+            return;
+        }
+        CanonicalAnswers key = CanonicalAnswers.of(encoded, promptParams);
+        candidates.putIfAbsent(key, new Candidate(key, encoded, promptParams));
+    }
+
+    private void awaitPermit() throws InterruptedException {
+        long interval = TimeUnit.MINUTES.toNanos(1) / Math.max(1, properties.getWarmup().getRatePerMinute());
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextPermitNanos);
+            nextPermitNanos = slot + interval;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    void shutdown() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private record Candidate(CanonicalAnswers key, EncodedAnswers answers, Map<String, String> promptParams) {
+    }
+}
@@ -1,10 +1,17 @@
 package com.hack.app.chat.survey.service;
 
 import com.hack.app.chat.survey.dao.SurveyDataDao;
+import com.hack.app.chat.survey.dto.SurveyAnswer;
 import com.hack.app.chat.survey.dto.SurveyQuestion;
+import com.hack.app.chat.survey.model.CatalogProduct;
+import com.hack.app.chat.survey.model.EncodedAnswers;
+import com.hack.app.chat.survey.model.SurveyIndex;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class SurveyService {
@@ -18,4 +25,32 @@ public class SurveyService {
     public List<SurveyQuestion> getQuestions() {
         return surveyDataDao.getQuestions();
     }
+
+    public String getVersion() {
+        return surveyDataDao.getVersion();
+    }
+
+    public SurveyIndex getIndex() {
+        return surveyDataDao.getIndex();
+    }
+
+    public List<CatalogProduct> getProducts() {
+        return surveyDataDao.getProducts();
+    }
+
+    public EncodedAnswers encode(List<SurveyAnswer> answers) {
+        try {
+            return surveyDataDao.getIndex().encode(answers);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+
+    public EncodedAnswers encode(Map<String, List<String>> answers) {
+        try {
+            return surveyDataDao.getIndex().encode(answers);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
 }
@@ -0,0 +1,21 @@
+package com.hack.app.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class AdaptiveConcurrencyConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdaptiveConcurrencyFilter> adaptiveConcurrencyFilter(AdaptiveLimitProperties properties,
+                                                                                      MeterRegistry meterRegistry) {
+        FilterRegistrationBean<AdaptiveConcurrencyFilter> registration =
+            new FilterRegistrationBean<>(new AdaptiveConcurrencyFilter(properties, meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
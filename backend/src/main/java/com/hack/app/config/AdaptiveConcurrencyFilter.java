@@ -0,0 +1,124 @@
+package com.hack.app.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sheds LLM-backed requests with 503 and {@code Retry-After} once the adaptive limit for their path
+ * is reached, instead of letting them queue on worker threads behind a slow upstream. Every path
+ * gets its own {@link AdaptiveConcurrencyLimit} because chat replies and full recommendations have
+ * very different latencies. Streaming responses hold their slot until the stream completes.
+ */
+public class AdaptiveConcurrencyFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveConcurrencyFilter.class);
+
+    private final AdaptiveLimitProperties properties;
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new LinkedHashMap<>();
+    private final Map<String, Counter> rejections = new LinkedHashMap<>();
+
+    public AdaptiveConcurrencyFilter(AdaptiveLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        for (String path : properties.getPaths()) {
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(properties);
+            limits.put(path, limit);
+            Gauge.builder("adaptive.limit", limit, AdaptiveConcurrencyLimit::limit)
+                .description("Current adaptive concurrency limit")
+                .tag("path", path)
+                .register(meterRegistry);
+            Gauge.builder("adaptive.limit.in-flight", limit, AdaptiveConcurrencyLimit::inFlight)
+                .description("Requests currently holding an adaptive limit slot")
+                .tag("path", path)
+                .register(meterRegistry);
+            rejections.put(path, Counter.builder("adaptive.limit.rejected")
+                .description("Requests shed because the adaptive limit was reached")
+                .tag("path", path)
+                .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || !limits.containsKey(path(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String path = path(request);
+        AdaptiveConcurrencyLimit limit = limits.get(path);
+        if (!limit.tryAcquire()) {
+            rejections.get(path).increment();
+            long retryAfter = limit.retryAfterSeconds(properties.getMaxRetryAfterSeconds());
+            log.debug("Shedding {} at limit {}; retry after {}s", path, limit.limit(), retryAfter);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "The server is busy; please retry shortly.");
+            return;
+        }
+
+        long started = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(limit, started, released));
+            } else if (released.compareAndSet(false, true)) {
+                limit.release(System.nanoTime() - started, failed);
+            }
+        }
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private record ReleasingListener(AdaptiveConcurrencyLimit limit, long started, AtomicBoolean released)
+        implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+            release(response.getStatus() >= 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void release(boolean failed) {
+            if (released.compareAndSet(false, true)) {
+                limit.release(System.nanoTime() - started, failed);
+            }
+        }
+    }
+}
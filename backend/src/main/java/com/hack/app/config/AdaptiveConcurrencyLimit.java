@@ -0,0 +1,89 @@
+package com.hack.app.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * AIMD concurrency limit driven by request latency. Each completed request whose latency stays
+ * within {@code latency-tolerance} times the smoothed baseline grows the limit by {@code 1/limit}
+ * (about one slot per window of requests) as long as the limit is actually being used. A slow or
+ * failed request multiplies it by {@code backoff-ratio}, at most once per baseline latency so a
+ * burst of slow responses from the same window counts once. The baseline keeps drifting towards
+ * recent samples, so after a lasting upstream slowdown the limit settles low and then grows back
+ * against the new normal.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final double smoothing;
+    private final LongSupplier nanoTime;
+    private double limit;
+    private double baselineNanos;
+    private long lastDecrease = Long.MIN_VALUE;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimit(AdaptiveLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimit(AdaptiveLimitProperties properties, LongSupplier nanoTime) {
+        this.minLimit = Math.max(1, properties.getMinLimit());
+        this.maxLimit = Math.max(minLimit, properties.getMaxLimit());
+        this.backoffRatio = properties.getBackoffRatio();
+        this.latencyTolerance = properties.getLatencyTolerance();
+        this.smoothing = properties.getSmoothing();
+        this.nanoTime = nanoTime;
+        this.limit = Math.min(maxLimit, Math.max(minLimit, properties.getInitialLimit()));
+    }
+
+    /**
+     * Takes a slot if one is free. Callers that get {@code true} must call {@link #release} exactly once.
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    public synchronized void release(long latencyNanos, boolean failed) {
+        boolean saturated = inFlight * 2 >= limit;
+        inFlight--;
+        if (baselineNanos == 0) {
+            baselineNanos = latencyNanos;
+        }
+
+        if (failed || latencyNanos > baselineNanos * latencyTolerance) {
+            long now = nanoTime.getAsLong();
+            if (lastDecrease == Long.MIN_VALUE || now - lastDecrease >= baselineNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecrease = now;
+            }
+        } else if (saturated) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        if (!failed) {
+            baselineNanos += smoothing * (latencyNanos - baselineNanos);
+        }
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Seconds a shed caller should wait before retrying: roughly one baseline latency.
+     */
+    public synchronized long retryAfterSeconds(int max) {
+        long seconds = (long) Math.ceil(baselineNanos / TimeUnit.SECONDS.toNanos(1));
+        return Math.min(max, Math.max(1, seconds));
+    }
+}
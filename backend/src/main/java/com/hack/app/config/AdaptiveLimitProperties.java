@@ -0,0 +1,95 @@
+package com.hack.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "adaptive-limit")
+public class AdaptiveLimitProperties {
+
+    private boolean enabled = true;
+    private List<String> paths = new ArrayList<>(List.of(
+        "/api/finance-chat", "/api/recommendations", "/api/recommendations/stream"));
+    private int initialLimit = 20;
+    private int minLimit = 2;
+    private int maxLimit = 200;
+    private double backoffRatio = 0.9;
+    private double latencyTolerance = 2.0;
+    private double smoothing = 0.05;
+    private int maxRetryAfterSeconds = 30;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public void setPaths(List<String> paths) {
+        this.paths = paths;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public void setBackoffRatio(double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+    }
+
+    public double getLatencyTolerance() {
+        return latencyTolerance;
+    }
+
+    public void setLatencyTolerance(double latencyTolerance) {
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    public int getMaxRetryAfterSeconds() {
+        return maxRetryAfterSeconds;
+    }
+
+    public void setMaxRetryAfterSeconds(int maxRetryAfterSeconds) {
+        this.maxRetryAfterSeconds = maxRetryAfterSeconds;
+    }
+}
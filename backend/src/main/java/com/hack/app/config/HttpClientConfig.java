@@ -0,0 +1,36 @@
+package com.hack.app.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class HttpClientConfig {
+
+    private final AtomicInteger threadSequence = new AtomicInteger();
+    private final ExecutorService httpExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "llm-http-" + threadSequence.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Bean
+    public HttpClient llmHttpClient(HttpClientProperties properties) {
+        return HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(properties.getConnectTimeout())
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .executor(httpExecutor)
+            .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        httpExecutor.shutdownNow();
+    }
+}
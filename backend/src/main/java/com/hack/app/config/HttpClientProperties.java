@@ -0,0 +1,87 @@
+package com.hack.app.config;
+
+import com.hack.app.llm.Priority;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "http-client")
+public class HttpClientProperties {
+
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private int maxConnectionsPerRoute = 20;
+    private int interactiveReserve = 2;
+    private final QueueTimeout queueTimeout = new QueueTimeout();
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public int getInteractiveReserve() {
+        return interactiveReserve;
+    }
+
+    public void setInteractiveReserve(int interactiveReserve) {
+        this.interactiveReserve = interactiveReserve;
+    }
+
+    public QueueTimeout getQueueTimeout() {
+        return queueTimeout;
+    }
+
+    /**
+     * How long each priority may wait for a connection slot before the call is given up.
+     */
+    public static class QueueTimeout {
+
+        private Duration interactive = Duration.ofSeconds(5);
+        private Duration survey = Duration.ofSeconds(15);
+        private Duration background = Duration.ofSeconds(60);
+
+        public Duration forPriority(Priority priority) {
+            return switch (priority) {
+                case INTERACTIVE -> interactive;
+                case SURVEY -> survey;
+                case BACKGROUND -> background;
+            };
+        }
+
+        public Duration getInteractive() {
+            return interactive;
+        }
+
+        public void setInteractive(Duration interactive) {
+            this.interactive = interactive;
+        }
+
+        public Duration getSurvey() {
+            return survey;
+        }
+
+        public void setSurvey(Duration survey) {
+            this.survey = survey;
+        }
+
+        public Duration getBackground() {
+            return background;
+        }
+
+        public void setBackground(Duration background) {
+            this.background = background;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.hack.app.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class RequestDeadlineConfig {
+
+    @Bean
+    public FilterRegistrationBean<RequestDeadlineFilter> requestDeadlineFilter(RequestDeadlineProperties properties) {
+        FilterRegistrationBean<RequestDeadlineFilter> registration =
+            new FilterRegistrationBean<>(new RequestDeadlineFilter(properties));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
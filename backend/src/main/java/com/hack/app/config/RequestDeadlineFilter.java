@@ -0,0 +1,55 @@
+package com.hack.app.config;
+
+import com.hack.app.llm.Deadline;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Resolves the request deadline once, when the request arrives, and exposes it as the
+ * {@link Deadline#REQUEST_ATTRIBUTE} attribute. Callers may send their own timeout in milliseconds
+ * via the configured header; it is capped at {@code max-timeout}.
+ */
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestDeadlineFilter.class);
+
+    private final RequestDeadlineProperties properties;
+
+    public RequestDeadlineFilter(RequestDeadlineProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        request.setAttribute(Deadline.REQUEST_ATTRIBUTE, Deadline.after(timeout(request.getHeader(properties.getHeader()))));
+        filterChain.doFilter(request, response);
+    }
+
+    private Duration timeout(String header) {
+        if (header == null || header.isBlank()) {
+            return properties.getDefaultTimeout();
+        }
+        long millis;
+        try {
+            millis = Long.parseLong(header.trim());
+        } catch (NumberFormatException ex) {
+            millis = 0;
+        }
+        if (millis <= 0) {
+            log.debug("Ignoring invalid {} header value '{}'", properties.getHeader(), header);
+            return properties.getDefaultTimeout();
+        }
+        Duration requested = Duration.ofMillis(millis);
+        return requested.compareTo(properties.getMaxTimeout()) < 0 ? requested : properties.getMaxTimeout();
+    }
+}
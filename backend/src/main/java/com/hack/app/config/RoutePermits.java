@@ -0,0 +1,273 @@
+package com.hack.app.config;
+
+import com.hack.app.llm.Priority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps concurrent calls to one upstream route. When every slot is taken, callers queue per
+ * {@link Priority} and a released slot goes to the oldest waiter of the highest priority. The last
+ * {@code interactive-reserve} slots are only handed to interactive calls, so bulk traffic holding
+ * long generations cannot starve chat. Async callers wait without holding a thread: their slot
+ * arrives as a completed future from whichever call releases it.
+ */
+public class RoutePermits {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutePermits.class);
+
+    private final String route;
+    private final int maxConnections;
+    private final int interactiveReserve;
+    private final HttpClientProperties.QueueTimeout queueTimeout;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Priority, ArrayDeque<Waiter>> queues = new EnumMap<>(Priority.class);
+    private final Map<Priority, Timer> waitTimers = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> timeouts = new EnumMap<>(Priority.class);
+    private int available;
+
+    public RoutePermits(String route, HttpClientProperties properties, MeterRegistry meterRegistry) {
+        this.route = route;
+        this.maxConnections = properties.getMaxConnectionsPerRoute();
+        this.interactiveReserve = Math.max(0, Math.min(properties.getInteractiveReserve(), maxConnections - 1));
+        this.queueTimeout = properties.getQueueTimeout();
+        this.available = maxConnections;
+
+        String routeTag = route.toLowerCase(Locale.ROOT);
+        for (Priority priority : Priority.values()) {
+            String priorityTag = priority.name().toLowerCase(Locale.ROOT);
+            queues.put(priority, new ArrayDeque<>());
+            waitTimers.put(priority, Timer.builder("llm.permits.wait")
+                .description("Time spent waiting for an upstream connection slot")
+                .tag("route", routeTag)
+                .tag("priority", priorityTag)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry));
+            timeouts.put(priority, Counter.builder("llm.permits.timeouts")
+                .description("Calls that gave up waiting for an upstream connection slot")
+                .tag("route", routeTag)
+                .tag("priority", priorityTag)
+                .register(meterRegistry));
+            Gauge.builder("llm.permits.queued", this, permits -> permits.queued(priority))
+                .description("Calls waiting for an upstream connection slot")
+                .tag("route", routeTag)
+                .tag("priority", priorityTag)
+                .register(meterRegistry);
+        }
+        Gauge.builder("llm.permits.in-use", this, RoutePermits::inUse)
+            .description("Upstream connection slots currently held")
+            .tag("route", routeTag)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Waits at most {@code maxWait}, or the queue timeout configured for {@code priority} if that is
+     * shorter.
+     */
+    public boolean acquire(Priority priority, Duration maxWait) {
+        Duration limit = queueTimeout.forPriority(priority);
+        long waitNanos = (maxWait.compareTo(limit) < 0 ? maxWait : limit).toNanos();
+        long started = System.nanoTime();
+        Waiter waiter;
+        lock.lock();
+        try {
+            if (canTakeImmediately(priority)) {
+                available--;
+                waitTimers.get(priority).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                return true;
+            }
+            waiter = new Waiter(lock.newCondition());
+            queues.get(priority).addLast(waiter);
+            try {
+                long remaining = waitNanos;
+                while (!waiter.granted && remaining > 0) {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (waiter.granted) {
+                waitTimers.get(priority).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                return true;
+            }
+            queues.get(priority).remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+        if (!Thread.currentThread().isInterrupted()) {
+            timeouts.get(priority).increment();
+            log.warn("Timed out waiting for a {} connection slot priority={} (max {} per route)",
+                route, priority, maxConnections);
+        }
+        return false;
+    }
+
+    /**
+     * Like {@link #acquire} but completes the returned future with {@code true} once a slot is
+     * handed over, or {@code false} when the wait runs out. Cancelling the future leaves the queue,
+     * giving back the slot if it was granted in the meantime.
+     */
+    public CompletableFuture<Boolean> acquireAsync(Priority priority, Duration maxWait) {
+        Duration limit = queueTimeout.forPriority(priority);
+        long waitNanos = (maxWait.compareTo(limit) < 0 ? maxWait : limit).toNanos();
+        long started = System.nanoTime();
+        Waiter waiter;
+        lock.lock();
+        try {
+            if (canTakeImmediately(priority)) {
+                available--;
+                waitTimers.get(priority).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                return CompletableFuture.completedFuture(true);
+            }
+            waiter = new Waiter(priority, started);
+            queues.get(priority).addLast(waiter);
+        } finally {
+            lock.unlock();
+        }
+
+        CompletableFuture<Boolean> future = waiter.future;
+        future.whenComplete((granted, error) -> {
+            if (future.isCancelled()) {
+                abandon(waiter);
+            }
+        });
+        CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS).execute(() -> expire(waiter));
+        return future;
+    }
+
+    public void release() {
+        Waiter handedTo = null;
+        lock.lock();
+        try {
+            available++;
+            for (Priority priority : Priority.values()) {
+                Waiter next = queues.get(priority).peekFirst();
+                if (next != null && admits(priority)) {
+                    queues.get(priority).removeFirst();
+                    available--;
+                    next.granted = true;
+                    if (next.condition != null) {
+                        next.condition.signal();
+                    } else {
+                        handedTo = next;
+                    }
+                    break;
+                }
+                if (next != null) {
+                    break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (handedTo != null) {
+            // Completed outside the lock: the caller's continuation runs on this thread.
+            waitTimers.get(handedTo.priority).record(System.nanoTime() - handedTo.started, TimeUnit.NANOSECONDS);
+            handedTo.future.complete(true);
+        }
+    }
+
+    private void expire(Waiter waiter) {
+        lock.lock();
+        try {
+            if (waiter.granted || !queues.get(waiter.priority).remove(waiter)) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        timeouts.get(waiter.priority).increment();
+        log.warn("Timed out waiting for a {} connection slot priority={} (max {} per route)",
+            route, waiter.priority, maxConnections);
+        waiter.future.complete(false);
+    }
+
+    private void abandon(Waiter waiter) {
+        boolean granted;
+        lock.lock();
+        try {
+            granted = waiter.granted;
+            if (!granted) {
+                queues.get(waiter.priority).remove(waiter);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (granted) {
+            release();
+        }
+    }
+
+    private boolean canTakeImmediately(Priority priority) {
+        if (!admits(priority)) {
+            return false;
+        }
+        for (Priority ahead : Priority.values()) {
+            if (ahead.compareTo(priority) > 0) {
+                return true;
+            }
+            if (!queues.get(ahead).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean admits(Priority priority) {
+        return priority == Priority.INTERACTIVE ? available > 0 : available > interactiveReserve;
+    }
+
+    private int queued(Priority priority) {
+        lock.lock();
+        try {
+            return queues.get(priority).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int inUse() {
+        lock.lock();
+        try {
+            return maxConnections - available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Waiter {
+
+        private final Condition condition;
+        private final CompletableFuture<Boolean> future;
+        private final Priority priority;
+        private final long started;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+            this.future = null;
+            this.priority = null;
+            this.started = 0;
+        }
+
+        private Waiter(Priority priority, long started) {
+            this.condition = null;
+            this.future = new CompletableFuture<>();
+            this.priority = priority;
+            this.started = started;
+        }
+    }
+}
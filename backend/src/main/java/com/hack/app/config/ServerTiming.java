@@ -0,0 +1,140 @@
+package com.hack.app.config;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects how long one request spent in each phase (database, prompt building, LLM calls,
+ * parsing) for the {@code Server-Timing} header. {@link ServerTimingFilter} binds a collector to the
+ * request thread; code that hands work to another thread carries it over with {@link #wrap} or by
+ * capturing {@link #current()} before the hand-off. Without a bound collector every call is a no-op
+ * on a shared instance, so instrumented code costs a thread-local read when the feature is off.
+ */
+public final class ServerTiming {
+
+    /** Servlet request attribute holding the collector, so async dispatches can rebind it. */
+    public static final String REQUEST_ATTRIBUTE = "com.hack.app.config.ServerTiming";
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+    private static final ServerTiming DISABLED = new ServerTiming(0);
+    private static final Span NOOP = () -> { };
+
+    private final long startedNanos;
+    private final Map<String, long[]> phases = new LinkedHashMap<>();
+
+    private ServerTiming(long startedNanos) {
+        this.startedNanos = startedNanos;
+    }
+
+    static ServerTiming begin() {
+        return new ServerTiming(System.nanoTime());
+    }
+
+    /**
+     * Returns the collector bound to this thread, or a no-op one.
+     */
+    public static ServerTiming current() {
+        ServerTiming timing = CURRENT.get();
+        return timing != null ? timing : DISABLED;
+    }
+
+    /**
+     * Starts timing {@code phase} on the current request; close the span to record it.
+     */
+    public static Span start(String phase) {
+        return current().span(phase);
+    }
+
+    /**
+     * Binds {@code timing} to this thread and returns the previous binding, for restoring.
+     */
+    public static ServerTiming bind(ServerTiming timing) {
+        ServerTiming previous = current();
+        if (timing == DISABLED) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(timing);
+        }
+        return previous;
+    }
+
+    /**
+     * Returns {@code task} bound to the current request's collector, for running on another thread.
+     */
+    public static Runnable wrap(Runnable task) {
+        ServerTiming timing = current();
+        if (timing == DISABLED) {
+            return task;
+        }
+        return () -> {
+            ServerTiming previous = bind(timing);
+            try {
+                task.run();
+            } finally {
+                bind(previous);
+            }
+        };
+    }
+
+    public Span span(String phase) {
+        if (this == DISABLED) {
+            return NOOP;
+        }
+        long started = System.nanoTime();
+        return () -> record(phase, started);
+    }
+
+    /**
+     * Adds the time since {@code startedNanos} to {@code phase}. Phases recorded more than once,
+     * such as several queries, are summed.
+     */
+    public void record(String phase, long startedNanos) {
+        if (this == DISABLED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startedNanos;
+        synchronized (phases) {
+            long[] totals = phases.computeIfAbsent(phase, key -> new long[2]);
+            totals[0] += elapsed;
+            totals[1]++;
+        }
+    }
+
+    public long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+
+    /**
+     * Formats the phases recorded so far plus the running total, e.g.
+     * {@code db;dur=4.1, openai;desc="2 calls";dur=812.0, total;dur=830.2}.
+     */
+    public String header() {
+        StringBuilder header = new StringBuilder();
+        synchronized (phases) {
+            phases.forEach((phase, totals) -> {
+                header.append(phase);
+                if (totals[1] > 1) {
+                    header.append(";desc=\"").append(totals[1]).append(" calls\"");
+                }
+                header.append(";dur=").append(millis(totals[0])).append(", ");
+            });
+        }
+        return header.append("total;dur=").append(millis(System.nanoTime() - startedNanos)).toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * A running phase. Closing it does not throw.
+     */
+    @FunctionalInterface
+    public interface Span extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
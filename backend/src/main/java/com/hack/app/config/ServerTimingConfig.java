@@ -0,0 +1,38 @@
+package com.hack.app.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class ServerTimingConfig {
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(ServerTimingProperties properties) {
+        FilterRegistrationBean<ServerTimingFilter> registration =
+            new FilterRegistrationBean<>(new ServerTimingFilter(properties));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+
+    /**
+     * Wraps the application's data source so the {@code db} phase is timed at the JDBC layer.
+     */
+    @Bean
+    public static BeanPostProcessor serverTimingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ServerTimingDataSource)) {
+                    return new ServerTimingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package com.hack.app.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Records the {@code db} phase at the JDBC boundary: waiting for a pooled connection, every
+ * statement execution and every commit or rollback. Timing here rather than around service methods
+ * also covers the flush and commit that {@code @Transactional} runs after the method returns.
+ */
+public class ServerTimingDataSource extends DelegatingDataSource {
+
+    static final String PHASE = "db";
+
+    public ServerTimingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long started = System.nanoTime();
+        try {
+            return timed(super.getConnection());
+        } finally {
+            ServerTiming.current().record(PHASE, started);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long started = System.nanoTime();
+        try {
+            return timed(super.getConnection(username, password));
+        } finally {
+            ServerTiming.current().record(PHASE, started);
+        }
+    }
+
+    private static Connection timed(Connection connection) {
+        return proxy(Connection.class, connection, (method, args) -> {
+            String name = method.getName();
+            if ("commit".equals(name) || "rollback".equals(name)) {
+                return timedCall(connection, method, args);
+            }
+            Object result = call(connection, method, args);
+            if (result instanceof CallableStatement statement) {
+                return timed(CallableStatement.class, statement);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return timed(PreparedStatement.class, statement);
+            }
+            if (result instanceof Statement statement) {
+                return timed(Statement.class, statement);
+            }
+            return result;
+        });
+    }
+
+    private static <T extends Statement> T timed(Class<T> type, T statement) {
+        return proxy(type, statement, (method, args) -> method.getName().startsWith("execute")
+            ? timedCall(statement, method, args)
+            : call(statement, method, args));
+    }
+
+    private static Object timedCall(Object target, Method method, Object[] args) throws Throwable {
+        long started = System.nanoTime();
+        try {
+            return call(target, method, args);
+        } finally {
+            ServerTiming.current().record(PHASE, started);
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler invocation = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> call(target, method, args);
+                };
+            }
+            return handler.handle(method, args);
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, invocation));
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+}
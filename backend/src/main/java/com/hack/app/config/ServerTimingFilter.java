@@ -0,0 +1,186 @@
+package com.hack.app.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.ServletResponseWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Binds a {@link ServerTiming} collector to each API request and reports it as a
+ * {@code Server-Timing} header, added just before the response commits so it covers everything up to
+ * the first byte of the body. Requests slower than {@code log-threshold} are also logged with the
+ * full breakdown once they complete, which for streams and deferred results is after the header was
+ * sent.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "Server-Timing";
+
+    private static final Logger log = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    private final ServerTimingProperties properties;
+
+    public ServerTimingFilter(ServerTimingProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        ServerTiming timing = (ServerTiming) request.getAttribute(ServerTiming.REQUEST_ATTRIBUTE);
+        boolean initial = timing == null;
+        if (initial) {
+            timing = ServerTiming.begin();
+            request.setAttribute(ServerTiming.REQUEST_ATTRIBUTE, timing);
+            response = new TimingResponse(response, timing);
+        }
+
+        ServerTiming previous = ServerTiming.bind(timing);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ServerTiming.bind(previous);
+            if (request.isAsyncStarted()) {
+                if (initial) {
+                    request.getAsyncContext().addListener(new ReportingListener(request, timing));
+                }
+            } else {
+                stamp(response);
+                if (initial) {
+                    report(request, response, timing);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stamps the header on responses without a body, which never ask for an output stream. Async
+     * dispatches see the response wrapped again by Spring, hence the walk.
+     */
+    private static void stamp(ServletResponse response) {
+        while (response instanceof ServletResponseWrapper wrapper) {
+            if (wrapper instanceof TimingResponse timingResponse) {
+                timingResponse.stamp();
+                return;
+            }
+            response = wrapper.getResponse();
+        }
+    }
+
+    private void report(HttpServletRequest request, HttpServletResponse response, ServerTiming timing) {
+        long elapsed = timing.elapsedMillis();
+        if (elapsed >= properties.getLogThreshold().toMillis()) {
+            log.warn("Slow request method={} uri={} status={} elapsedMs={} timing=\"{}\"",
+                request.getMethod(), request.getRequestURI(), response.getStatus(), elapsed, timing.header());
+        }
+    }
+
+    /**
+     * Adds the header the first time the body is about to be written or the response is otherwise
+     * committed, since headers cannot change afterwards.
+     */
+    private static final class TimingResponse extends HttpServletResponseWrapper {
+
+        private final ServerTiming timing;
+        private boolean stamped;
+
+        private TimingResponse(HttpServletResponse response, ServerTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        void stamp() {
+            if (!stamped && !isCommitted()) {
+                stamped = true;
+                setHeader(HEADER, timing.header());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            stamp();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            stamp();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            stamp();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            stamp();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            stamp();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            stamp();
+            super.sendRedirect(location);
+        }
+    }
+
+    private final class ReportingListener implements AsyncListener {
+
+        private final HttpServletRequest request;
+        private final ServerTiming timing;
+
+        private ReportingListener(HttpServletRequest request, ServerTiming timing) {
+            this.request = request;
+            this.timing = timing;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            report(request, (HttpServletResponse) event.getSuppliedResponse(), timing);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
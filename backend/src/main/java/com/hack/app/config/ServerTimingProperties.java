@@ -0,0 +1,30 @@
+package com.hack.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "server-timing")
+public class ServerTimingProperties {
+
+    private boolean enabled = true;
+    private Duration logThreshold = Duration.ofSeconds(2);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getLogThreshold() {
+        return logThreshold;
+    }
+
+    public void setLogThreshold(Duration logThreshold) {
+        this.logThreshold = logThreshold;
+    }
+}
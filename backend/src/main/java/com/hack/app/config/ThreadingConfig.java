@@ -0,0 +1,39 @@
+package com.hack.app.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+
+/**
+ * Reports which thread model serves requests. With {@code spring.threads.virtual.enabled} on a
+ * Java 21+ runtime, Spring Boot runs Tomcat request handling, MVC async work and scheduling on
+ * virtual threads, so a request blocked on a slow LLM no longer holds one of Tomcat's 200
+ * platform threads. Upstream concurrency stays bounded by {@link RoutePermits} and inbound load
+ * by {@link AdaptiveConcurrencyFilter}. On older runtimes the property has no effect.
+ */
+@Configuration
+public class ThreadingConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ThreadingConfig.class);
+
+    private final Environment environment;
+
+    public ThreadingConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportThreading() {
+        boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Request handling runs on virtual threads");
+        } else if (requested) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; "
+                + "request handling stays on platform threads", Runtime.version().feature());
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.hack.app.games.calculating;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -17,8 +20,18 @@ public class CalculatingGameService {
 
     private final List<MenuBoard> menuBoards;
     private final List<Problem> currentProblems = new ArrayList<>();
-
-    public CalculatingGameService() {
+    private final Counter sessionsStarted;
+    private final DistributionSummary correctAnswers;
+
+    public CalculatingGameService(MeterRegistry meterRegistry) {
+        this.sessionsStarted = Counter.builder("calculating.sessions.started")
+            .description("Calculating game sessions started")
+            .register(meterRegistry);
+        // Its count doubles as the number of submitted sessions.
+        this.correctAnswers = DistributionSummary.builder("calculating.sessions.correct")
+            .description("Correct answers per submitted calculating game session")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
         this.menuBoards = new ArrayList<>();
 
         menuBoards.add(new MenuBoard("카페 메뉴", List.of(
@@ -70,6 +83,7 @@ public class CalculatingGameService {
             Problem problem = generateRandomOrder(random, randomMenuBoard);
             currentProblems.add(problem);
         }
+        sessionsStarted.increment();
 
         return currentProblems.stream()
             .map(problem -> new ProblemResponse(problem.getMenuBoard(), problem.getOrders(), problem.getAnswer()))
@@ -90,6 +104,7 @@ public class CalculatingGameService {
             }
         }
 
+        correctAnswers.record(correctCount);
         return new GameResult(correctCount, score);
     }
 
@@ -1,20 +1,33 @@
 package com.hack.app.games.typing;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 
 @Service
 public class TypingGameService {
 
-    @Autowired
-    private SentenceRepository sentenceRepository;
+    private final SentenceRepository sentenceRepository;
+    private final MeterRegistry meterRegistry;
+
+    public TypingGameService(SentenceRepository sentenceRepository, MeterRegistry meterRegistry) {
+        this.sentenceRepository = sentenceRepository;
+        this.meterRegistry = meterRegistry;
+    }
 
     public Sentence getRandomSentence(java.util.List<Long> excludeIds) {
-        if (excludeIds == null || excludeIds.isEmpty()) {
-            return sentenceRepository.findRandomSentence();
-        } else {
-            return sentenceRepository.findRandomSentenceExcludingIds(excludeIds);
-        }
+        boolean excluding = excludeIds != null && !excludeIds.isEmpty();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Sentence sentence = excluding
+            ? sentenceRepository.findRandomSentenceExcludingIds(excludeIds)
+            : sentenceRepository.findRandomSentence();
+        sample.stop(Timer.builder("typing.sentence.pick")
+            .description("Random sentence queries, split by whether earlier sentences were excluded")
+            .tag("excluded", String.valueOf(excluding))
+            .tag("outcome", sentence != null ? "found" : "exhausted")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry));
+        return sentence;
     }
 
     // TODO: 게임 결과 저장 로직 구현
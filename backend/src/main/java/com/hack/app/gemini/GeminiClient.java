@@ -1,21 +1,40 @@
 package com.hack.app.gemini;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hack.app.config.HttpClientProperties;
+import com.hack.app.config.RoutePermits;
+import com.hack.app.config.ServerTiming;
+import com.hack.app.llm.LlmCallMetrics;
+import com.hack.app.llm.Priority;
+import com.hack.app.llm.RequestNotSentException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.http.HttpClient;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @Component
 public class GeminiClient {
@@ -25,12 +44,25 @@ public class GeminiClient {
     private final GeminiProperties properties;
     private final RestClient restClient;
     private final ObjectMapper objectMapper;
+    private final RoutePermits connectionPermits;
+    private final LlmCallMetrics callMetrics;
+    private final GeminiContextCache contextCache;
+    private final Usage cacheHits;
+    private final Usage cacheMisses;
+    private final DistributionSummary cachedTokens;
 
-    public GeminiClient(GeminiProperties properties) {
+    public GeminiClient(GeminiProperties properties,
+                        HttpClient llmHttpClient,
+                        ObjectMapper objectMapper,
+                        HttpClientProperties httpProperties,
+                        MeterRegistry meterRegistry) {
         this.properties = properties;
-        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-        requestFactory.setConnectTimeout((int) properties.getTimeout().toMillis());
-        requestFactory.setReadTimeout((int) properties.getTimeout().toMillis());
+        this.objectMapper = objectMapper;
+        this.connectionPermits = new RoutePermits("Gemini", httpProperties, meterRegistry);
+        this.callMetrics = new LlmCallMetrics("gemini", meterRegistry);
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(llmHttpClient);
+        requestFactory.setReadTimeout(properties.getTimeout());
 
         this.restClient = RestClient.builder()
             .baseUrl(properties.getBaseUrl())
@@ -38,9 +70,13 @@ public class GeminiClient {
             .defaultHeader("Accept", MediaType.APPLICATION_JSON_VALUE)
             .requestFactory(requestFactory)
             .build();
-
-        this.objectMapper = new ObjectMapper()
-            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.contextCache = new GeminiContextCache(restClient, properties, Clock.systemUTC());
+        this.cacheHits = new Usage(meterRegistry, "hit");
+        this.cacheMisses = new Usage(meterRegistry, "miss");
+        this.cachedTokens = DistributionSummary.builder("gemini.tokens.cached")
+            .description("Prompt tokens Gemini served from cached content per request")
+            .publishPercentiles(0.5, 0.95)
+            .register(meterRegistry);
     }
 
     public boolean isEnabled() {
@@ -48,58 +84,316 @@ public class GeminiClient {
     }
 
     public Optional<String> generateContent(String prompt, @Nullable Map<String, Object> generationConfig) {
+        return generateContent(null, prompt, generationConfig);
+    }
+
+    /**
+     * Sends {@code systemInstruction} through a cached content entry when context caching is enabled,
+     * so only {@code prompt} is sent and billed as fresh input on each call.
+     */
+    public Optional<String> generateContent(@Nullable String systemInstruction,
+                                            String prompt,
+                                            @Nullable Map<String, Object> generationConfig) {
+        return generateContent(systemInstruction, List.of(Turn.user(prompt)), generationConfig, Priority.SURVEY);
+    }
+
+    /**
+     * Multi-turn variant; {@code turns} alternate between {@code user} and {@code model} roles and
+     * end with the user turn to answer. {@code priority} decides the order in which the call gets a
+     * connection slot when Gemini is saturated; if none frees up in time it throws
+     * {@link RequestNotSentException}.
+     */
+    public Optional<String> generateContent(@Nullable String systemInstruction,
+                                            List<Turn> turns,
+                                            @Nullable Map<String, Object> generationConfig,
+                                            Priority priority) {
         if (!isEnabled()) {
             log.warn("Gemini API key is not configured. Skipping generateContent call.");
             return Optional.empty();
         }
 
-        Map<String, Object> request = new HashMap<>();
-        request.put("contents", List.of(Map.of(
-            "role", "user",
-            "parts", List.of(Map.of("text", prompt))
-        )));
-        if (generationConfig != null && !generationConfig.isEmpty()) {
-            request.put("generationConfig", generationConfig);
+        if (!connectionPermits.acquire(priority, properties.getTimeout())) {
+            throw new RequestNotSentException("No Gemini connection slot freed up in time");
         }
+        try {
+            Optional<String> cachedContent = contextCache.resolve(systemInstruction);
+            AtomicBoolean cacheRejected = new AtomicBoolean();
+            Optional<GeminiResponse> parsed = postGenerate(
+                buildRequest(systemInstruction, cachedContent, turns, generationConfig), cachedContent, cacheRejected);
+            if (parsed.isEmpty() && cacheRejected.get()) {
+                parsed = postGenerate(
+                    buildRequest(systemInstruction, Optional.empty(), turns, generationConfig), Optional.empty(), cacheRejected);
+            }
+            return parsed.flatMap(this::firstText);
+        } catch (Exception ex) {
+            if (Thread.currentThread().isInterrupted()) {
+                log.debug("Gemini generateContent call was cancelled");
+            } else {
+                log.error("Failed to call Gemini generateContent API", ex);
+            }
+            return Optional.empty();
+        } finally {
+            connectionPermits.release();
+        }
+    }
 
+    private Optional<GeminiResponse> postGenerate(Map<String, Object> request,
+                                                  Optional<String> cachedContent,
+                                                  AtomicBoolean cacheRejected) {
+        long started = System.nanoTime();
+        GeminiResponse parsed;
         try {
-            ResponseEntity<byte[]> response = restClient.post()
+            parsed = restClient.post()
                 .uri(uriBuilder -> uriBuilder
                     .path("/models/{model}:generateContent")
                     .queryParam("key", properties.getApiKey())
                     .queryParam("alt", "json")
                     .build(properties.getModel()))
                 .body(request)
-                .retrieve()
-                .toEntity(byte[].class);
+                .exchange((clientRequest, clientResponse) -> {
+                    if (clientResponse.getStatusCode().isError()) {
+                        callMetrics.record("generate", LlmCallMetrics.outcome(clientResponse.getStatusCode().value()), started);
+                        log.error("Gemini generateContent API returned status {}", clientResponse.getStatusCode());
+                        cacheRejected.set(rejectCachedContent(clientResponse.getStatusCode(), cachedContent));
+                        return null;
+                    }
+                    try (InputStream body = clientResponse.getBody()) {
+                        GeminiResponse response = objectMapper.readValue(body, GeminiResponse.class);
+                        callMetrics.record("generate", "success", started);
+                        return response;
+                    }
+                });
+        } catch (RuntimeException ex) {
+            callMetrics.record("generate", LlmCallMetrics.outcome(ex), started);
+            throw ex;
+        } finally {
+            ServerTiming.current().record("gemini", started);
+        }
+        if (parsed != null) {
+            recordUsage(parsed.usageMetadata(), System.nanoTime() - started);
+        }
+        return Optional.ofNullable(parsed);
+    }
 
-            byte[] body = response.getBody();
-            if (body == null || body.length == 0) {
-                return Optional.empty();
-            }
+    /**
+     * Calls {@code streamGenerateContent} over SSE and hands every text fragment to {@code onText}
+     * as it arrives. Returns the concatenated text once the stream ends. If {@code onText} throws,
+     * the connection is closed and the exception is rethrown.
+     */
+    public Optional<String> streamGenerateContent(String prompt,
+                                                  @Nullable Map<String, Object> generationConfig,
+                                                  Consumer<String> onText) {
+        return streamGenerateContent(null, prompt, generationConfig, onText);
+    }
+
+    public Optional<String> streamGenerateContent(@Nullable String systemInstruction,
+                                                  String prompt,
+                                                  @Nullable Map<String, Object> generationConfig,
+                                                  Consumer<String> onText) {
+        return streamGenerateContent(systemInstruction, prompt, generationConfig, Priority.SURVEY, onText);
+    }
+
+    public Optional<String> streamGenerateContent(@Nullable String systemInstruction,
+                                                  String prompt,
+                                                  @Nullable Map<String, Object> generationConfig,
+                                                  Priority priority,
+                                                  Consumer<String> onText) {
+        if (!isEnabled()) {
+            log.warn("Gemini API key is not configured. Skipping streamGenerateContent call.");
+            return Optional.empty();
+        }
 
-            String raw = new String(body, StandardCharsets.UTF_8);
-            GeminiResponse parsed = objectMapper.readValue(raw, GeminiResponse.class);
-            if (parsed.candidates() == null || parsed.candidates().isEmpty()) {
-                return Optional.empty();
+        if (!connectionPermits.acquire(priority, properties.getTimeout())) {
+            throw new RequestNotSentException("No Gemini connection slot freed up in time");
+        }
+        try {
+            Optional<String> cachedContent = contextCache.resolve(systemInstruction);
+            Map<String, Object> request = buildRequest(systemInstruction, cachedContent,
+                List.of(Turn.user(prompt)), generationConfig);
+            AtomicReference<GeminiResponse.UsageMetadata> usage = new AtomicReference<>();
+            long started = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            String text;
+            try {
+                text = restClient.post()
+                    .uri(uriBuilder -> uriBuilder
+                        .path("/models/{model}:streamGenerateContent")
+                        .queryParam("key", properties.getApiKey())
+                        .queryParam("alt", "sse")
+                        .build(properties.getModel()))
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .body(request)
+                    .exchange((clientRequest, clientResponse) -> {
+                        if (clientResponse.getStatusCode().isError()) {
+                            recorded.set(true);
+                            callMetrics.record("stream", LlmCallMetrics.outcome(clientResponse.getStatusCode().value()), started);
+                            log.error("Gemini streamGenerateContent API returned status {}", clientResponse.getStatusCode());
+                            rejectCachedContent(clientResponse.getStatusCode(), cachedContent);
+                            return null;
+                        }
+                        try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(clientResponse.getBody(), StandardCharsets.UTF_8))) {
+                            String events = readEvents(reader, onText, usage);
+                            recorded.set(true);
+                            callMetrics.record("stream", "success", started);
+                            return events;
+                        }
+                    });
+            } catch (RuntimeException ex) {
+                if (!recorded.get()) {
+                    callMetrics.record("stream", LlmCallMetrics.outcome(ex), started);
+                }
+                throw ex;
+            } finally {
+                ServerTiming.current().record("gemini", started);
+            }
+            if (text != null) {
+                recordUsage(usage.get(), System.nanoTime() - started);
             }
 
-            return parsed.candidates().stream()
-                .map(GeminiResponse.Candidate::content)
-                .filter(content -> content != null && content.parts() != null)
-                .flatMap(content -> content.parts().stream())
-                .map(GeminiResponse.Part::text)
-                .filter(text -> text != null && !text.isBlank())
-                .findFirst();
+            return Optional.ofNullable(text).filter(value -> !value.isBlank());
+        } catch (CancellationException ex) {
+            throw ex;
         } catch (Exception ex) {
-            log.error("Failed to call Gemini generateContent API", ex);
+            if (Thread.currentThread().isInterrupted()) {
+                log.debug("Gemini streamGenerateContent call was cancelled");
+            } else {
+                log.error("Failed to call Gemini streamGenerateContent API", ex);
+            }
             return Optional.empty();
+        } finally {
+            connectionPermits.release();
         }
     }
 
-    public record GeminiResponse(List<Candidate> candidates) {
+    private String readEvents(BufferedReader reader,
+                              Consumer<String> onText,
+                              AtomicReference<GeminiResponse.UsageMetadata> usage) throws IOException {
+        StringBuilder text = new StringBuilder();
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("data:")) {
+                data.append(line.substring(5).trim());
+            } else if (line.isEmpty() && !data.isEmpty()) {
+                dispatch(data.toString(), text, onText, usage);
+                data.setLength(0);
+            }
+        }
+        if (!data.isEmpty()) {
+            dispatch(data.toString(), text, onText, usage);
+        }
+        return text.toString();
+    }
+
+    private void dispatch(String data,
+                          StringBuilder text,
+                          Consumer<String> onText,
+                          AtomicReference<GeminiResponse.UsageMetadata> usage) throws IOException {
+        GeminiResponse event = objectMapper.readValue(data, GeminiResponse.class);
+        if (event.usageMetadata() != null) {
+            usage.set(event.usageMetadata());
+        }
+        Optional<String> chunk = firstText(event);
+        if (chunk.isPresent()) {
+            text.append(chunk.get());
+            onText.accept(chunk.get());
+        }
+    }
+
+    private Map<String, Object> buildRequest(@Nullable String systemInstruction,
+                                             Optional<String> cachedContent,
+                                             List<Turn> turns,
+                                             @Nullable Map<String, Object> generationConfig) {
+        Map<String, Object> request = new HashMap<>();
+        if (cachedContent.isPresent()) {
+            request.put("cachedContent", cachedContent.get());
+        } else if (systemInstruction != null && !systemInstruction.isBlank()) {
+            request.put("systemInstruction", Map.of("parts", List.of(Map.of("text", systemInstruction))));
+        }
+        request.put("contents", turns.stream()
+            .map(turn -> Map.of(
+                "role", turn.role(),
+                "parts", List.of(Map.of("text", turn.text()))
+            ))
+            .toList());
+        if (generationConfig != null && !generationConfig.isEmpty()) {
+            request.put("generationConfig", generationConfig);
+        }
+        return request;
+    }
+
+    private boolean rejectCachedContent(HttpStatusCode status, Optional<String> cachedContent) {
+        if (!status.is4xxClientError() || cachedContent.isEmpty()) {
+            return false;
+        }
+        log.warn("Gemini rejected cached content {}; dropping it", cachedContent.get());
+        contextCache.invalidate(cachedContent.get());
+        return true;
+    }
+
+    private void recordUsage(@Nullable GeminiResponse.UsageMetadata usage, long latencyNanos) {
+        int cached = usage == null || usage.cachedContentTokenCount() == null ? 0 : usage.cachedContentTokenCount();
+        int input = usage == null || usage.promptTokenCount() == null ? 0 : usage.promptTokenCount();
+        (cached > 0 ? cacheHits : cacheMisses).record(input, latencyNanos);
+        cachedTokens.record(cached);
+        log.debug("Gemini usage promptTokens={} cachedTokens={} latency={}ms",
+            input, cached, latencyNanos / 1_000_000);
+    }
+
+    private Optional<String> firstText(@Nullable GeminiResponse parsed) {
+        if (parsed == null || parsed.candidates() == null || parsed.candidates().isEmpty()) {
+            return Optional.empty();
+        }
+
+        return parsed.candidates().stream()
+            .map(GeminiResponse.Candidate::content)
+            .filter(content -> content != null && content.parts() != null)
+            .flatMap(content -> content.parts().stream())
+            .map(GeminiResponse.Part::text)
+            .filter(text -> text != null && !text.isBlank())
+            .findFirst();
+    }
+
+    public record Turn(String role, String text) {
+        public static Turn user(String text) {
+            return new Turn("user", text);
+        }
+
+        public static Turn model(String text) {
+            return new Turn("model", text);
+        }
+    }
+
+    public record GeminiResponse(List<Candidate> candidates, UsageMetadata usageMetadata) {
         public record Candidate(Content content) {}
         public record Content(List<Part> parts) {}
         public record Part(String text) {}
+        public record UsageMetadata(Integer promptTokenCount, Integer cachedContentTokenCount,
+                                    Integer candidatesTokenCount, Integer totalTokenCount) {}
+    }
+
+    private static final class Usage {
+
+        private final DistributionSummary inputTokens;
+        private final Timer latency;
+
+        private Usage(MeterRegistry meterRegistry, String cache) {
+            this.inputTokens = DistributionSummary.builder("gemini.tokens.input")
+                .description("Prompt tokens Gemini reported per request, including cached ones")
+                .tag("cache", cache)
+                .publishPercentiles(0.5, 0.95)
+                .register(meterRegistry);
+            this.latency = Timer.builder("gemini.generate")
+                .description("Gemini generate latency split by whether cached content was used")
+                .tag("cache", cache)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        }
+
+        private void record(int tokens, long latencyNanos) {
+            inputTokens.record(tokens);
+            latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,171 @@
+package com.hack.app.gemini;
+
+import com.hack.app.llm.TokenEstimator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestClient;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps one {@code cachedContents} entry per static system instruction so generate calls only send
+ * the per-request delta. Entries are extended shortly before they expire. While an entry is being
+ * created, or after creation failed, callers get nothing back and send the instruction inline.
+ */
+final class GeminiContextCache {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiContextCache.class);
+
+    private final RestClient restClient;
+    private final GeminiProperties properties;
+    private final Clock clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    GeminiContextCache(RestClient restClient, GeminiProperties properties, Clock clock) {
+        this.restClient = restClient;
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    Optional<String> resolve(String systemInstruction) {
+        GeminiProperties.ContextCache cache = properties.getContextCache();
+        if (!cache.isEnabled() || systemInstruction == null || systemInstruction.isBlank()) {
+            return Optional.empty();
+        }
+
+        Entry entry = entries.computeIfAbsent(digest(properties.getModel() + '\n' + systemInstruction), key -> new Entry());
+        Instant now = clock.instant();
+        String current = entry.usableName(now);
+        if (current != null && now.isBefore(entry.expiresAt.minus(cache.getRefreshBefore()))) {
+            return Optional.of(current);
+        }
+        if (!entry.lock.tryLock()) {
+            return Optional.ofNullable(current);
+        }
+        try {
+            current = entry.usableName(now);
+            if (current != null && now.isBefore(entry.expiresAt.minus(cache.getRefreshBefore()))) {
+                return Optional.of(current);
+            }
+            if (entry.retryAt != null && now.isBefore(entry.retryAt)) {
+                return Optional.ofNullable(current);
+            }
+            if (TokenEstimator.estimate(systemInstruction) < cache.getMinTokens()) {
+                log.info("System instruction is below {} tokens; Gemini context caching stays off for it",
+                    cache.getMinTokens());
+                entry.retryAt = Instant.MAX;
+                return Optional.empty();
+            }
+
+            CachedContent stored = current != null ? extend(current) : null;
+            if (stored == null) {
+                stored = create(systemInstruction);
+            }
+            if (stored == null || stored.name() == null) {
+                entry.retryAt = now.plus(cache.getRetryAfterFailure());
+                return Optional.ofNullable(current);
+            }
+            entry.name = stored.name();
+            entry.expiresAt = stored.expireTime() != null ? stored.expireTime() : now.plus(cache.getTtl());
+            entry.retryAt = null;
+            return Optional.of(entry.name);
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * Drops an entry Gemini no longer accepts so the next call creates a fresh one.
+     */
+    void invalidate(String name) {
+        entries.values().forEach(entry -> {
+            if (name.equals(entry.name)) {
+                entry.name = null;
+                entry.retryAt = null;
+            }
+        });
+    }
+
+    private CachedContent create(String systemInstruction) {
+        Map<String, Object> request = Map.of(
+            "model", "models/" + properties.getModel(),
+            "systemInstruction", Map.of("parts", List.of(Map.of("text", systemInstruction))),
+            "ttl", ttl()
+        );
+        try {
+            CachedContent created = restClient.post()
+                .uri(uriBuilder -> uriBuilder
+                    .path("/cachedContents")
+                    .queryParam("key", properties.getApiKey())
+                    .build())
+                .body(request)
+                .retrieve()
+                .body(CachedContent.class);
+            log.info("Created Gemini cached content name={} expireTime={} tokens={}",
+                created == null ? null : created.name(),
+                created == null ? null : created.expireTime(),
+                created == null || created.usageMetadata() == null ? null : created.usageMetadata().totalTokenCount());
+            return created;
+        } catch (Exception ex) {
+            log.warn("Failed to create Gemini cached content; sending the system instruction inline", ex);
+            return null;
+        }
+    }
+
+    private CachedContent extend(String name) {
+        try {
+            return restClient.patch()
+                .uri(uriBuilder -> uriBuilder
+                    .path("/" + name)
+                    .queryParam("key", properties.getApiKey())
+                    .queryParam("updateMask", "ttl")
+                    .build())
+                .body(Map.of("ttl", ttl()))
+                .retrieve()
+                .body(CachedContent.class);
+        } catch (Exception ex) {
+            log.warn("Failed to extend Gemini cached content {}; creating a new one", name, ex);
+            return null;
+        }
+    }
+
+    private String ttl() {
+        return properties.getContextCache().getTtl().toSeconds() + "s";
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private static final class Entry {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile String name;
+        private volatile Instant expiresAt = Instant.EPOCH;
+        private volatile Instant retryAt;
+
+        private String usableName(Instant now) {
+            String current = name;
+            return current != null && now.isBefore(expiresAt) ? current : null;
+        }
+    }
+
+    record CachedContent(String name, Instant expireTime, UsageMetadata usageMetadata) {
+        record UsageMetadata(Integer totalTokenCount) {}
+    }
+}
@@ -13,6 +13,7 @@ public class GeminiProperties {
     private String baseUrl = "https://generativelanguage.googleapis.com/v1beta";
     private String model = "gemini-1.5-flash";
     private Duration timeout = Duration.ofSeconds(15);
+    private final ContextCache contextCache = new ContextCache();
 
     public String getApiKey() {
         return apiKey;
@@ -45,4 +46,57 @@ public class GeminiProperties {
     public void setTimeout(Duration timeout) {
         this.timeout = timeout;
     }
+
+    public ContextCache getContextCache() {
+        return contextCache;
+    }
+
+    public static class ContextCache {
+
+        private boolean enabled = false;
+        private Duration ttl = Duration.ofHours(1);
+        private Duration refreshBefore = Duration.ofMinutes(5);
+        private int minTokens = 1024;
+        private Duration retryAfterFailure = Duration.ofMinutes(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getRefreshBefore() {
+            return refreshBefore;
+        }
+
+        public void setRefreshBefore(Duration refreshBefore) {
+            this.refreshBefore = refreshBefore;
+        }
+
+        public int getMinTokens() {
+            return minTokens;
+        }
+
+        public void setMinTokens(int minTokens) {
+            this.minTokens = minTokens;
+        }
+
+        public Duration getRetryAfterFailure() {
+            return retryAfterFailure;
+        }
+
+        public void setRetryAfterFailure(Duration retryAfterFailure) {
+            this.retryAfterFailure = retryAfterFailure;
+        }
+    }
 }
@@ -0,0 +1,95 @@
+package com.hack.app.gemini;
+
+import com.hack.app.llm.LlmProvider;
+import com.hack.app.llm.LlmRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Gemini behind the gateway. Translates the neutral JSON Schema into Gemini's OpenAPI subset
+ * (uppercase types, enum format, explicit property ordering).
+ */
+@Component
+public class GeminiProvider implements LlmProvider {
+
+    private final GeminiClient geminiClient;
+
+    public GeminiProvider(GeminiClient geminiClient) {
+        this.geminiClient = geminiClient;
+    }
+
+    @Override
+    public String name() {
+        return "gemini";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return geminiClient.isEnabled();
+    }
+
+    @Override
+    public Optional<String> complete(LlmRequest request) {
+        return geminiClient.generateContent(request.systemInstruction(), turns(request), generationConfig(request),
+            request.priority());
+    }
+
+    @Override
+    public Optional<String> stream(LlmRequest request, Consumer<String> onText) {
+        if (request.messages().size() != 1) {
+            return LlmProvider.super.stream(request, onText);
+        }
+        return geminiClient.streamGenerateContent(request.systemInstruction(),
+            request.messages().get(0).content(), generationConfig(request), request.priority(), onText);
+    }
+
+    private static List<GeminiClient.Turn> turns(LlmRequest request) {
+        return request.messages().stream()
+            .map(message -> message.role() == LlmRequest.Role.USER
+                ? GeminiClient.Turn.user(message.content())
+                : GeminiClient.Turn.model(message.content()))
+            .toList();
+    }
+
+    private static Map<String, Object> generationConfig(LlmRequest request) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("temperature", request.temperature());
+        if (request.responseSchema() != null) {
+            config.put("responseMimeType", "application/json");
+            config.put("responseSchema", toGeminiSchema(request.responseSchema().schema()));
+        }
+        return config;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> toGeminiSchema(Map<String, Object> schema) {
+        Map<String, Object> converted = new LinkedHashMap<>();
+        schema.forEach((key, value) -> {
+            switch (key) {
+                case "type" -> converted.put(key, String.valueOf(value).toUpperCase(Locale.ROOT));
+                case "items" -> converted.put(key, toGeminiSchema((Map<String, Object>) value));
+                case "properties" -> {
+                    Map<String, Object> properties = new LinkedHashMap<>();
+                    ((Map<String, Object>) value).forEach((name, property) ->
+                        properties.put(name, toGeminiSchema((Map<String, Object>) property)));
+                    converted.put(key, properties);
+                    converted.put("propertyOrdering", new ArrayList<>(properties.keySet()));
+                }
+                case "additionalProperties" -> {
+                }
+                default -> converted.put(key, value);
+            }
+        });
+        if (converted.containsKey("enum")) {
+            converted.put("format", "enum");
+        }
+        return converted;
+    }
+}
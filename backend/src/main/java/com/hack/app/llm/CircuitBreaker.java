@@ -0,0 +1,83 @@
+package com.hack.app.llm;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Consecutive-failure breaker. After {@code failureThreshold} failures in a row calls are refused
+ * for {@code openDuration}; then a single probe is let through and its outcome closes or reopens it.
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openedAt = Instant.EPOCH;
+    private boolean probeInFlight;
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    synchronized boolean tryAcquire() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> {
+                if (clock.instant().isBefore(openedAt.plus(openDuration))) {
+                    yield false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                yield true;
+            }
+            case HALF_OPEN -> {
+                if (probeInFlight) {
+                    yield false;
+                }
+                probeInFlight = true;
+                yield true;
+            }
+        };
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.instant();
+        }
+    }
+
+    /**
+     * Releases a permit whose call was abandoned without an outcome, e.g. a cancelled hedge.
+     */
+    synchronized void onIgnored() {
+        probeInFlight = false;
+    }
+
+    synchronized State state() {
+        if (state == State.OPEN && !clock.instant().isBefore(openedAt.plus(openDuration))) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+}
@@ -0,0 +1,48 @@
+package com.hack.app.llm;
+
+import java.time.Duration;
+
+/**
+ * Point in time by which an answer is still useful to the caller. Measured on the monotonic clock so
+ * wall-clock adjustments cannot stretch or shrink it.
+ */
+public final class Deadline {
+
+    /** Servlet request attribute holding the deadline resolved for the current request. */
+    public static final String REQUEST_ATTRIBUTE = "com.hack.app.llm.Deadline";
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + Math.max(0, timeout.toNanos()));
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Returns {@code timeout} shortened to the time that is left.
+     */
+    public Duration cap(Duration timeout) {
+        Duration remaining = remaining();
+        return timeout.compareTo(remaining) <= 0 ? timeout : remaining;
+    }
+
+    public Deadline earliest(Deadline other) {
+        return other == null || deadlineNanos - other.deadlineNanos <= 0 ? this : other;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline[remaining=" + remaining().toMillis() + "ms]";
+    }
+}
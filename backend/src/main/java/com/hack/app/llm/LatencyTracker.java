@@ -0,0 +1,48 @@
+package com.hack.app.llm;
+
+import java.util.Arrays;
+
+/**
+ * Exponentially weighted moving average plus a p95 over the most recent successful calls.
+ */
+final class LatencyTracker {
+
+    private final double alpha;
+    private final long[] window;
+    private int size;
+    private int next;
+    private double ewmaMillis = Double.NaN;
+
+    LatencyTracker(double alpha, int windowSize) {
+        this.alpha = alpha;
+        this.window = new long[Math.max(1, windowSize)];
+    }
+
+    synchronized void record(long millis) {
+        ewmaMillis = Double.isNaN(ewmaMillis) ? millis : alpha * millis + (1 - alpha) * ewmaMillis;
+        window[next] = millis;
+        next = (next + 1) % window.length;
+        size = Math.min(size + 1, window.length);
+    }
+
+    /**
+     * Smoothed latency in milliseconds, or {@code NaN} before the first sample.
+     */
+    synchronized double ewmaMillis() {
+        return ewmaMillis;
+    }
+
+    synchronized int samples() {
+        return size;
+    }
+
+    synchronized long percentileMillis(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(window, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * size) - 1;
+        return sorted[Math.min(Math.max(index, 0), size - 1)];
+    }
+}
@@ -0,0 +1,67 @@
+package com.hack.app.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Times every HTTP exchange with one LLM provider as {@code llm.client.requests}, tagged with the
+ * operation and how it ended. Unlike the gateway's latency timer, failed and cancelled exchanges are
+ * timed too, so a slow 5xx or a timeout shows up in the same histogram as the successes.
+ */
+public final class LlmCallMetrics {
+
+    private final String provider;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public LlmCallMetrics(String provider, MeterRegistry meterRegistry) {
+        this.provider = provider;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(String operation, String outcome, long startedNanos) {
+        timers.computeIfAbsent(operation + '/' + outcome, key -> Timer.builder("llm.client.requests")
+                .description("HTTP exchanges with an LLM provider by operation and outcome")
+                .tag("provider", provider)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry))
+            .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static String outcome(int status) {
+        if (status < 400) {
+            return "success";
+        }
+        if (status == 429) {
+            return "rate_limited";
+        }
+        return status < 500 ? "client_error" : "server_error";
+    }
+
+    public static String outcome(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientResponseException response) {
+                return outcome(response.getStatusCode().value());
+            }
+            if (cause instanceof HttpTimeoutException || cause instanceof SocketTimeoutException
+                || cause instanceof TimeoutException) {
+                return "timeout";
+            }
+            if (cause instanceof CancellationException || cause instanceof InterruptedException) {
+                return "cancelled";
+            }
+        }
+        return Thread.currentThread().isInterrupted() ? "cancelled" : "error";
+    }
+}
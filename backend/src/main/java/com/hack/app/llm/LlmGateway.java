@@ -0,0 +1,604 @@
+package com.hack.app.llm;
+
+import com.hack.app.config.ServerTiming;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Single entry point for model calls. Routes each request to the preferred provider unless another
+ * one has been markedly faster for the same purpose, skips providers whose circuit breaker is open,
+ * hedges with the next provider once the primary runs past its p95 latency, and fails over when a
+ * provider returns nothing. Every call is bounded by the request deadline (or the configured
+ * default): attempts still running when it passes are cancelled, and a round where every provider
+ * failed is retried after a jittered backoff only if the backoff fits in the time left.
+ */
+@Component
+public class LlmGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmGateway.class);
+
+    private final Map<String, LlmProvider> providers = new LinkedHashMap<>();
+    private final Map<String, CircuitBreaker> breakers = new LinkedHashMap<>();
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+    private final Map<String, ProviderMeters> providerMeters = new LinkedHashMap<>();
+    private final Map<String, Counter> purposeCounters = new ConcurrentHashMap<>();
+    private final LlmGatewayProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService hedgeScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "llm-gateway-hedge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LlmGateway(List<LlmProvider> providers, LlmGatewayProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "llm-gateway-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (LlmProvider provider : providers) {
+            CircuitBreaker breaker = new CircuitBreaker(properties.getBreaker().getFailureThreshold(),
+                properties.getBreaker().getOpenDuration(), Clock.systemUTC());
+            this.providers.put(provider.name(), provider);
+            this.breakers.put(provider.name(), breaker);
+            this.providerMeters.put(provider.name(), new ProviderMeters(provider.name()));
+            Gauge.builder("llm.gateway.breaker.state", breaker, b -> b.state().ordinal())
+                .description("Circuit breaker state per provider (0 closed, 1 half-open, 2 open)")
+                .tag("provider", provider.name())
+                .register(meterRegistry);
+        }
+    }
+
+    public boolean isAvailable() {
+        return providers.values().stream().anyMatch(LlmProvider::isEnabled);
+    }
+
+    public Optional<LlmResult> complete(LlmRequest request) {
+        return completeTracked(request).result();
+    }
+
+    /**
+     * Like {@link #complete}, but also tells whether any provider may have received the request, so
+     * a caller that charged quota up front can refund a call that never left this instance: the
+     * deadline had already passed, every circuit was open, or no connection slot freed up in time.
+     * Attempts cancelled while still waiting for a slot count as sent.
+     */
+    public Completion completeTracked(LlmRequest request) {
+        Race race = race(request);
+        if (race == null) {
+            return new Completion(Optional.empty(), false);
+        }
+        CompletableFuture<Optional<LlmResult>> result = race.start();
+        try {
+            return new Completion(result.get(), race.sent());
+        } catch (InterruptedException ex) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            return new Completion(Optional.empty(), race.sent());
+        } catch (ExecutionException ex) {
+            log.warn("LLM request failed purpose={}", request.purpose(), ex.getCause());
+            return new Completion(Optional.empty(), race.sent());
+        }
+    }
+
+    /**
+     * Completes with the first successful provider result, or empty once every candidate failed.
+     * Cancelling the returned future cancels the attempts still running.
+     */
+    public CompletableFuture<Optional<LlmResult>> completeAsync(LlmRequest request) {
+        Race race = race(request);
+        return race == null ? CompletableFuture.completedFuture(Optional.empty()) : race.start();
+    }
+
+    /**
+     * Returns null when the request cannot be attempted at all.
+     */
+    @Nullable
+    private Race race(LlmRequest request) {
+        LlmRequest bounded = bounded(request);
+        if (bounded.deadline().isExpired()) {
+            counter("llm.gateway.deadline.exceeded", request).increment();
+            return null;
+        }
+        List<LlmProvider> candidates = route(bounded);
+        if (candidates.isEmpty()) {
+            log.warn("No LLM provider is available for purpose={}", request.purpose());
+            return null;
+        }
+        return new Race(bounded, candidates);
+    }
+
+    /**
+     * Streams from the first provider that accepts the request. Failover and retries only happen
+     * before the first fragment has been delivered, since fragments from two providers cannot be
+     * spliced. When the deadline passes the calling thread is interrupted, which aborts the
+     * upstream exchange, and the call returns empty.
+     */
+    public Optional<LlmResult> stream(LlmRequest request, Consumer<String> onText) {
+        LlmRequest bounded = bounded(request);
+        Deadline deadline = bounded.deadline();
+        Watchdog watchdog = new Watchdog(Thread.currentThread());
+        ScheduledFuture<?> timer = hedgeScheduler.schedule(watchdog::fire,
+            deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+        AtomicBoolean emitted = new AtomicBoolean();
+        try {
+            for (int round = 0; round < properties.getRetry().getMaxAttempts(); round++) {
+                if (round > 0) {
+                    long backoff = backoffMillis(round - 1);
+                    if (emitted.get() || backoff >= deadline.remaining().toMillis()) {
+                        break;
+                    }
+                    counter("llm.gateway.retries", request).increment();
+                    Thread.sleep(backoff);
+                }
+                Optional<LlmResult> result = streamRound(bounded, onText, emitted, watchdog);
+                if (result.isPresent() || watchdog.fired()) {
+                    return result;
+                }
+            }
+            return Optional.empty();
+        } catch (InterruptedException ex) {
+            if (!watchdog.fired()) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting to retry");
+            }
+            return Optional.empty();
+        } finally {
+            timer.cancel(false);
+            watchdog.disarm();
+            if (watchdog.fired()) {
+                log.info("LLM stream exceeded its deadline purpose={}", request.purpose());
+                counter("llm.gateway.deadline.exceeded", request).increment();
+            }
+        }
+    }
+
+    private Optional<LlmResult> streamRound(LlmRequest request,
+                                            Consumer<String> onText,
+                                            AtomicBoolean emitted,
+                                            Watchdog watchdog) {
+        List<LlmProvider> candidates = route(request);
+        for (int i = 0; i < candidates.size(); i++) {
+            LlmProvider provider = candidates.get(i);
+            CircuitBreaker breaker = breakers.get(provider.name());
+            if (!breaker.tryAcquire()) {
+                count(provider, request, Outcome.REJECTED);
+                continue;
+            }
+
+            long started = System.nanoTime();
+            Optional<String> text;
+            try {
+                text = provider.stream(request, chunk -> {
+                    emitted.set(true);
+                    onText.accept(chunk);
+                });
+            } catch (CancellationException ex) {
+                breaker.onIgnored();
+                count(provider, request, Outcome.CANCELLED);
+                if (watchdog.fired()) {
+                    return Optional.empty();
+                }
+                throw ex;
+            } catch (RequestNotSentException ex) {
+                breaker.onIgnored();
+                count(provider, request, Outcome.REJECTED);
+                log.info("LLM provider {} did not send the stream purpose={}: {}",
+                    provider.name(), request.purpose(), ex.getMessage());
+                continue;
+            } catch (RuntimeException ex) {
+                log.warn("LLM provider {} failed while streaming purpose={}", provider.name(), request.purpose(), ex);
+                text = Optional.empty();
+            }
+
+            if (text.isPresent()) {
+                onSuccess(provider, breaker, request, System.nanoTime() - started);
+                return Optional.of(new LlmResult(text.get(), provider.name()));
+            }
+            if (watchdog.fired() || Thread.currentThread().isInterrupted()) {
+                breaker.onIgnored();
+                count(provider, request, Outcome.CANCELLED);
+                if (watchdog.fired()) {
+                    return Optional.empty();
+                }
+                throw new CancellationException("Interrupted while streaming");
+            }
+            onFailure(provider, breaker, request);
+            if (emitted.get()) {
+                return Optional.empty();
+            }
+            if (i < candidates.size() - 1) {
+                counter("llm.gateway.failovers", request).increment();
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The given percentile of recent successful {@code purpose} calls to {@code provider}, once as
+     * many calls have been seen as hedging needs before it trusts the numbers.
+     */
+    public OptionalLong latencyMillis(String provider, String purpose, double percentile) {
+        LatencyTracker tracker = latencies.get(provider + '/' + purpose);
+        if (tracker == null || tracker.samples() < properties.getHedging().getMinSamples()) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(tracker.percentileMillis(percentile));
+    }
+
+    List<LlmProvider> route(LlmRequest request) {
+        List<LlmProvider> enabled = providers.values().stream()
+            .filter(LlmProvider::isEnabled)
+            .toList();
+        if (enabled.size() < 2) {
+            return enabled;
+        }
+
+        List<LlmProvider> ordered = new ArrayList<>(enabled);
+        ordered.sort(Comparator
+            .comparing((LlmProvider provider) -> breakers.get(provider.name()).state() == CircuitBreaker.State.OPEN)
+            .thenComparing(provider -> !provider.name().equals(request.preferredProvider())));
+
+        LlmProvider head = ordered.get(0);
+        double headLatency = tracker(head, request).ewmaMillis();
+        LlmProvider fastest = ordered.stream()
+            .filter(provider -> breakers.get(provider.name()).state() != CircuitBreaker.State.OPEN)
+            .filter(provider -> !Double.isNaN(tracker(provider, request).ewmaMillis()))
+            .min(Comparator.comparingDouble(provider -> tracker(provider, request).ewmaMillis()))
+            .orElse(head);
+        if (fastest != head && !Double.isNaN(headLatency)
+            && headLatency > properties.getLatencyPenaltyFactor() * tracker(fastest, request).ewmaMillis()) {
+            ordered.remove(fastest);
+            ordered.add(0, fastest);
+        }
+        return ordered;
+    }
+
+    private LlmRequest bounded(LlmRequest request) {
+        return request.deadline() != null
+            ? request
+            : request.withDeadline(Deadline.after(properties.getDefaultDeadline()));
+    }
+
+    /**
+     * Full-jitter exponential backoff: uniform between zero and the capped exponential step.
+     */
+    private long backoffMillis(int retry) {
+        LlmGatewayProperties.Retry settings = properties.getRetry();
+        long step = settings.getInitialBackoff().toMillis() << Math.min(retry, 20);
+        long cap = Math.min(settings.getMaxBackoff().toMillis(), step);
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private long hedgeDelayMillis(LlmProvider provider, LlmRequest request) {
+        LlmGatewayProperties.Hedging hedging = properties.getHedging();
+        LatencyTracker tracker = tracker(provider, request);
+        long delay = tracker.samples() >= hedging.getMinSamples()
+            ? tracker.percentileMillis(hedging.getPercentile())
+            : hedging.getMaxDelay().toMillis();
+        return Math.max(hedging.getMinDelay().toMillis(), Math.min(delay, hedging.getMaxDelay().toMillis()));
+    }
+
+    private LatencyTracker tracker(LlmProvider provider, LlmRequest request) {
+        return latencies.computeIfAbsent(provider.name() + '/' + request.purpose(),
+            key -> new LatencyTracker(properties.getEwmaAlpha(), properties.getLatencyWindow()));
+    }
+
+    private void onSuccess(LlmProvider provider, CircuitBreaker breaker, LlmRequest request, long nanos) {
+        breaker.onSuccess();
+        tracker(provider, request).record(TimeUnit.NANOSECONDS.toMillis(nanos));
+        PurposeMeters meters = providerMeters.get(provider.name()).forPurpose(request.purpose());
+        meters.latency().record(nanos, TimeUnit.NANOSECONDS);
+        meters.calls().get(Outcome.SUCCESS).increment();
+    }
+
+    private void onFailure(LlmProvider provider, CircuitBreaker breaker, LlmRequest request) {
+        breaker.onFailure();
+        count(provider, request, Outcome.FAILURE);
+        if (breaker.state() == CircuitBreaker.State.OPEN) {
+            log.warn("LLM provider {} circuit is open", provider.name());
+        }
+    }
+
+    private void count(LlmProvider provider, LlmRequest request, Outcome outcome) {
+        providerMeters.get(provider.name()).forPurpose(request.purpose()).calls().get(outcome).increment();
+    }
+
+    private Counter counter(String name, LlmRequest request) {
+        return purposeCounters.computeIfAbsent(name + '/' + request.purpose(), key -> Counter.builder(name)
+            .tag("purpose", request.purpose())
+            .register(meterRegistry));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hedgeScheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private final class Race {
+
+        private final LlmRequest request;
+        private final List<LlmProvider> candidates;
+        private final CompletableFuture<Optional<LlmResult>> outcome = new CompletableFuture<>();
+        private final List<CompletableFuture<Optional<String>>> attempts = new ArrayList<>();
+        // Hedges and retries launch from the scheduler thread, so the caller's collector is kept here.
+        private final ServerTiming timing = ServerTiming.current();
+        private int next;
+        private int running;
+        private int dispatched;
+        private int round;
+        private ScheduledFuture<?> hedge;
+        private ScheduledFuture<?> retry;
+        private ScheduledFuture<?> deadlineTimer;
+
+        private Race(LlmRequest request, List<LlmProvider> candidates) {
+            this.request = request;
+            this.candidates = candidates;
+        }
+
+        private CompletableFuture<Optional<LlmResult>> start() {
+            synchronized (this) {
+                deadlineTimer = hedgeScheduler.schedule(this::expire,
+                    request.deadline().remaining().toNanos(), TimeUnit.NANOSECONDS);
+                launchNext();
+            }
+            outcome.whenComplete((result, error) -> cancelRemaining());
+            return outcome;
+        }
+
+        private void launchNext() {
+            while (next < candidates.size() && !outcome.isDone()) {
+                LlmProvider provider = candidates.get(next++);
+                CircuitBreaker breaker = breakers.get(provider.name());
+                if (!breaker.tryAcquire()) {
+                    count(provider, request, Outcome.REJECTED);
+                    continue;
+                }
+
+                running++;
+                dispatched++;
+                long started = System.nanoTime();
+                CompletableFuture<Optional<String>> attempt;
+                ServerTiming previous = ServerTiming.bind(timing);
+                try {
+                    attempt = provider.completeAsync(request, executor);
+                } finally {
+                    ServerTiming.bind(previous);
+                }
+                attempts.add(attempt);
+                scheduleHedge(provider);
+                attempt.whenComplete((text, error) -> onAttempt(provider, breaker, started, text, error));
+                return;
+            }
+            if (running == 0 && !scheduleRetry()) {
+                outcome.complete(Optional.empty());
+            }
+        }
+
+        private boolean scheduleRetry() {
+            if (round + 1 >= properties.getRetry().getMaxAttempts() || outcome.isDone()) {
+                return false;
+            }
+            long backoff = backoffMillis(round);
+            if (backoff >= request.deadline().remaining().toMillis()) {
+                return false;
+            }
+            round++;
+            counter("llm.gateway.retries", request).increment();
+            log.debug("Retrying LLM request in {}ms purpose={}", backoff, request.purpose());
+            retry = hedgeScheduler.schedule(() -> {
+                synchronized (Race.this) {
+                    next = 0;
+                    launchNext();
+                }
+            }, backoff, TimeUnit.MILLISECONDS);
+            return true;
+        }
+
+        private void expire() {
+            if (outcome.complete(Optional.empty())) {
+                log.info("LLM request exceeded its deadline purpose={}", request.purpose());
+                counter("llm.gateway.deadline.exceeded", request).increment();
+            }
+        }
+
+        private void scheduleHedge(LlmProvider provider) {
+            if (hedge != null) {
+                hedge.cancel(false);
+                hedge = null;
+            }
+            if (!properties.getHedging().isEnabled() || next >= candidates.size()) {
+                return;
+            }
+            long delay = hedgeDelayMillis(provider, request);
+            if (delay >= request.deadline().remaining().toMillis()) {
+                return;
+            }
+            hedge = hedgeScheduler.schedule(() -> {
+                synchronized (Race.this) {
+                    if (!outcome.isDone()) {
+                        log.debug("Hedging {} after {}ms purpose={}", provider.name(), delay, request.purpose());
+                        counter("llm.gateway.hedges", request).increment();
+                        launchNext();
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void onAttempt(LlmProvider provider,
+                                            CircuitBreaker breaker,
+                                            long started,
+                                            Optional<String> text,
+                                            Throwable error) {
+            running--;
+            if (error instanceof CancellationException) {
+                breaker.onIgnored();
+                count(provider, request, Outcome.CANCELLED);
+                return;
+            }
+            if (error == null && text.isPresent()) {
+                onSuccess(provider, breaker, request, System.nanoTime() - started);
+                outcome.complete(Optional.of(new LlmResult(text.get(), provider.name())));
+                return;
+            }
+
+            if (error instanceof RequestNotSentException) {
+                dispatched--;
+                breaker.onIgnored();
+                count(provider, request, Outcome.REJECTED);
+                log.info("LLM provider {} did not send the request purpose={}: {}",
+                    provider.name(), request.purpose(), error.getMessage());
+            } else {
+                if (error != null) {
+                    log.warn("LLM provider {} failed purpose={}", provider.name(), request.purpose(), error);
+                }
+                onFailure(provider, breaker, request);
+            }
+            if (outcome.isDone()) {
+                return;
+            }
+            if (next < candidates.size()) {
+                counter("llm.gateway.failovers", request).increment();
+            }
+            launchNext();
+        }
+
+        private synchronized boolean sent() {
+            return dispatched > 0;
+        }
+
+        private void cancelRemaining() {
+            List<CompletableFuture<Optional<String>>> pending;
+            synchronized (this) {
+                for (ScheduledFuture<?> timer : new ScheduledFuture<?>[] {hedge, retry, deadlineTimer}) {
+                    if (timer != null) {
+                        timer.cancel(false);
+                    }
+                }
+                pending = List.copyOf(attempts);
+            }
+            pending.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+
+    /**
+     * The result of {@link #completeTracked}; {@code sent} is false only when no provider can have
+     * received the request.
+     */
+    public record Completion(Optional<LlmResult> result, boolean sent) {
+    }
+
+    private enum Outcome {
+        SUCCESS, FAILURE, REJECTED, CANCELLED
+    }
+
+    /**
+     * Call meters for one provider, registered once per purpose on first use rather than looked up
+     * in the registry on every call.
+     */
+    private final class ProviderMeters {
+
+        private final String provider;
+        private final Map<String, PurposeMeters> purposes = new ConcurrentHashMap<>();
+
+        private ProviderMeters(String provider) {
+            this.provider = provider;
+        }
+
+        private PurposeMeters forPurpose(String purpose) {
+            return purposes.computeIfAbsent(purpose, this::register);
+        }
+
+        private PurposeMeters register(String purpose) {
+            Timer latency = Timer.builder("llm.gateway.latency")
+                .description("Successful LLM call latency per provider and purpose")
+                .tag("provider", provider)
+                .tag("purpose", purpose)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+            Map<Outcome, Counter> calls = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                calls.put(outcome, Counter.builder("llm.gateway.calls")
+                    .description("LLM calls per provider, purpose and outcome")
+                    .tag("provider", provider)
+                    .tag("purpose", purpose)
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+            }
+            return new PurposeMeters(latency, calls);
+        }
+    }
+
+    private record PurposeMeters(Timer latency, Map<Outcome, Counter> calls) {
+    }
+
+    /**
+     * Interrupts a streaming caller once its deadline passes, and never after it has returned.
+     */
+    private static final class Watchdog {
+
+        private final Thread thread;
+        private boolean armed = true;
+        private boolean fired;
+
+        private Watchdog(Thread thread) {
+            this.thread = thread;
+        }
+
+        private synchronized void fire() {
+            if (armed) {
+                fired = true;
+                thread.interrupt();
+            }
+        }
+
+        private synchronized boolean fired() {
+            return fired;
+        }
+
+        private synchronized void disarm() {
+            armed = false;
+            if (fired) {
+                Thread.interrupted();
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.hack.app.llm;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "llm.gateway")
+public class LlmGatewayProperties {
+
+    private double ewmaAlpha = 0.2;
+    private int latencyWindow = 200;
+    private double latencyPenaltyFactor = 2.0;
+    private Duration defaultDeadline = Duration.ofSeconds(120);
+    private final Breaker breaker = new Breaker();
+    private final Retry retry = new Retry();
+    private final Hedging hedging = new Hedging();
+
+    public double getEwmaAlpha() {
+        return ewmaAlpha;
+    }
+
+    public void setEwmaAlpha(double ewmaAlpha) {
+        this.ewmaAlpha = ewmaAlpha;
+    }
+
+    public int getLatencyWindow() {
+        return latencyWindow;
+    }
+
+    public void setLatencyWindow(int latencyWindow) {
+        this.latencyWindow = latencyWindow;
+    }
+
+    public double getLatencyPenaltyFactor() {
+        return latencyPenaltyFactor;
+    }
+
+    public void setLatencyPenaltyFactor(double latencyPenaltyFactor) {
+        this.latencyPenaltyFactor = latencyPenaltyFactor;
+    }
+
+    public Duration getDefaultDeadline() {
+        return defaultDeadline;
+    }
+
+    public void setDefaultDeadline(Duration defaultDeadline) {
+        this.defaultDeadline = defaultDeadline;
+    }
+
+    public Breaker getBreaker() {
+        return breaker;
+    }
+
+    public Hedging getHedging() {
+        return hedging;
+    }
+
+    public Retry getRetry() {
+        return retry;
+    }
+
+    public static class Breaker {
+
+        private int failureThreshold = 5;
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+    }
+
+    public static class Hedging {
+
+        private boolean enabled = true;
+        private double percentile = 0.95;
+        private int minSamples = 20;
+        private Duration minDelay = Duration.ofSeconds(2);
+        private Duration maxDelay = Duration.ofSeconds(20);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+    }
+
+    public static class Retry {
+
+        private int maxAttempts = 2;
+        private Duration initialBackoff = Duration.ofMillis(250);
+        private Duration maxBackoff = Duration.ofSeconds(2);
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+    }
+}
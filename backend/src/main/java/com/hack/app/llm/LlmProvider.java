@@ -0,0 +1,55 @@
+package com.hack.app.llm;
+
+import com.hack.app.config.ServerTiming;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+
+/**
+ * One upstream model API behind {@link LlmGateway}. Implementations report failures as an empty
+ * result; the gateway turns those into circuit-breaker and failover decisions. A call that gave up
+ * before reaching the upstream throws {@link RequestNotSentException} instead.
+ */
+public interface LlmProvider {
+
+    String name();
+
+    boolean isEnabled();
+
+    Optional<String> complete(LlmRequest request);
+
+    /**
+     * Runs {@link #complete} on {@code executor}. Cancelling the returned future interrupts the call.
+     */
+    default CompletableFuture<Optional<String>> completeAsync(LlmRequest request, Executor executor) {
+        CompletableFuture<Optional<String>> result = new CompletableFuture<>();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                result.complete(complete(request));
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+            return null;
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        executor.execute(ServerTiming.wrap(task));
+        return result;
+    }
+
+    /**
+     * Streams text fragments to {@code onText}. Providers without streaming support deliver the
+     * whole completion as a single fragment.
+     */
+    default Optional<String> stream(LlmRequest request, Consumer<String> onText) {
+        Optional<String> text = complete(request);
+        text.ifPresent(onText);
+        return text;
+    }
+}
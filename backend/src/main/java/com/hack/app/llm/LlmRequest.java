@@ -0,0 +1,68 @@
+package com.hack.app.llm;
+
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provider-neutral completion request. {@code responseSchema} is plain JSON Schema with lowercase
+ * types; each provider translates it to its own structured-output dialect. Without a
+ * {@code deadline} the gateway applies its default one; {@code priority} defaults to interactive.
+ */
+public record LlmRequest(
+    String purpose,
+    @Nullable String preferredProvider,
+    @Nullable String systemInstruction,
+    List<Message> messages,
+    double temperature,
+    @Nullable ResponseSchema responseSchema,
+    @Nullable Deadline deadline,
+    Priority priority
+) {
+
+    public LlmRequest {
+        messages = List.copyOf(messages);
+        priority = priority == null ? Priority.INTERACTIVE : priority;
+    }
+
+    public static LlmRequest of(String purpose, String preferredProvider, String systemInstruction,
+                                String userMessage, double temperature) {
+        return new LlmRequest(purpose, preferredProvider, systemInstruction,
+            List.of(Message.user(userMessage)), temperature, null, null, Priority.INTERACTIVE);
+    }
+
+    public LlmRequest withResponseSchema(String name, Map<String, Object> schema) {
+        return new LlmRequest(purpose, preferredProvider, systemInstruction, messages, temperature,
+            new ResponseSchema(name, schema), deadline, priority);
+    }
+
+    public LlmRequest withDeadline(@Nullable Deadline deadline) {
+        return new LlmRequest(purpose, preferredProvider, systemInstruction, messages, temperature,
+            responseSchema, deadline, priority);
+    }
+
+    public LlmRequest withPriority(Priority priority) {
+        return new LlmRequest(purpose, preferredProvider, systemInstruction, messages, temperature,
+            responseSchema, deadline, priority);
+    }
+
+    public record Message(Role role, String content) {
+
+        public static Message user(String content) {
+            return new Message(Role.USER, content);
+        }
+
+        public static Message assistant(String content) {
+            return new Message(Role.ASSISTANT, content);
+        }
+    }
+
+    public enum Role {
+        USER,
+        ASSISTANT
+    }
+
+    public record ResponseSchema(String name, Map<String, Object> schema) {
+    }
+}
@@ -0,0 +1,4 @@
+package com.hack.app.llm;
+
+public record LlmResult(String text, String provider) {
+}
@@ -0,0 +1,14 @@
+package com.hack.app.llm;
+
+/**
+ * Outbound scheduling class for model calls, highest first. When a provider's connection slots are
+ * exhausted, waiting calls are admitted in this order.
+ */
+public enum Priority {
+    /** A person is waiting on the answer right now, e.g. finance chat. */
+    INTERACTIVE,
+    /** Survey submissions and the speculative work that backs them. */
+    SURVEY,
+    /** Precompute and housekeeping nobody is waiting on. */
+    BACKGROUND
+}
@@ -0,0 +1,126 @@
+package com.hack.app.llm;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A template compiled once into alternating literal and {@code ${slot}} segments so that
+ * rendering is a single append pass. Slots without a value are rendered verbatim. The
+ * {@link #fingerprint()} changes with the source text, so caches of rendered output can tell
+ * versions apart after a hot reload.
+ */
+public final class PromptTemplate {
+
+    private static final int SLOT_LENGTH_HINT = 64;
+
+    private final String name;
+    private final String fingerprint;
+    private final String[] literals;
+    private final String[] slots;
+    private final int literalLength;
+    private volatile int renderedLengthHint;
+
+    private PromptTemplate(String name, String fingerprint, List<String> literals, List<String> slots) {
+        this.name = name;
+        this.fingerprint = fingerprint;
+        this.literals = literals.toArray(String[]::new);
+        this.slots = slots.toArray(String[]::new);
+        this.literalLength = literals.stream().mapToInt(String::length).sum();
+        this.renderedLengthHint = literalLength + this.slots.length * SLOT_LENGTH_HINT;
+    }
+
+    public static PromptTemplate compile(String name, String text) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int index = 0;
+        while (index < text.length()) {
+            int open = text.indexOf("${", index);
+            int close = open < 0 ? -1 : text.indexOf('}', open + 2);
+            if (open < 0 || close < 0) {
+                literal.append(text, index, text.length());
+                break;
+            }
+            String slot = text.substring(open + 2, close);
+            if (!isSlotName(slot)) {
+                literal.append(text, index, open + 2);
+                index = open + 2;
+                continue;
+            }
+            literal.append(text, index, open);
+            literals.add(literal.toString());
+            literal.setLength(0);
+            slots.add(slot);
+            index = close + 1;
+        }
+        literals.add(literal.toString());
+        return new PromptTemplate(name, fingerprint(text), literals, slots);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Short hex digest of the source text.
+     */
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    public Set<String> slots() {
+        return new LinkedHashSet<>(List.of(slots));
+    }
+
+    public int literalLength() {
+        return literalLength;
+    }
+
+    public String render(Map<String, String> values) {
+        StringBuilder builder = new StringBuilder(renderedLengthHint);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]);
+            String value = values.get(slots[i]);
+            if (value == null) {
+                builder.append("${").append(slots[i]).append('}');
+            } else {
+                builder.append(value);
+            }
+        }
+        builder.append(literals[slots.length]);
+
+        if (builder.length() > renderedLengthHint) {
+            renderedLengthHint = builder.length() + builder.length() / 8;
+        }
+        return builder.toString();
+    }
+
+    private static String fingerprint(String text) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 6);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private static boolean isSlotName(String slot) {
+        if (slot.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < slot.length(); i++) {
+            char ch = slot.charAt(i);
+            if (!(Character.isLetterOrDigit(ch) || ch == '_' || ch == '-' || ch == '.')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,97 @@
+package com.hack.app.llm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Loads a compiled {@link PromptTemplate} from {@code classpath:prompts/<path>}. When an override
+ * directory contains the same relative path, that file wins and is recompiled whenever its
+ * modification time changes, checked at most once per {@code checkInterval}.
+ */
+public class PromptTemplateSource {
+
+    private static final Logger log = LoggerFactory.getLogger(PromptTemplateSource.class);
+
+    private final String path;
+    private final PromptTemplate bundled;
+    @Nullable
+    private final Path overrideFile;
+    private final long checkIntervalNanos;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile PromptTemplate current;
+    private volatile FileTime loadedModifiedTime;
+    private volatile long nextCheckNanos;
+
+    public PromptTemplateSource(String path, @Nullable Path overrideDir, Duration checkInterval) {
+        this.path = path;
+        this.bundled = PromptTemplate.compile(path, readClasspath(path));
+        this.overrideFile = overrideDir == null ? null : overrideDir.resolve(path);
+        this.checkIntervalNanos = checkInterval.toNanos();
+        this.current = bundled;
+        reloadIfChanged();
+    }
+
+    public PromptTemplate get() {
+        if (overrideFile != null && System.nanoTime() - nextCheckNanos >= 0) {
+            reloadIfChanged();
+        }
+        return current;
+    }
+
+    private void reloadIfChanged() {
+        reloadLock.lock();
+        try {
+            reload();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void reload() {
+        nextCheckNanos = System.nanoTime() + checkIntervalNanos;
+        if (overrideFile == null) {
+            return;
+        }
+        try {
+            if (!Files.isRegularFile(overrideFile)) {
+                if (loadedModifiedTime != null) {
+                    log.info("Prompt template override {} removed; using bundled template", overrideFile);
+                    loadedModifiedTime = null;
+                    current = bundled;
+                }
+                return;
+            }
+            FileTime modified = Files.getLastModifiedTime(overrideFile);
+            if (modified.equals(loadedModifiedTime)) {
+                return;
+            }
+            current = PromptTemplate.compile(path, Files.readString(overrideFile, StandardCharsets.UTF_8));
+            loadedModifiedTime = modified;
+            log.info("Loaded prompt template {} from {}", path, overrideFile);
+        } catch (IOException ex) {
+            log.warn("Failed to reload prompt template override {}; keeping the previous version", overrideFile, ex);
+        }
+    }
+
+    private static String readClasspath(String path) {
+        ClassPathResource resource = new ClassPathResource("prompts/" + path);
+        try (InputStream input = resource.getInputStream()) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Prompt template not found: prompts/" + path, ex);
+        }
+    }
+}
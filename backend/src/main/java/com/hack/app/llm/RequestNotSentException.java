@@ -0,0 +1,13 @@
+package com.hack.app.llm;
+
+/**
+ * Thrown by a provider that gave up before the request left this instance, for example because no
+ * connection slot freed up in time. The gateway fails over as usual but does not hold it against
+ * the provider's circuit breaker, since the upstream was never reached.
+ */
+public class RequestNotSentException extends RuntimeException {
+
+    public RequestNotSentException(String message) {
+        super(message);
+    }
+}
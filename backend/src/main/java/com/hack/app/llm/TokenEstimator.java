@@ -0,0 +1,38 @@
+package com.hack.app.llm;
+
+public final class TokenEstimator {
+
+    private static final int MESSAGE_OVERHEAD = 4;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+
+        int tokens = 0;
+        int asciiRun = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch < 0x80) {
+                if (Character.isWhitespace(ch)) {
+                    tokens += (asciiRun + 3) / 4;
+                    asciiRun = 0;
+                } else {
+                    asciiRun++;
+                }
+            } else {
+                tokens += (asciiRun + 3) / 4;
+                asciiRun = 0;
+                tokens++;
+            }
+        }
+        return tokens + (asciiRun + 3) / 4;
+    }
+
+    public static int estimateMessage(String content) {
+        return estimate(content) + MESSAGE_OVERHEAD;
+    }
+}
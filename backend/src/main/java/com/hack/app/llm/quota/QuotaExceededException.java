@@ -0,0 +1,34 @@
+package com.hack.app.llm.quota;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 429 carrying the budget of the exhausted scope in {@code X-RateLimit-*} headers, named like the
+ * upstream APIs' own, plus {@code Retry-After}.
+ */
+public class QuotaExceededException extends ResponseStatusException {
+
+    private final transient HttpHeaders headers;
+
+    QuotaExceededException(String scope, UsageQuotas.Budget budget) {
+        super(HttpStatus.TOO_MANY_REQUESTS, "session".equals(scope)
+            ? "이 대화의 AI 사용 한도를 다 썼어요. 새 대화를 시작하거나 잠시 뒤에 다시 시도해 주세요."
+            : "AI 사용 한도를 다 썼어요. 잠시 뒤에 다시 시도해 주세요.");
+        HttpHeaders values = new HttpHeaders();
+        values.set("X-RateLimit-Scope", scope);
+        values.set("X-RateLimit-Limit-Requests", String.valueOf(budget.requestLimit()));
+        values.set("X-RateLimit-Remaining-Requests", String.valueOf(budget.remainingRequests()));
+        values.set("X-RateLimit-Limit-Tokens", String.valueOf(budget.tokenLimit()));
+        values.set("X-RateLimit-Remaining-Tokens", String.valueOf(budget.remainingTokens()));
+        values.set("X-RateLimit-Reset", String.valueOf(budget.resetSeconds()));
+        values.set(HttpHeaders.RETRY_AFTER, String.valueOf(budget.resetSeconds()));
+        this.headers = HttpHeaders.readOnlyHttpHeaders(values);
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+}
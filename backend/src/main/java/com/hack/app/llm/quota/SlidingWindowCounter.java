@@ -0,0 +1,80 @@
+package com.hack.app.llm.quota;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free sliding-window sum over a ring of fixed-size buckets. Each slot packs the bucket number
+ * in its upper 32 bits and the count in the lower 32, so a stale slot is recycled and incremented in
+ * a single compare-and-set. Sums cover the buckets of the last {@code window}, which is exact to
+ * one bucket.
+ */
+final class SlidingWindowCounter {
+
+    private final long bucketMillis;
+    private final AtomicLongArray slots;
+
+    SlidingWindowCounter(long bucketMillis, int buckets) {
+        this.bucketMillis = bucketMillis;
+        this.slots = new AtomicLongArray(buckets);
+    }
+
+    SlidingWindowCounter(long bucketMillis, long[] slots) {
+        this.bucketMillis = bucketMillis;
+        this.slots = new AtomicLongArray(slots);
+    }
+
+    /**
+     * Adds {@code delta}, which may be negative to take back an earlier add, and returns the new sum.
+     */
+    long add(long nowMillis, long delta) {
+        long bucket = nowMillis / bucketMillis;
+        int index = (int) (bucket % slots.length());
+        while (true) {
+            long slot = slots.get(index);
+            long count = (slot >>> 32) == bucket ? (int) slot + delta : delta;
+            if (slots.compareAndSet(index, slot, pack(bucket, count))) {
+                return sum(nowMillis);
+            }
+        }
+    }
+
+    long sum(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        long total = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            long slot = slots.get(i);
+            if (bucket - (slot >>> 32) < slots.length()) {
+                total += (int) slot;
+            }
+        }
+        return Math.max(0, total);
+    }
+
+    /**
+     * Milliseconds until the oldest bucket that still counts leaves the window.
+     */
+    long millisUntilRelease(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        long oldest = bucket;
+        for (int i = 0; i < slots.length(); i++) {
+            long slot = slots.get(i);
+            long slotBucket = slot >>> 32;
+            if (bucket - slotBucket < slots.length() && (int) slot > 0) {
+                oldest = Math.min(oldest, slotBucket);
+            }
+        }
+        return Math.max(0, (oldest + slots.length()) * bucketMillis - nowMillis);
+    }
+
+    long[] snapshot() {
+        long[] copy = new long[slots.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = slots.get(i);
+        }
+        return copy;
+    }
+
+    private static long pack(long bucket, long count) {
+        return (bucket << 32) | (count & 0xFFFF_FFFFL);
+    }
+}
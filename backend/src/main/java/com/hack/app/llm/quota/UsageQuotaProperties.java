@@ -0,0 +1,103 @@
+package com.hack.app.llm.quota;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "llm.quota")
+public class UsageQuotaProperties {
+
+    private boolean enabled = true;
+    private Duration window = Duration.ofHours(1);
+    private int buckets = 60;
+    private final Limit user = new Limit(60, 120_000);
+    private final Limit session = new Limit(40, 80_000);
+    /** Per client address; generous because a classroom shares one address behind NAT. */
+    private final Limit client = new Limit(600, 1_200_000);
+    private String persistPath = "data/llm-quota.json";
+    private Duration persistInterval = Duration.ofMinutes(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(int buckets) {
+        this.buckets = buckets;
+    }
+
+    public Limit getUser() {
+        return user;
+    }
+
+    public Limit getSession() {
+        return session;
+    }
+
+    public Limit getClient() {
+        return client;
+    }
+
+    public String getPersistPath() {
+        return persistPath;
+    }
+
+    public void setPersistPath(String persistPath) {
+        this.persistPath = persistPath;
+    }
+
+    public Duration getPersistInterval() {
+        return persistInterval;
+    }
+
+    public void setPersistInterval(Duration persistInterval) {
+        this.persistInterval = persistInterval;
+    }
+
+    public static class Limit {
+
+        private int requests;
+        private long tokens;
+
+        public Limit() {
+        }
+
+        Limit(int requests, long tokens) {
+            this.requests = requests;
+            this.tokens = tokens;
+        }
+
+        public int getRequests() {
+            return requests;
+        }
+
+        public void setRequests(int requests) {
+            this.requests = requests;
+        }
+
+        public long getTokens() {
+            return tokens;
+        }
+
+        public void setTokens(long tokens) {
+            this.tokens = tokens;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.hack.app.llm.quota;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Persists the quota windows so a restart does not hand every user a fresh budget. Windows are
+ * only restored when the bucket layout is unchanged; idle windows are dropped before each save.
+ */
+@Component
+public class UsageQuotaStore {
+
+    private static final Logger log = LoggerFactory.getLogger(UsageQuotaStore.class);
+
+    private final UsageQuotas usageQuotas;
+    private final UsageQuotaProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock saveLock = new ReentrantLock();
+    private volatile boolean loaded;
+
+    public UsageQuotaStore(UsageQuotas usageQuotas, UsageQuotaProperties properties, ObjectMapper objectMapper) {
+        this.usageQuotas = usageQuotas;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Path path = persistPath();
+        if (path == null || !Files.isRegularFile(path)) {
+            loaded = true;
+            return;
+        }
+        try {
+            State state = objectMapper.readValue(path.toFile(), State.class);
+            if (state.bucketMillis() != usageQuotas.bucketMillis() || state.windows() == null) {
+                log.info("Quota window layout changed; ignoring persisted LLM usage in {}", path);
+                return;
+            }
+            int restored = usageQuotas.restore(state.windows());
+            log.info("Restored {} LLM usage windows from {}", restored, path);
+        } catch (IOException ex) {
+            log.warn("Failed to load persisted LLM usage from {}", path, ex);
+        } finally {
+            loaded = true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${llm.quota.persist-interval:PT1M}")
+    @PreDestroy
+    public void save() {
+        Path path = persistPath();
+        // The first scheduled run fires before the application is ready; saving then would
+        // overwrite the persisted windows before they were loaded.
+        if (path == null || !loaded) {
+            return;
+        }
+        saveLock.lock();
+        try {
+            List<UsageQuotas.Snapshot> windows = usageQuotas.snapshot();
+            if (windows.isEmpty() && !Files.exists(path)) {
+                return;
+            }
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            objectMapper.writeValue(temp.toFile(), new State(usageQuotas.bucketMillis(), windows));
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log.warn("Failed to persist LLM usage to {}", path, ex);
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    private Path persistPath() {
+        if (!properties.isEnabled() || properties.getPersistPath() == null || properties.getPersistPath().isBlank()) {
+            return null;
+        }
+        return Path.of(properties.getPersistPath());
+    }
+
+    record State(long bucketMillis, List<UsageQuotas.Snapshot> windows) {}
+}
@@ -0,0 +1,234 @@
+package com.hack.app.llm.quota;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sliding-window request and token budgets per client address, user and chat session, checked
+ * before a call is handed to the LLM gateway. A call is charged one request plus its estimated
+ * prompt tokens up front; completion tokens are added afterwards with {@link #record}. When any
+ * scope would go over budget, the charges are taken back and {@link QuotaExceededException} is
+ * thrown.
+ */
+@Component
+public class UsageQuotas {
+
+    private static final Logger log = LoggerFactory.getLogger(UsageQuotas.class);
+
+    private final UsageQuotaProperties properties;
+    private final Clock clock;
+    private final long bucketMillis;
+    private final Scope clients;
+    private final Scope users;
+    private final Scope sessions;
+
+    @Autowired
+    public UsageQuotas(UsageQuotaProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Clock.systemUTC());
+    }
+
+    UsageQuotas(UsageQuotaProperties properties, MeterRegistry meterRegistry, Clock clock) {
+        this.properties = properties;
+        this.clock = clock;
+        this.bucketMillis = Math.max(1, properties.getWindow().toMillis() / Math.max(1, properties.getBuckets()));
+        this.clients = new Scope("client", properties.getClient(), meterRegistry, "Client addresses");
+        this.users = new Scope("user", properties.getUser(), meterRegistry, "Users");
+        this.sessions = new Scope("session", properties.getSession(), meterRegistry, "Chat sessions");
+    }
+
+    public void acquire(UsageSubject subject, long estimatedTokens) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long now = clock.millis();
+        List<Usage> charged = new ArrayList<>(3);
+        // The client address goes first so a caller rotating user ids is reported against it.
+        for (Scope scope : List.of(clients, users, sessions)) {
+            charge(scope, key(scope, subject), now, estimatedTokens, subject, charged);
+        }
+    }
+
+    /**
+     * Takes back a charge made by {@link #acquire} for a call that was never sent.
+     */
+    public void refund(UsageSubject subject, long estimatedTokens) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long now = clock.millis();
+        for (Scope scope : List.of(clients, users, sessions)) {
+            String key = key(scope, subject);
+            Usage usage = key == null ? null : scope.usages.get(key);
+            if (usage != null) {
+                usage.refund(now, estimatedTokens);
+            }
+        }
+    }
+
+    /**
+     * Adds tokens that were only known after the call, such as the completion. Never rejects.
+     */
+    public void record(UsageSubject subject, long tokens) {
+        if (!properties.isEnabled() || tokens <= 0) {
+            return;
+        }
+        long now = clock.millis();
+        for (Scope scope : List.of(clients, users, sessions)) {
+            String key = key(scope, subject);
+            if (key != null) {
+                scope.usages.computeIfAbsent(key, ignored -> newUsage()).tokens.add(now, tokens);
+            }
+        }
+    }
+
+    List<Snapshot> snapshot() {
+        long now = clock.millis();
+        List<Snapshot> snapshots = new ArrayList<>();
+        for (Scope scope : List.of(clients, users, sessions)) {
+            scope.usages.values().removeIf(usage -> usage.isIdle(now));
+            scope.usages.forEach((key, usage) -> snapshots.add(usage.snapshot(scope.name, key)));
+        }
+        return snapshots;
+    }
+
+    int restore(List<Snapshot> snapshots) {
+        int restored = 0;
+        for (Snapshot snapshot : snapshots) {
+            if (snapshot.requests() == null || snapshot.tokens() == null
+                || snapshot.requests().length != properties.getBuckets()
+                || snapshot.tokens().length != properties.getBuckets()) {
+                continue;
+            }
+            Scope scope = switch (String.valueOf(snapshot.scope())) {
+                case "session" -> sessions;
+                case "client" -> clients;
+                default -> users;
+            };
+            scope.usages.put(snapshot.key(), new Usage(new SlidingWindowCounter(bucketMillis, snapshot.requests()),
+                new SlidingWindowCounter(bucketMillis, snapshot.tokens())));
+            restored++;
+        }
+        return restored;
+    }
+
+    private void charge(Scope scope, @Nullable String key, long now, long estimatedTokens,
+                        UsageSubject subject, List<Usage> charged) {
+        if (key == null) {
+            return;
+        }
+        Usage usage = scope.usages.computeIfAbsent(key, ignored -> newUsage());
+        Budget exhausted = usage.tryCharge(now, estimatedTokens, scope.limit);
+        if (exhausted == null) {
+            charged.add(usage);
+            return;
+        }
+        charged.forEach(previous -> previous.refund(now, estimatedTokens));
+        scope.rejections.increment();
+        log.info("LLM quota exhausted for {}={} user={}", scope.name, key, subject.userKey());
+        throw new QuotaExceededException(scope.name, exhausted);
+    }
+
+    @Nullable
+    private String key(Scope scope, UsageSubject subject) {
+        if (scope == sessions) {
+            return subject.sessionId();
+        }
+        if (scope == users) {
+            return subject.userKey();
+        }
+        // Requests without a user id are already charged to their address as the user.
+        return subject.userKey().equals(subject.clientKey()) ? null : subject.clientKey();
+    }
+
+    long bucketMillis() {
+        return bucketMillis;
+    }
+
+    private Usage newUsage() {
+        int buckets = Math.max(1, properties.getBuckets());
+        return new Usage(new SlidingWindowCounter(bucketMillis, buckets), new SlidingWindowCounter(bucketMillis, buckets));
+    }
+
+    private static final class Scope {
+
+        private final String name;
+        private final UsageQuotaProperties.Limit limit;
+        private final Map<String, Usage> usages = new ConcurrentHashMap<>();
+        private final Counter rejections;
+
+        private Scope(String name, UsageQuotaProperties.Limit limit, MeterRegistry meterRegistry, String subjects) {
+            this.name = name;
+            this.limit = limit;
+            this.rejections = Counter.builder("llm.quota.rejected")
+                .description("LLM calls rejected because a usage quota was exhausted")
+                .tag("scope", name)
+                .register(meterRegistry);
+            Gauge.builder("llm.quota.subjects", usages, Map::size)
+                .description(subjects + " with LLM usage inside the quota window")
+                .tag("scope", name)
+                .register(meterRegistry);
+        }
+    }
+
+    record Budget(int requestLimit, long remainingRequests, long tokenLimit, long remainingTokens, long resetSeconds) {}
+
+    record Snapshot(String scope, String key, long[] requests, long[] tokens) {}
+
+    private static final class Usage {
+
+        private final SlidingWindowCounter requests;
+        private final SlidingWindowCounter tokens;
+
+        private Usage(SlidingWindowCounter requests, SlidingWindowCounter tokens) {
+            this.requests = requests;
+            this.tokens = tokens;
+        }
+
+        /**
+         * Charges optimistically and takes the charge back when it overshoots, so concurrent callers
+         * never need a lock; under contention a caller may be turned away a moment early, never let
+         * through over budget.
+         */
+        private Budget tryCharge(long now, long estimatedTokens, UsageQuotaProperties.Limit limit) {
+            long requestCount = requests.add(now, 1);
+            long tokenCount = tokens.add(now, estimatedTokens);
+            boolean requestsOver = limit.getRequests() > 0 && requestCount > limit.getRequests();
+            boolean tokensOver = limit.getTokens() > 0 && tokenCount > limit.getTokens();
+            if (!requestsOver && !tokensOver) {
+                return null;
+            }
+            refund(now, estimatedTokens);
+            long releaseMillis = requestsOver ? requests.millisUntilRelease(now) : tokens.millisUntilRelease(now);
+            return new Budget(limit.getRequests(),
+                Math.max(0, limit.getRequests() - requests.sum(now)),
+                limit.getTokens(),
+                Math.max(0, limit.getTokens() - tokens.sum(now)),
+                Math.max(1, (releaseMillis + 999) / 1000));
+        }
+
+        private void refund(long now, long estimatedTokens) {
+            requests.add(now, -1);
+            tokens.add(now, -estimatedTokens);
+        }
+
+        private boolean isIdle(long now) {
+            return requests.sum(now) == 0 && tokens.sum(now) == 0;
+        }
+
+        private Snapshot snapshot(String scope, String key) {
+            return new Snapshot(scope, key, requests.snapshot(), tokens.snapshot());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.hack.app.llm.quota;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Who an LLM call is charged to. {@code userKey} is the ZEP user id sent in {@value #USER_HEADER},
+ * or the client address when the header is missing; {@code sessionId} is set for chat sessions.
+ * {@code clientKey} is always the client address: the header is not authenticated, so the address
+ * is charged too and a client cannot escape its budget by sending a new id with every request.
+ */
+public record UsageSubject(String userKey, @Nullable String clientKey, @Nullable String sessionId) {
+
+    public static final String USER_HEADER = "X-User-Id";
+
+    public UsageSubject(String userKey, @Nullable String sessionId) {
+        this(userKey, null, sessionId);
+    }
+
+    public static UsageSubject of(@Nullable String zepUserId, String remoteAddress) {
+        String clientKey = "ip:" + remoteAddress;
+        return zepUserId == null || zepUserId.isBlank()
+            ? new UsageSubject(clientKey, null, null)
+            : new UsageSubject(zepUserId.trim(), clientKey, null);
+    }
+
+    public UsageSubject withSession(String sessionId) {
+        return new UsageSubject(userKey, clientKey, sessionId);
+    }
+}
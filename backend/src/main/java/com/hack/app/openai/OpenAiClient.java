@@ -2,34 +2,53 @@ package com.hack.app.openai;
 
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hack.app.config.HttpClientProperties;
+import com.hack.app.config.RoutePermits;
+import com.hack.app.config.ServerTiming;
+import com.hack.app.llm.LlmCallMetrics;
+import com.hack.app.llm.Priority;
+import com.hack.app.llm.RequestNotSentException;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestClient;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 @Component
 public class OpenAiClient {
 
     private static final Logger log = LoggerFactory.getLogger(OpenAiClient.class);
 
-    private final RestClient restClient;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
     private final OpenAiProperties properties;
-
-    public OpenAiClient(OpenAiProperties properties) {
+    private final RoutePermits connectionPermits;
+    private final LlmCallMetrics callMetrics;
+
+    public OpenAiClient(OpenAiProperties properties,
+                        HttpClient llmHttpClient,
+                        ObjectMapper objectMapper,
+                        HttpClientProperties httpProperties,
+                        MeterRegistry meterRegistry) {
         this.properties = properties;
-        String apiKey = properties.getApiKey() == null ? "" : properties.getApiKey();
-        this.restClient = RestClient.builder()
-            .baseUrl(properties.getBaseUrl())
-            .defaultHeader("Authorization", "Bearer " + apiKey)
-            .defaultHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
-            .defaultHeader("Accept", MediaType.APPLICATION_JSON_VALUE)
-            .build();
+        this.httpClient = llmHttpClient;
+        this.objectMapper = objectMapper;
+        this.connectionPermits = new RoutePermits("OpenAI", httpProperties, meterRegistry);
+        this.callMetrics = new LlmCallMetrics("openai", meterRegistry);
     }
 
     public boolean isEnabled() {
@@ -41,38 +60,162 @@ public class OpenAiClient {
     }
 
     public Optional<String> createChatCompletion(List<Message> messages, Double temperature, Map<String, Object> additionalParams) {
-        if (!isEnabled()) {
-            log.warn("OpenAI API key is not configured. Skipping chat completion call.");
+        return createChatCompletion(messages, temperature, additionalParams, Priority.INTERACTIVE);
+    }
+
+    public Optional<String> createChatCompletion(List<Message> messages,
+                                                 Double temperature,
+                                                 Map<String, Object> additionalParams,
+                                                 Priority priority) {
+        return createChatCompletion(messages, temperature, additionalParams, properties.getTimeout(), priority);
+    }
+
+    /**
+     * Blocking form of {@link #createChatCompletionAsync(List, Double, Map, Duration, Priority)}, bounded
+     * by the same {@code timeout}. Interrupting the caller aborts the exchange and returns empty with
+     * the interrupt flag set.
+     */
+    public Optional<String> createChatCompletion(List<Message> messages,
+                                                 Double temperature,
+                                                 Map<String, Object> additionalParams,
+                                                 Duration timeout,
+                                                 Priority priority) {
+        CompletableFuture<Optional<String>> result =
+            createChatCompletionAsync(messages, temperature, additionalParams, timeout, priority);
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            log.error("Failed to call OpenAI chat completion API", ex.getCause());
             return Optional.empty();
         }
+    }
+
+    public CompletableFuture<Optional<String>> createChatCompletionAsync(List<Message> messages, Double temperature) {
+        return createChatCompletionAsync(messages, temperature, Collections.emptyMap());
+    }
 
-        ChatCompletionRequest	request = new ChatCompletionRequest(
-            properties.getChatModel(),
-            messages,
-            temperature,
-            additionalParams
-        );
+    public CompletableFuture<Optional<String>> createChatCompletionAsync(List<Message> messages,
+                                                                         Double temperature,
+                                                                         Map<String, Object> additionalParams) {
+        return createChatCompletionAsync(messages, temperature, additionalParams, properties.getTimeout(),
+            Priority.INTERACTIVE);
+    }
 
+    /**
+     * Bounds the slot wait and the exchange by {@code timeout} (never longer than the configured
+     * timeout); the slot wait is further capped by the queue timeout for {@code priority}. Cancelling
+     * the returned future aborts the upstream exchange and frees its slot. If no slot frees up in
+     * time the future fails with {@link RequestNotSentException}. The body is buffered rather than
+     * streamed so the exchange only completes once the connection is back in the client's pool;
+     * releasing the slot any earlier lets the next caller open a fresh connection instead.
+     */
+    public CompletableFuture<Optional<String>> createChatCompletionAsync(List<Message> messages,
+                                                                         Double temperature,
+                                                                         Map<String, Object> additionalParams,
+                                                                         Duration timeout,
+                                                                         Priority priority) {
+        if (!isEnabled()) {
+            log.warn("OpenAI API key is not configured. Skipping chat completion call.");
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        HttpRequest httpRequest;
         try {
-            ChatCompletionResponse response = restClient.post()
-                .uri("/chat/completions")
-                .body(request)
-                .retrieve()
-                .body(ChatCompletionResponse.class);
+            byte[] body = objectMapper.writeValueAsBytes(new ChatCompletionRequest(
+                properties.getChatModel(),
+                messages,
+                temperature,
+                additionalParams
+            ));
+            httpRequest = HttpRequest.newBuilder(URI.create(properties.getBaseUrl() + "/chat/completions"))
+                .timeout(timeout.compareTo(properties.getTimeout()) < 0 ? timeout : properties.getTimeout())
+                .header("Authorization", "Bearer " + apiKey())
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .header("Accept", MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        } catch (IOException ex) {
+            log.error("Failed to serialize OpenAI chat completion request", ex);
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        ServerTiming timing = ServerTiming.current();
+        CompletableFuture<Optional<String>> result = new CompletableFuture<>();
+        CompletableFuture<Boolean> permit = connectionPermits.acquireAsync(priority, timeout);
+        result.whenComplete((content, error) -> {
+            if (result.isCancelled()) {
+                permit.cancel(false);
+            }
+        });
+        permit.thenAccept(granted -> {
+            if (!granted) {
+                result.completeExceptionally(new RequestNotSentException("No OpenAI connection slot freed up in time"));
+                return;
+            }
+            if (result.isDone()) {
+                connectionPermits.release();
+                return;
+            }
+            long started = System.nanoTime();
+            CompletableFuture<HttpResponse<byte[]>> exchange =
+                httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+            exchange.thenApply(response -> readResponse(response, started))
+                .whenComplete((content, error) -> {
+                    connectionPermits.release();
+                    timing.record("openai", started);
+                    if (error != null) {
+                        callMetrics.record("chat", result.isCancelled() ? "cancelled" : LlmCallMetrics.outcome(error), started);
+                    }
+                    if (error != null && !result.isCancelled()) {
+                        log.error("Failed to call OpenAI chat completion API", error);
+                    }
+                    result.complete(error == null ? content : Optional.empty());
+                });
+            result.whenComplete((content, error) -> {
+                if (result.isCancelled()) {
+                    exchange.cancel(true);
+                }
+            });
+        });
+        return result;
+    }
 
-            if (response == null || response.choices().isEmpty()) {
+    private Optional<String> readResponse(HttpResponse<byte[]> response, long started) {
+        callMetrics.record("chat", LlmCallMetrics.outcome(response.statusCode()), started);
+        try {
+            byte[] body = response.body();
+            if (response.statusCode() >= 400) {
+                log.error("OpenAI chat completion API returned status {}", response.statusCode());
                 return Optional.empty();
             }
+            return extractContent(objectMapper.readValue(body, ChatCompletionResponse.class));
+        } catch (IOException ex) {
+            log.error("Failed to read OpenAI chat completion response", ex);
+            return Optional.empty();
+        }
+    }
 
-            return response.choices().stream()
-                .map(ChatCompletionResponse.Choice::message)
-                .map(Message::content)
-                .filter(content -> content != null && !content.isBlank())
-                .findFirst();
-        } catch (Exception ex) {
-            log.error("Failed to call OpenAI chat completion API", ex);
+    private Optional<String> extractContent(ChatCompletionResponse response) {
+        if (response == null || response.choices() == null || response.choices().isEmpty()) {
             return Optional.empty();
         }
+
+        return response.choices().stream()
+            .map(ChatCompletionResponse.Choice::message)
+            .map(Message::content)
+            .filter(content -> content != null && !content.isBlank())
+            .findFirst();
+    }
+
+    private String apiKey() {
+        return properties.getApiKey() == null ? "" : properties.getApiKey();
     }
 
     public record Message(String role, String content) {
@@ -105,4 +248,4 @@ public class OpenAiClient {
     public record ChatCompletionResponse(List<Choice> choices) {
         public record Choice(Message message) {}
     }
-}
\ No newline at end of file
+}
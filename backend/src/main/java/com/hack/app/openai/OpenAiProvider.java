@@ -0,0 +1,81 @@
+package com.hack.app.openai;
+
+import com.hack.app.llm.LlmProvider;
+import com.hack.app.llm.LlmRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Chat Completions behind the gateway. Response schemas are sent as {@code json_schema} response
+ * formats; the client is already asynchronous, so {@link #completeAsync} skips the gateway executor.
+ */
+@Component
+public class OpenAiProvider implements LlmProvider {
+
+    private final OpenAiClient openAiClient;
+
+    public OpenAiProvider(OpenAiClient openAiClient) {
+        this.openAiClient = openAiClient;
+    }
+
+    @Override
+    public String name() {
+        return "openai";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return openAiClient.isEnabled();
+    }
+
+    @Override
+    public Optional<String> complete(LlmRequest request) {
+        return openAiClient.createChatCompletion(messages(request), request.temperature(), params(request),
+            timeout(request), request.priority());
+    }
+
+    @Override
+    public CompletableFuture<Optional<String>> completeAsync(LlmRequest request, Executor executor) {
+        return openAiClient.createChatCompletionAsync(messages(request), request.temperature(), params(request),
+            timeout(request), request.priority());
+    }
+
+    private static Duration timeout(LlmRequest request) {
+        return request.deadline() == null ? ChronoUnit.FOREVER.getDuration() : request.deadline().remaining();
+    }
+
+    private static List<OpenAiClient.Message> messages(LlmRequest request) {
+        List<OpenAiClient.Message> messages = new ArrayList<>();
+        if (request.systemInstruction() != null && !request.systemInstruction().isBlank()) {
+            messages.add(OpenAiClient.Message.system(request.systemInstruction()));
+        }
+        for (LlmRequest.Message message : request.messages()) {
+            messages.add(message.role() == LlmRequest.Role.USER
+                ? OpenAiClient.Message.user(message.content())
+                : OpenAiClient.Message.assistant(message.content()));
+        }
+        return messages;
+    }
+
+    private static Map<String, Object> params(LlmRequest request) {
+        LlmRequest.ResponseSchema schema = request.responseSchema();
+        if (schema == null) {
+            return Map.of();
+        }
+        return Map.of("response_format", Map.of(
+            "type", "json_schema",
+            "json_schema", Map.of(
+                "name", schema.name(),
+                "schema", schema.schema()
+            )
+        ));
+    }
+}
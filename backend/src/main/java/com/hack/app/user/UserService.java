@@ -1,5 +1,8 @@
 package com.hack.app.user;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.util.List;
 import java.util.Map;
 import org.springframework.stereotype.Service;
@@ -16,9 +19,16 @@ public class UserService {
     );
 
     private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary grantedGold;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+        this.meterRegistry = meterRegistry;
+        this.grantedGold = DistributionSummary.builder("rewards.gold")
+            .description("Gold granted per successful reward")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
     }
 
     public List<UserResponse> getUsers() {
@@ -73,24 +83,39 @@ public class UserService {
 
     @Transactional
     public UserResponse applyReward(String zepUserId, String gameType, boolean success, long earnedGold) {
-        User user = userRepository.findByZepUserId(zepUserId)
-            .orElseThrow(() -> new UserNotFoundException(zepUserId));
-
-        if (!success || earnedGold <= 0) {
-            return UserResponse.from(user);
-        }
-
-        if (gameType == null || gameType.isBlank()) {
-            throw new IllegalArgumentException("gameType must be provided");
-        }
-        String requiredJob = REQUIRED_JOB_BY_GAME.get(gameType);
-        if (requiredJob != null && user.getJob() != null && !requiredJob.equals(user.getJob())) {
-            throw new IllegalStateException("직업이 일치하지 않습니다.");
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failed";
+        try {
+            User user = userRepository.findByZepUserId(zepUserId)
+                .orElseThrow(() -> new UserNotFoundException(zepUserId));
+
+            if (!success || earnedGold <= 0) {
+                outcome = "skipped";
+                return UserResponse.from(user);
+            }
+
+            if (gameType == null || gameType.isBlank()) {
+                throw new IllegalArgumentException("gameType must be provided");
+            }
+            String requiredJob = REQUIRED_JOB_BY_GAME.get(gameType);
+            if (requiredJob != null && user.getJob() != null && !requiredJob.equals(user.getJob())) {
+                throw new IllegalStateException("직업이 일치하지 않습니다.");
+            }
+
+            user.setGold(user.getGold() + earnedGold);
+            User updatedUser = userRepository.save(user);
+            grantedGold.record(earnedGold);
+            outcome = "granted";
+            return UserResponse.from(updatedUser);
+        } finally {
+            sample.stop(Timer.builder("rewards.apply")
+                .description("Reward transactions by game and outcome")
+                // Only known games become tag values so a client cannot mint new series.
+                .tag("game", REQUIRED_JOB_BY_GAME.containsKey(gameType) ? gameType : "other")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry));
         }
-
-        user.setGold(user.getGold() + earnedGold);
-        User updatedUser = userRepository.save(user);
-        return UserResponse.from(updatedUser);
     }
 
     @Transactional
@@ -42,13 +42,13 @@ class UserControllerTest {
     void listUsers() throws Exception {
         OffsetDateTime createdAt = OffsetDateTime.parse("2025-10-01T00:00:00Z");
         when(userService.getUsers()).thenReturn(List.of(
-            new UserResponse(1L, "홍길동", "무직", 100L, createdAt)
+            new UserResponse(1L, "홍길동", "홍길동", "무직", 100L, createdAt)
         ));
 
         mockMvc.perform(get("/api/users"))
             .andExpect(status().isOk())
             .andExpect(jsonPath("$[0].id").value(1))
-            .andExpect(jsonPath("$[0].name").value("홍길동"))
+            .andExpect(jsonPath("$[0].nickname").value("홍길동"))
             .andExpect(jsonPath("$[0].job").value("무직"));
     }
 
@@ -57,7 +57,7 @@ class UserControllerTest {
     void createUser() throws Exception {
         OffsetDateTime createdAt = OffsetDateTime.parse("2025-10-01T00:00:00Z");
         when(userService.createUser(any(UserRequest.class))).thenReturn(
-            new UserResponse(10L, "테스터", "무직", 100L, createdAt)
+            new UserResponse(10L, "테스터", "테스터", "무직", 100L, createdAt)
         );
 
         mockMvc.perform(post("/api/users")
@@ -65,7 +65,7 @@ class UserControllerTest {
                 .content(objectMapper.writeValueAsString(new UserRequest("테스터", "무직"))))
             .andExpect(status().isCreated())
             .andExpect(jsonPath("$.id").value(10))
-            .andExpect(jsonPath("$.name").value("테스터"))
+            .andExpect(jsonPath("$.nickname").value("테스터"))
             .andExpect(jsonPath("$.job").value("무직"));
 
         ArgumentCaptor<UserRequest> captor = ArgumentCaptor.forClass(UserRequest.class);
@@ -0,0 +1,47 @@
+package com.hack.app.chat.finance;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatSessionTest {
+
+    @Test
+    @DisplayName("토큰 예산을 넘는 오래된 대화는 요약 대상으로 밀려난다")
+    void evictsOldestTurnsBeyondTokenBudget() {
+        ChatSession session = new ChatSession();
+        ChatTurn first = ChatTurn.of("적금이 뭐야?", "적금은 매달 일정 금액을 넣는 상품이에요.".repeat(5));
+        ChatTurn second = ChatTurn.of("예금은?", "예금은 한 번에 목돈을 맡기는 상품이에요.");
+        int budget = second.tokenCount() + 10;
+
+        session.append(first, budget, 6);
+        session.append(second, budget, 6);
+
+        ChatSession.HistoryWindow window = session.window(budget);
+        assertThat(window.turns()).containsExactly(second);
+        assertThat(window.tokens()).isLessThanOrEqualTo(budget);
+        assertThat(session.claimEvicted()).containsExactly(first);
+    }
+
+    @Test
+    @DisplayName("요약이 반영되면 요약과 최근 대화가 함께 예산 안에서 선택된다")
+    void includesSummaryWithinBudget() {
+        ChatSession session = new ChatSession();
+        ChatTurn turn = ChatTurn.of("용돈 관리 팁 알려줘", "지출 기록부터 시작해 보세요.");
+        session.append(turn, 1000, 6);
+        session.append(ChatTurn.of("a", "b"), 1000, 1);
+
+        List<ChatTurn> evicted = session.claimEvicted();
+        assertThat(evicted).containsExactly(turn);
+        assertThat(session.claimEvicted()).isEmpty();
+
+        session.completeSummary("사용자는 용돈 관리에 관심이 있다.");
+
+        ChatSession.HistoryWindow window = session.window(1000);
+        assertThat(window.summary()).isEqualTo("사용자는 용돈 관리에 관심이 있다.");
+        assertThat(window.turns()).hasSize(1);
+    }
+}
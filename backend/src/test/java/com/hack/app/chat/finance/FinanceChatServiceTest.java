@@ -0,0 +1,241 @@
+package com.hack.app.chat.finance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hack.app.llm.Deadline;
+import com.hack.app.llm.LlmGateway;
+import com.hack.app.llm.LlmGatewayProperties;
+import com.hack.app.llm.RequestNotSentException;
+import com.hack.app.llm.quota.UsageQuotaProperties;
+import com.hack.app.llm.quota.UsageQuotas;
+import com.hack.app.llm.quota.UsageSubject;
+import com.hack.app.openai.OpenAiClient;
+import com.hack.app.openai.OpenAiProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FinanceChatServiceTest {
+
+    private static final String FINANCE_REPLY = "{\"category\":\"finance\",\"confidence\":0.9,\"reply\":\"적금은 매달 저축하는 상품이에요.\"}";
+    private static final FinanceKnowledgeBase.FaqEntry OPPORTUNITY_COST = new FinanceKnowledgeBase.FaqEntry(
+        "opportunity-cost", "기회비용이 뭐야?", List.of("기회비용"),
+        "기회비용은 어떤 것을 선택했을 때 포기한 다른 선택지 중 가장 가치 있는 것을 말해요.");
+
+    private OpenAiClient openAiClient;
+    private FinanceChatProperties properties;
+    private UsageQuotas usageQuotas;
+    private FinanceChatService service;
+
+    @BeforeEach
+    void setUp() {
+        openAiClient = mock(OpenAiClient.class);
+        when(openAiClient.isEnabled()).thenReturn(true);
+        properties = new FinanceChatProperties();
+        properties.setSummaryEnabled(false);
+        usageQuotas = spy(new UsageQuotas(new UsageQuotaProperties(), new SimpleMeterRegistry()));
+        ObjectMapper objectMapper = new ObjectMapper();
+        LlmGateway llmGateway = new LlmGateway(List.of(new OpenAiProvider(openAiClient)),
+            new LlmGatewayProperties(), new SimpleMeterRegistry());
+        service = new FinanceChatService(
+            llmGateway,
+            objectMapper,
+            properties,
+            new ChatHistorySummarizer(llmGateway, properties),
+            new FinanceClassificationBatcher(llmGateway, objectMapper, properties),
+            new FinanceKnowledgeBase(properties, List.of(OPPORTUNITY_COST), null, new SimpleMeterRegistry()),
+            usageQuotas,
+            new SimpleMeterRegistry()
+        );
+    }
+
+    @Test
+    @DisplayName("같은 세션의 동일한 질문이 동시에 들어오면 OpenAI 호출은 한 번만 한다")
+    void coalescesDuplicateInFlightQuestions() throws Exception {
+        CountDownLatch upstreamStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(openAiClient.createChatCompletionAsync(any(), anyDouble(), anyMap(), any(Duration.class), any())).thenAnswer(invocation ->
+            CompletableFuture.supplyAsync(() -> {
+                upstreamStarted.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return Optional.of(FINANCE_REPLY);
+            }));
+
+        FinanceChatRequest request = new FinanceChatRequest("적금이 뭐야?", "session-1");
+        CompletableFuture<FinanceChatResponse> first = CompletableFuture.supplyAsync(() -> service.chat(request));
+        assertThat(upstreamStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<FinanceChatResponse> duplicate = CompletableFuture.supplyAsync(() -> service.chat(request));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).reply()).isEqualTo("적금은 매달 저축하는 상품이에요.");
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo(first.get());
+        verify(openAiClient, times(1)).createChatCompletionAsync(any(), anyDouble(), anyMap(), any(Duration.class), any());
+    }
+
+    @Test
+    @DisplayName("같은 질문을 기다리는 중복 요청도 자기 마감 시간이 지나면 일시적 오류 안내로 답한다")
+    void coalescedDuplicatesHonourTheirDeadline() throws Exception {
+        CountDownLatch upstreamStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(openAiClient.createChatCompletionAsync(any(), anyDouble(), anyMap(), any(Duration.class), any())).thenAnswer(invocation ->
+            CompletableFuture.supplyAsync(() -> {
+                upstreamStarted.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return Optional.of(FINANCE_REPLY);
+            }));
+
+        FinanceChatRequest request = new FinanceChatRequest("적금이 뭐야?", "session-coalesced");
+        CompletableFuture<FinanceChatResponse> first = CompletableFuture.supplyAsync(() -> service.chat(request));
+        assertThat(upstreamStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        long started = System.nanoTime();
+        FinanceChatResponse duplicate = service.chat(request, Deadline.after(Duration.ofMillis(100)));
+        release.countDown();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        assertThat(duplicate.financeRelated()).isFalse();
+        assertThat(duplicate.reply()).isNotEqualTo("적금은 매달 저축하는 상품이에요.");
+        assertThat(first.get(5, TimeUnit.SECONDS).reply()).isEqualTo("적금은 매달 저축하는 상품이에요.");
+    }
+
+    @Test
+    @DisplayName("배치 모드에서는 동시에 들어온 첫 질문들을 한 번의 호출로 분류한다")
+    void batchesConcurrentFirstTurnQuestions() throws Exception {
+        properties.getBatching().setEnabled(true);
+        properties.getBatching().setWindow(Duration.ofMillis(200));
+        when(openAiClient.createChatCompletionAsync(any(), anyDouble(), anyMap(), any(Duration.class), any())).thenReturn(
+            CompletableFuture.completedFuture(Optional.of("""
+                {"decisions":[
+                  {"id":"q1","category":"finance","confidence":0.9,"reply":"첫 번째 답변"},
+                  {"id":"q2","category":"finance","confidence":0.8,"reply":"두 번째 답변"}
+                ]}
+                """)));
+
+        CompletableFuture<FinanceChatResponse> first = CompletableFuture.supplyAsync(
+            () -> service.chat(new FinanceChatRequest("적금이 뭐야?", "session-a")));
+        CompletableFuture<FinanceChatResponse> second = CompletableFuture.supplyAsync(
+            () -> service.chat(new FinanceChatRequest("예금은 뭐야?", "session-b")));
+
+        assertThat(List.of(first.get(5, TimeUnit.SECONDS).reply(), second.get(5, TimeUnit.SECONDS).reply()))
+            .containsExactlyInAnyOrder("첫 번째 답변", "두 번째 답변");
+        verify(openAiClient, times(1)).createChatCompletionAsync(any(), anyDouble(), anyMap(), any(Duration.class), any());
+        verify(openAiClient, never()).createChatCompletion(any(), anyDouble(), anyMap());
+    }
+
+    @Test
+    @DisplayName("배치를 기다리다 포기하고 직접 호출한 질문은 배치에서 빠져 OpenAI를 두 번 부르지 않는다")
+    void dropsQuestionsThatFellBackFromTheBatch() throws Exception {
+        properties.getBatching().setEnabled(true);
+        properties.getBatching().setWindow(Duration.ofMillis(300));
+        properties.getBatching().setMaxWait(Duration.ofMillis(50));
+        when(openAiClient.createChatCompletionAsync(any(), anyDouble(), anyMap(), any(Duration.class), any()))
+            .thenReturn(CompletableFuture.completedFuture(Optional.of(FINANCE_REPLY)));
+
+        FinanceChatResponse response = service.chat(new FinanceChatRequest("적금이 뭐야?", "session-fallback"));
+        Thread.sleep(500);
+
+        assertThat(response.reply()).isEqualTo("적금은 매달 저축하는 상품이에요.");
+        verify(openAiClient, times(1)).createChatCompletionAsync(any(), anyDouble(), anyMap(), any(Duration.class), any());
+    }
+
+    @Test
+    @DisplayName("FAQ 질문과 잘 맞으면 OpenAI를 부르지 않고 FAQ 답변으로 바로 답한다")
+    void answersConfidentMatchesLocally() {
+        FinanceChatResponse response = service.chat(new FinanceChatRequest("기회비용이란 뭐야?", "session-local"));
+
+        assertThat(response.reply()).isEqualTo(OPPORTUNITY_COST.answer());
+        assertThat(response.financeRelated()).isTrue();
+        verify(openAiClient, never()).createChatCompletionAsync(any(), anyDouble(), anyMap(), any(Duration.class), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("일부만 맞는 질문은 관련 문장을 참고 자료로 프롬프트에 넣어 OpenAI에 묻는다")
+    void groundsPartialMatchesInThePrompt() {
+        ArgumentCaptor<List<OpenAiClient.Message>> messages = ArgumentCaptor.forClass(List.class);
+        when(openAiClient.createChatCompletionAsync(messages.capture(), anyDouble(), anyMap(), any(Duration.class), any()))
+            .thenReturn(CompletableFuture.completedFuture(Optional.of(FINANCE_REPLY)));
+
+        service.chat(new FinanceChatRequest("기회비용 계산", "session-grounded"));
+
+        assertThat(messages.getValue().get(0).content())
+            .contains("참고 자료")
+            .contains(OPPORTUNITY_COST.answer());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("일시적인 오류 안내는 대화 기록에 남기지 않아 다음 질문의 프롬프트에 들어가지 않는다")
+    void leavesFallbackRepliesOutOfTheHistory() {
+        AtomicBoolean upstreamUp = new AtomicBoolean();
+        ArgumentCaptor<List<OpenAiClient.Message>> messages = ArgumentCaptor.forClass(List.class);
+        when(openAiClient.createChatCompletionAsync(messages.capture(), anyDouble(), anyMap(), any(Duration.class), any()))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                upstreamUp.get() ? Optional.of(FINANCE_REPLY) : Optional.empty()));
+
+        FinanceChatResponse failed = service.chat(new FinanceChatRequest("적금이 뭐야?", "session-retry"));
+        upstreamUp.set(true);
+        service.chat(new FinanceChatRequest("적금 금리는 어때?", "session-retry"));
+
+        assertThat(failed.reply()).isNotEqualTo("적금은 매달 저축하는 상품이에요.");
+        assertThat(messages.getValue())
+            .extracting(OpenAiClient.Message::role)
+            .containsExactly("system", "user");
+    }
+
+    @Test
+    @DisplayName("연결 슬롯을 얻지 못해 OpenAI에 보내지 못한 질문은 미리 차감한 사용량을 돌려준다")
+    void refundsQuotaWhenTheQuestionWasNeverSent() {
+        when(openAiClient.createChatCompletionAsync(any(), anyDouble(), anyMap(), any(Duration.class), any()))
+            .thenReturn(CompletableFuture.failedFuture(new RequestNotSentException("no slot")));
+        UsageSubject subject = new UsageSubject("user-1", null);
+
+        service.chat(new FinanceChatRequest("적금이 뭐야?", "session-saturated"), subject, null);
+
+        UsageSubject sessionSubject = subject.withSession("session-saturated");
+        verify(usageQuotas).acquire(eq(sessionSubject), anyLong());
+        verify(usageQuotas).refund(eq(sessionSubject), anyLong());
+    }
+
+    @Test
+    @DisplayName("OpenAI까지 보낸 뒤 실패한 질문은 사용량을 돌려주지 않는다")
+    void keepsTheChargeOnceTheQuestionWasSent() {
+        when(openAiClient.createChatCompletionAsync(any(), anyDouble(), anyMap(), any(Duration.class), any()))
+            .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        service.chat(new FinanceChatRequest("적금이 뭐야?", "session-failed"), new UsageSubject("user-1", null), null);
+
+        verify(usageQuotas, never()).refund(any(), anyLong());
+    }
+}
@@ -0,0 +1,66 @@
+package com.hack.app.chat.finance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FinanceKnowledgeBaseTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FinanceKnowledgeBase knowledgeBase = new FinanceKnowledgeBase(new FinanceChatProperties(),
+        FinanceKnowledgeBase.loadFaq(new ObjectMapper()), null, meterRegistry);
+
+    @Test
+    @DisplayName("조사와 질문 어미가 달라도 같은 낱말로 잘라낸다")
+    void tokenizesAcrossParticlesAndEndings() {
+        assertThat(HangulTokenizer.tokenize("적금이 뭐야?")).containsExactly("적금");
+        assertThat(HangulTokenizer.tokenize("금리가 오르면")).containsExactly("금리", "오르", "르면");
+        assertThat(HangulTokenizer.tokenize("ETF는 뭐예요?")).containsExactly("etf");
+    }
+
+    @Test
+    @DisplayName("자주 묻는 질문은 표현이 조금 달라도 FAQ 답변으로 바로 답한다")
+    void answersCommonQuestionsFromFaq() {
+        assertThat(knowledgeBase.lookup("적금이란 무엇인가요?").answer()).startsWith("적금은");
+        assertThat(knowledgeBase.lookup("예금이랑 적금 차이 알려줘").answer()).startsWith("예금은 목돈을");
+        assertThat(knowledgeBase.lookup("인플레이션이 뭐예요").answer()).startsWith("인플레이션은");
+    }
+
+    @Test
+    @DisplayName("확신이 낮은 질문은 직접 답하지 않고 관련 문장만 참고 자료로 돌려준다")
+    void groundsLowConfidenceQuestions() {
+        FinanceKnowledgeBase.Lookup lookup = knowledgeBase.lookup("주식 배당금을 받으면 세금은 얼마나 내고 언제 들어와?");
+
+        assertThat(lookup.answer()).isNull();
+        assertThat(lookup.grounding()).isNotEmpty().anyMatch(passage -> passage.contains("배당금"));
+    }
+
+    @Test
+    @DisplayName("금융과 상관없는 질문은 답도 참고 자료도 만들지 않는다")
+    void missesUnrelatedQuestions() {
+        FinanceKnowledgeBase.Lookup lookup = knowledgeBase.lookup("오늘 점심 메뉴 추천해줘");
+
+        assertThat(lookup).isEqualTo(FinanceKnowledgeBase.Lookup.NONE);
+        assertThat(meterRegistry.get("finance.knowledge.lookup").tag("result", "missed").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("BM25는 같은 낱말이라도 짧고 집중된 문장을 먼저 찾는다")
+    void ranksFocusedPassagesFirst() {
+        Bm25Index index = Bm25Index.build(List.of(
+            KnowledgePassage.sentence("채권은 일정 기간 뒤에 원금과 이자를 돌려주겠다고 약속하는 증서입니다."),
+            KnowledgePassage.sentence("금리는 돈을 빌리거나 맡길 때 붙는 이자의 비율입니다."),
+            KnowledgePassage.sentence("기준금리는 한국은행이 정하며 시중 대출과 예금 이자의 기준이 됩니다.")));
+
+        List<Bm25Index.Match> matches = index.search("금리", 3);
+
+        assertThat(matches).hasSize(2);
+        assertThat(matches.get(0).passage().text()).startsWith("금리는");
+        assertThat(matches.get(0).coverage()).isEqualTo(1.0);
+    }
+}
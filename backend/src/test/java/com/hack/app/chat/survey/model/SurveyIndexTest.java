@@ -0,0 +1,49 @@
+package com.hack.app.chat.survey.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hack.app.chat.survey.dao.SurveyDataDao;
+import com.hack.app.chat.survey.dto.SurveyAnswer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SurveyIndexTest {
+
+    private final SurveyIndex index = new SurveyDataDao(new ObjectMapper()).getIndex();
+
+    @Test
+    @DisplayName("응답을 질문별 비트마스크로 인코딩하고 설문 순서대로 라벨을 돌려준다")
+    void encodesAnswersAsBitmasks() {
+        EncodedAnswers answers = index.encode(List.of(
+            new SurveyAnswer("spend-focus", List.of("FOOD", "transport", "food")),
+            new SurveyAnswer("age-band", List.of("high-1"))
+        ));
+
+        int spendFocus = index.questionOrdinal("spend-focus");
+        assertThat(Long.bitCount(answers.mask(spendFocus))).isEqualTo(2);
+        assertThat(answers.toAnswerMap().keySet()).containsExactly("age-band", "spend-focus");
+        assertThat(answers.optionLabels(index.questionOrdinal("age-band"))).containsExactly("고1");
+    }
+
+    @Test
+    @DisplayName("잘못된 응답은 LLM 호출 전에 거절한다")
+    void rejectsInvalidPayloads() {
+        assertThatThrownBy(() -> index.encode(List.of(new SurveyAnswer("unknown", List.of("a")))))
+            .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Unknown question");
+        assertThatThrownBy(() -> index.encode(List.of(new SurveyAnswer("age-band", List.of("college")))))
+            .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Unknown option");
+        assertThatThrownBy(() -> index.encode(List.of(new SurveyAnswer("age-band", List.of("high-1", "high-2")))))
+            .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("at most 1");
+        assertThatThrownBy(() -> index.encode(List.of(
+            new SurveyAnswer("saving-goal", List.of("emergency", "college", "hobby")))))
+            .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("at most 2");
+        assertThatThrownBy(() -> index.encode(List.of(
+            new SurveyAnswer("age-band", List.of("high-1")),
+            new SurveyAnswer("age-band", List.of("high-2")))))
+            .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("more than once");
+    }
+}
@@ -0,0 +1,49 @@
+package com.hack.app.chat.survey.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hack.app.chat.survey.dao.SurveyDataDao;
+import com.hack.app.chat.survey.dto.ProductRecommendation;
+import com.hack.app.chat.survey.dto.RecommendationResponse;
+import com.hack.app.chat.survey.model.SurveyContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRecommenderTest {
+
+    private final LocalRecommender recommender =
+        new LocalRecommender(new SurveyService(new SurveyDataDao(new ObjectMapper())));
+
+    @Test
+    @DisplayName("용돈보다 최소 납입액이 큰 상품은 제외하고 목표가 맞는 상품을 우선한다")
+    void filtersByAmountAndScoresGoals() {
+        RecommendationResponse response = recommender.recommend(SurveyContext.fromAnswers(Map.of(
+            "age-band", List.of("high-1"),
+            "monthly-funds", List.of("lt-5"),
+            "saving-goal", List.of("emergency"),
+            "risk-attitude", List.of("safety-first")
+        )));
+
+        assertThat(response.savings()).extracting(ProductRecommendation::productId)
+            .doesNotContain("DEP_KEB_START")
+            .first().isEqualTo("SAV_KB_DREAM");
+        assertThat(response.cards()).isNotEmpty();
+        assertThat(response.insights()).isNotEmpty().hasSizeLessThanOrEqualTo(RecommendationParser.MAX_INSIGHTS);
+    }
+
+    @Test
+    @DisplayName("같은 응답에는 항상 같은 추천을 돌려준다")
+    void isDeterministic() {
+        Map<String, List<String>> answers = Map.of(
+            "monthly-funds", List.of("gt-30"),
+            "spend-focus", List.of("education", "food"),
+            "guardian-preference", List.of("independent"));
+
+        assertThat(recommender.recommend(SurveyContext.fromAnswers(answers)))
+            .isEqualTo(recommender.recommend(SurveyContext.fromAnswers(answers)));
+    }
+}
@@ -0,0 +1,85 @@
+package com.hack.app.chat.survey.service;
+
+import com.hack.app.chat.survey.dao.SurveyDataDao;
+import com.hack.app.chat.survey.dto.BatchRecommendationItem;
+import com.hack.app.chat.survey.dto.BatchRecommendationRequest;
+import com.hack.app.chat.survey.dto.RecommendationResponse;
+import com.hack.app.chat.survey.dto.SurveyAnswer;
+import com.hack.app.chat.survey.dto.SurveyOption;
+import com.hack.app.chat.survey.dto.SurveyQuestion;
+import com.hack.app.chat.survey.dto.SurveyResponsePayload;
+import com.hack.app.chat.survey.model.SurveyIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecommendationBatchTest {
+
+    private static final SurveyIndex INDEX = SurveyIndex.of(List.of(
+        new SurveyQuestion("age-band", "학년", null, "single", false, 1,
+            List.of(new SurveyOption("high-1", "고1"), new SurveyOption("high-2", "고2")))
+    ));
+
+    @Test
+    @DisplayName("같은 답변은 한 번만 생성하고, 고유한 답변은 병렬로 생성해 학생마다 한 줄씩 돌려준다")
+    void dedupesAndFansOutUniqueAnswers() throws Exception {
+        SurveyDataDao surveyDataDao = mock(SurveyDataDao.class);
+        when(surveyDataDao.getIndex()).thenReturn(INDEX);
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.getBatch().setParallelism(2);
+        RecommendationService recommendationService = mock(RecommendationService.class);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        RecommendationResponse response = new RecommendationResponse("요약", List.of(), List.of(), List.of());
+        when(recommendationService.recommend(any(), any(Duration.class), any())).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertThat(bothStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            return new RecommendationResult(response, RecommendationResult.Source.LLM, "key");
+        });
+        RecommendationBatch batch = new RecommendationBatch(recommendationService, new SurveyService(surveyDataDao),
+            properties);
+
+        BatchRecommendationRequest request = new BatchRecommendationRequest(List.of(
+            payload("high-1"), payload("high-2"), payload("HIGH-1"), payload("unknown")));
+        ConcurrentLinkedQueue<BatchRecommendationItem> lines = new ConcurrentLinkedQueue<>();
+        batch.run(request, null, new AtomicBoolean(), lines::add).get(5, TimeUnit.SECONDS);
+
+        verify(recommendationService, times(2)).recommend(any(), any(Duration.class), any());
+        assertThat(lines).extracting(BatchRecommendationItem::index).containsExactlyInAnyOrder(0, 1, 2, 3);
+        assertThat(lines).filteredOn(line -> line.index() == 3).singleElement()
+            .extracting(BatchRecommendationItem::status).isEqualTo(400);
+        assertThat(lines).filteredOn(line -> line.index() != 3)
+            .allSatisfy(line -> assertThat(line.result()).isEqualTo(response));
+        batch.shutdown();
+    }
+
+    @Test
+    @DisplayName("스트림 시간 제한은 항목 수를 병렬도로 나눈 차례만큼 항목 마감 시간을 더해 정한다")
+    void streamTimeoutCoversEveryWave() {
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.getBatch().setParallelism(6);
+        RecommendationBatch batch = new RecommendationBatch(mock(RecommendationService.class),
+            new SurveyService(mock(SurveyDataDao.class)), properties);
+
+        assertThat(batch.streamTimeout(40)).isGreaterThanOrEqualTo(Duration.ofSeconds(45).multipliedBy(7));
+        assertThat(batch.streamTimeout(3)).isLessThan(Duration.ofSeconds(90));
+        batch.shutdown();
+    }
+
+    private static SurveyResponsePayload payload(String ageBand) {
+        return new SurveyResponsePayload(List.of(new SurveyAnswer("age-band", List.of(ageBand))), Map.of());
+    }
+}
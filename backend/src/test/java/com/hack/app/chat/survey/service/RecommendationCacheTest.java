@@ -0,0 +1,123 @@
+package com.hack.app.chat.survey.service;
+
+import com.hack.app.chat.survey.dto.RecommendationResponse;
+import com.hack.app.chat.survey.dto.SurveyOption;
+import com.hack.app.chat.survey.dto.SurveyQuestion;
+import com.hack.app.chat.survey.model.CanonicalAnswers;
+import com.hack.app.chat.survey.model.SurveyIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RecommendationCacheTest {
+
+    private static final RecommendationResponse RESPONSE =
+        new RecommendationResponse("요약", List.of(), List.of(), List.of());
+
+    private static final SurveyIndex INDEX = SurveyIndex.of(List.of(
+        new SurveyQuestion("age-band", "학년", null, "single", false, 1,
+            List.of(new SurveyOption("high-1", "고1"), new SurveyOption("high-2", "고2"))),
+        new SurveyQuestion("spend-focus", "주요 지출", null, "multi", true, 3,
+            List.of(new SurveyOption("food", "음식"), new SurveyOption("transport", "교통"), new SurveyOption("game", "게임")))
+    ));
+
+    @Test
+    @DisplayName("선택 순서와 파라미터 공백이 달라도 같은 키로 정규화한다")
+    void canonicalizesEquivalentAnswers() {
+        CanonicalAnswers first = CanonicalAnswers.of(
+            INDEX.encode(Map.of("spend-focus", List.of("food", "transport"), "age-band", List.of("high-1"))),
+            Map.of("tone", " 친근하게 "));
+        CanonicalAnswers second = CanonicalAnswers.of(
+            INDEX.encode(Map.of("age-band", List.of("HIGH-1"), "spend-focus", List.of("transport", "food", "food"))),
+            Map.of("tone", "친근하게"));
+
+        assertThat(first).isEqualTo(second);
+        assertThat(first.key()).hasSize(22);
+    }
+
+    @Test
+    @DisplayName("TTL이 지나거나 설문 또는 프롬프트 템플릿 버전이 바뀌면 캐시를 사용하지 않는다")
+    void expiresByTtlAndSurveyVersion() {
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.getCache().setTtl(Duration.ofMinutes(10));
+        SurveyService surveyService = mock(SurveyService.class);
+        when(surveyService.getVersion()).thenReturn("v1");
+        PromptContextBuilder promptContextBuilder = promptContextBuilder("v2-aaaa");
+        AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2025-10-01T00:00:00Z"));
+        Clock clock = new Clock() {
+            @Override
+            public ZoneOffset getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(java.time.ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now.get();
+            }
+        };
+        RecommendationCache cache = new RecommendationCache(properties, surveyService, promptContextBuilder, clock);
+        CanonicalAnswers answers = CanonicalAnswers.of(INDEX.encode(Map.of("age-band", List.of("high-1"))), Map.of());
+
+        cache.put(answers, RESPONSE);
+        assertThat(cache.get(answers)).contains(RESPONSE);
+
+        when(surveyService.getVersion()).thenReturn("v2");
+        assertThat(cache.get(answers)).isEmpty();
+
+        when(surveyService.getVersion()).thenReturn("v1");
+        when(promptContextBuilder.templateVersion()).thenReturn("v2-bbbb");
+        assertThat(cache.get(answers)).isEmpty();
+
+        when(promptContextBuilder.templateVersion()).thenReturn("v2-aaaa");
+        assertThat(cache.get(answers)).contains(RESPONSE);
+        now.set(now.get().plus(Duration.ofMinutes(11)));
+        assertThat(cache.get(answers)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("스냅샷은 현재 설문 버전의 항목만 복원한다")
+    void restoresOnlyCurrentVersionSnapshots() {
+        SurveyService surveyService = mock(SurveyService.class);
+        when(surveyService.getVersion()).thenReturn("v1");
+        PromptContextBuilder promptContextBuilder = promptContextBuilder("v2-aaaa");
+        RecommendationCache source = new RecommendationCache(new RecommendationProperties(), surveyService, promptContextBuilder);
+        CanonicalAnswers answers = CanonicalAnswers.of(INDEX.encode(Map.of("age-band", List.of("high-1"))), Map.of());
+        source.put(answers, RESPONSE);
+        List<RecommendationCache.Snapshot> snapshots = source.snapshot();
+
+        RecommendationCache restored = new RecommendationCache(new RecommendationProperties(), surveyService, promptContextBuilder);
+        assertThat(restored.restore(snapshots)).isEqualTo(1);
+        assertThat(restored.get(answers)).contains(RESPONSE);
+
+        when(surveyService.getVersion()).thenReturn("v2");
+        RecommendationCache outdated = new RecommendationCache(new RecommendationProperties(), surveyService, promptContextBuilder);
+        assertThat(outdated.restore(snapshots)).isZero();
+
+        when(surveyService.getVersion()).thenReturn("v1");
+        RecommendationCache retemplated = new RecommendationCache(new RecommendationProperties(), surveyService,
+            promptContextBuilder("v2-bbbb"));
+        assertThat(retemplated.restore(snapshots)).isZero();
+    }
+
+    private static PromptContextBuilder promptContextBuilder(String templateVersion) {
+        PromptContextBuilder promptContextBuilder = mock(PromptContextBuilder.class);
+        when(promptContextBuilder.templateVersion()).thenReturn(templateVersion);
+        return promptContextBuilder;
+    }
+}
@@ -0,0 +1,67 @@
+package com.hack.app.chat.survey.service;
+
+import com.hack.app.chat.survey.dto.RecommendationJobStatus;
+import com.hack.app.chat.survey.dto.RecommendationResponse;
+import com.hack.app.chat.survey.dto.SurveyAnswer;
+import com.hack.app.chat.survey.dto.SurveyResponsePayload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RecommendationJobsTest {
+
+    private static final SurveyResponsePayload PAYLOAD = new SurveyResponsePayload(
+        List.of(new SurveyAnswer("age-band", List.of("high-1"))), Map.of());
+
+    @Test
+    @DisplayName("대기열이 가득 차면 429로 거절하고, 완료된 작업은 결과를 돌려준다")
+    void rejectsOverflowAndCompletesJobs() throws Exception {
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.getJobs().setWorkers(1);
+        properties.getJobs().setQueueCapacity(1);
+        RecommendationService recommendationService = mock(RecommendationService.class);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecommendationResponse response = new RecommendationResponse("요약", List.of(), List.of(), List.of());
+        when(recommendationService.recommend(any(), any(Duration.class), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new RecommendationResult(response, RecommendationResult.Source.LLM, "key");
+        });
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RecommendationJobs jobs = new RecommendationJobs(recommendationService, mock(SurveyService.class),
+            properties, meterRegistry);
+
+        RecommendationJobStatus running = jobs.submit(PAYLOAD, null);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        RecommendationJobStatus queued = jobs.submit(PAYLOAD, null);
+        assertThatThrownBy(() -> jobs.submit(PAYLOAD, null))
+            .isInstanceOf(ResponseStatusException.class)
+            .extracting(ex -> ((ResponseStatusException) ex).getStatusCode())
+            .isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(jobs.find(queued.jobId()).orElseThrow().queuePosition()).isEqualTo(1);
+        assertThat(meterRegistry.get("recommendation.jobs.queue.depth").gauge().value()).isEqualTo(1.0);
+
+        release.countDown();
+        RecommendationJobStatus finished = jobs.completion(queued.jobId()).orElseThrow().get(5, TimeUnit.SECONDS);
+        assertThat(finished.state()).isEqualTo(RecommendationJobStatus.State.SUCCEEDED);
+        assertThat(finished.result()).isEqualTo(response);
+        assertThat(finished.source()).isEqualTo("llm");
+        assertThat(jobs.find(running.jobId()).orElseThrow().isFinished()).isTrue();
+        assertThat(meterRegistry.get("recommendation.jobs.rejected").counter().count()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,58 @@
+package com.hack.app.chat.survey.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hack.app.chat.survey.dto.RecommendationResponse;
+import com.hack.app.chat.survey.model.ProductType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecommendationParserTest {
+
+    private static final String PAYLOAD = """
+        {
+          "summary": "용돈을 꾸준히 모으려는 고등학생입니다.",
+          "insights": ["자동이체를 활용하세요"],
+          "savings": [
+            {"productId": "SAV_1", "type": "savings", "name": "청소년 적금", "headline": "매달 저축", "benefits": ["우대금리"], "caution": "정보 확인 필요", "minMonthlyAmount": "10,000"},
+            {"productId": "SAV_1", "type": "SAVINGS", "name": "중복 적금", "headline": "중복", "benefits": [], "caution": "중복"}
+          ],
+          "cards": []
+        }
+        """;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RecommendationParser parser = new RecommendationParser(new ObjectMapper(), meterRegistry);
+
+    @Test
+    @DisplayName("JSON 모드 응답은 바로 파싱하고 중복 상품은 제거한다")
+    void parsesPlainJson() {
+        RecommendationResponse response = parser.parse(PAYLOAD);
+
+        assertThat(response.summary()).isEqualTo("용돈을 꾸준히 모으려는 고등학생입니다.");
+        assertThat(response.savings()).hasSize(1);
+        assertThat(response.savings().get(0).type()).isEqualTo(ProductType.SAVINGS);
+        assertThat(response.savings().get(0).minMonthlyAmount()).isEqualTo(10000);
+    }
+
+    @Test
+    @DisplayName("마크다운 코드 블록으로 감싼 응답도 파싱한다")
+    void parsesFencedJson() {
+        RecommendationResponse response = parser.parse("```json\n" + PAYLOAD + "\n```");
+
+        assertThat(response.savings()).extracting("productId").containsExactly("SAV_1");
+    }
+
+    @Test
+    @DisplayName("추천 상품이 하나도 없으면 422를 던진다")
+    void rejectsEmptyRecommendations() {
+        assertThatThrownBy(() -> parser.parse("{\"summary\":\"요약\",\"savings\":[],\"cards\":[]}"))
+            .isInstanceOf(ResponseStatusException.class)
+            .hasMessageContaining("no actionable recommendations");
+        assertThat(meterRegistry.get("llm.parse.failures").tag("reason", "no_products").counter().count()).isEqualTo(1);
+    }
+}
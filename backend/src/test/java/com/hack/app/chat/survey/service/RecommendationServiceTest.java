@@ -0,0 +1,313 @@
+package com.hack.app.chat.survey.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hack.app.chat.survey.dao.SurveyDataDao;
+import com.hack.app.chat.survey.dto.PrefetchStatus;
+import com.hack.app.chat.survey.dto.RecommendationResponse;
+import com.hack.app.chat.survey.dto.SurveyAnswer;
+import com.hack.app.chat.survey.dto.SurveyResponsePayload;
+import com.hack.app.chat.survey.model.CanonicalAnswers;
+import com.hack.app.chat.survey.model.EncodedAnswers;
+import com.hack.app.chat.survey.model.PromptParams;
+import com.hack.app.gemini.GeminiClient;
+import com.hack.app.gemini.GeminiProvider;
+import com.hack.app.llm.LlmGateway;
+import com.hack.app.llm.LlmGatewayProperties;
+import com.hack.app.llm.Priority;
+import com.hack.app.llm.quota.QuotaExceededException;
+import com.hack.app.llm.quota.UsageQuotaProperties;
+import com.hack.app.llm.quota.UsageQuotas;
+import com.hack.app.llm.quota.UsageSubject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecommendationServiceTest {
+
+    private static final String GEMINI_JSON = """
+        {"summary":"제미나이 요약","insights":["조언"],
+         "savings":[{"productId":"SAV_1","type":"SAVINGS","name":"적금","headline":"h","benefits":["b"],"caution":"c"}],
+         "cards":[]}
+        """;
+
+    private static final SurveyResponsePayload PAYLOAD = new SurveyResponsePayload(List.of(
+        new SurveyAnswer("age-band", List.of("high-1")),
+        new SurveyAnswer("monthly-funds", List.of("10-20")),
+        new SurveyAnswer("saving-goal", List.of("college"))
+    ), Map.of());
+
+    private GeminiClient geminiClient;
+    private LlmGateway llmGateway;
+    private RecommendationProperties properties;
+    private SurveyService surveyService;
+    private RecommendationCache recommendationCache;
+    private ObservedProfiles observedProfiles;
+    private SimpleMeterRegistry promptMetrics;
+    private UsageQuotaProperties quotaProperties;
+    private ObjectMapper objectMapper;
+    private PromptContextBuilder promptContextBuilder;
+    private UsageQuotas usageQuotas;
+    private RecommendationService service;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        surveyService = new SurveyService(new SurveyDataDao(objectMapper));
+        geminiClient = mock(GeminiClient.class);
+        when(geminiClient.isEnabled()).thenReturn(true);
+        llmGateway = new LlmGateway(List.of(new GeminiProvider(geminiClient)), new LlmGatewayProperties(),
+            new SimpleMeterRegistry());
+        properties = new RecommendationProperties();
+        properties.getFallback().setLatencyBudget(Duration.ofMillis(200));
+        promptMetrics = new SimpleMeterRegistry();
+        promptContextBuilder = new PromptContextBuilder(objectMapper, properties, promptMetrics);
+        recommendationCache = new RecommendationCache(properties, surveyService, promptContextBuilder);
+        observedProfiles = new ObservedProfiles();
+        quotaProperties = new UsageQuotaProperties();
+        usageQuotas = new UsageQuotas(quotaProperties, new SimpleMeterRegistry());
+        service = newService();
+    }
+
+    private RecommendationService newService() {
+        return new RecommendationService(
+            surveyService,
+            promptContextBuilder,
+            new RecommendationParser(objectMapper, new SimpleMeterRegistry()),
+            llmGateway,
+            recommendationCache,
+            observedProfiles,
+            properties,
+            new LocalRecommender(surveyService),
+            usageQuotas
+        );
+    }
+
+    @Test
+    @DisplayName("Gemini가 예산 안에 응답하면 그 결과를 그대로 쓴다")
+    void returnsGeminiWithinBudget() {
+        when(geminiClient.generateContent(anyString(), anyList(), any(), any())).thenReturn(Optional.of(GEMINI_JSON));
+
+        RecommendationResult result = service.recommend(PAYLOAD);
+
+        assertThat(result.source()).isEqualTo(RecommendationResult.Source.LLM);
+        assertThat(result.response().summary()).isEqualTo("제미나이 요약");
+    }
+
+    @Test
+    @DisplayName("예산을 넘기면 로컬 추천을 돌려주고, 늦게 도착한 Gemini 결과는 캐시에 채운다")
+    void fallsBackToLocalAndUpgradesLater() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(geminiClient.generateContent(anyString(), anyList(), any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(GEMINI_JSON);
+        });
+
+        long started = System.nanoTime();
+        RecommendationResult result = service.recommend(PAYLOAD);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertThat(result.source()).isEqualTo(RecommendationResult.Source.LOCAL);
+        assertThat(elapsedMillis).isLessThan(2000);
+        assertThat(result.response().savings()).isNotEmpty();
+        assertThat(service.isGenerating(result.key())).isTrue();
+
+        release.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(() -> service.findCached(result.key()).isPresent());
+        assertThat(service.recommend(PAYLOAD).source()).isEqualTo(RecommendationResult.Source.CACHE);
+    }
+
+    @Test
+    @DisplayName("작업 스레드와 대기열이 가득 차면 백그라운드 생성 없이 로컬 추천을 주고 한도를 돌려준다")
+    void skipsUpgradeWhenWorkersAreSaturated() {
+        CountDownLatch release = new CountDownLatch(1);
+        when(geminiClient.generateContent(anyString(), anyList(), any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(GEMINI_JSON);
+        });
+        properties.getWorkers().setThreads(1);
+        properties.getWorkers().setQueueCapacity(1);
+        quotaProperties.getUser().setRequests(3);
+        service = newService();
+        UsageSubject subject = UsageSubject.of("zep-1", "10.0.0.1");
+
+        service.recommend(payloadWithGoal("emergency"), Duration.ofMillis(50), subject);
+        service.recommend(payloadWithGoal("short-trip"), Duration.ofMillis(50), subject);
+        RecommendationResult rejected = service.recommend(payloadWithGoal("college"), Duration.ofSeconds(2), subject);
+
+        assertThat(rejected.source()).isEqualTo(RecommendationResult.Source.LOCAL);
+        assertThat(service.isGenerating(rejected.key())).isFalse();
+        assertThat(service.recommend(payloadWithGoal("hobby"), Duration.ofMillis(50), subject).source())
+            .as("the rejected generation was refunded")
+            .isEqualTo(RecommendationResult.Source.LOCAL);
+        release.countDown();
+    }
+
+    private static SurveyResponsePayload payloadWithGoal(String goal) {
+        return new SurveyResponsePayload(List.of(
+            new SurveyAnswer("age-band", List.of("high-1")),
+            new SurveyAnswer("saving-goal", List.of(goal))
+        ), Map.of());
+    }
+
+    @Test
+    @DisplayName("Gemini 호출이 실패해도 로컬 추천으로 응답한다")
+    void fallsBackToLocalOnFailure() {
+        when(geminiClient.generateContent(anyString(), anyList(), any(), any())).thenReturn(Optional.empty());
+
+        RecommendationResult result = service.recommend(PAYLOAD);
+
+        assertThat(result.source()).isEqualTo(RecommendationResult.Source.LOCAL);
+        assertThat(service.findCached(result.key())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("부분 응답으로 미리 생성한 추천을 예측과 같은 최종 제출에서 재사용한다")
+    void reusesSpeculativeGenerationOnMatchingSubmit() {
+        when(geminiClient.generateContent(anyString(), anyList(), any(), any())).thenReturn(Optional.of(GEMINI_JSON));
+        RecommendationPrefetcher prefetcher = new RecommendationPrefetcher(surveyService, service,
+            recommendationCache, observedProfiles, llmGateway, properties, new SimpleMeterRegistry());
+        List<SurveyAnswer> partial = List.of(
+            new SurveyAnswer("age-band", List.of("high-1")),
+            new SurveyAnswer("monthly-funds", List.of("10-20")),
+            new SurveyAnswer("risk-attitude", List.of("balanced"))
+        );
+
+        assertThatThrownBy(() -> prefetcher.prefetch(new SurveyResponsePayload(partial.subList(0, 2), Map.of()), null))
+            .isInstanceOf(ResponseStatusException.class);
+        PrefetchStatus status = prefetcher.prefetch(new SurveyResponsePayload(partial, Map.of("tone", "partial")), null);
+        assertThat(status.state()).isEqualTo(PrefetchStatus.State.STARTED);
+        await().atMost(Duration.ofSeconds(5)).until(() -> service.findCached(status.key()).isPresent());
+
+        List<SurveyAnswer> submitted = new ArrayList<>(partial);
+        status.predictedAnswers().forEach((questionId, optionIds) -> submitted.add(new SurveyAnswer(questionId, optionIds)));
+        Map<String, List<String>> submittedAnswers = new LinkedHashMap<>();
+        submitted.forEach(answer -> submittedAnswers.put(answer.questionId(), answer.selectedOptionIds()));
+        RecommendationResult result = service.recommend(
+            new SurveyResponsePayload(submitted, PromptParams.fromAnswers(submittedAnswers)));
+
+        assertThat(result.source()).isEqualTo(RecommendationResult.Source.CACHE);
+        assertThat(result.key()).isEqualTo(status.key());
+        verify(geminiClient, times(1)).generateContent(anyString(), anyList(), any(), any());
+    }
+
+    @Test
+    @DisplayName("미리 생성도 사용자 한도에 매기고, 프롬프트는 생성마다 한 번만 만든다")
+    void prefetchIsChargedAndPromptBuiltOnce() {
+        when(geminiClient.generateContent(anyString(), anyList(), any(), any())).thenReturn(Optional.of(GEMINI_JSON));
+        quotaProperties.getUser().setRequests(1);
+        UsageSubject subject = UsageSubject.of("zep-1", "10.0.0.1");
+        RecommendationPrefetcher prefetcher = new RecommendationPrefetcher(surveyService, service,
+            recommendationCache, observedProfiles, llmGateway, properties, new SimpleMeterRegistry());
+        List<SurveyAnswer> partial = List.of(
+            new SurveyAnswer("age-band", List.of("high-1")),
+            new SurveyAnswer("monthly-funds", List.of("10-20")),
+            new SurveyAnswer("risk-attitude", List.of("balanced"))
+        );
+
+        PrefetchStatus status = prefetcher.prefetch(new SurveyResponsePayload(partial, Map.of()), subject);
+
+        assertThat(status.state()).isEqualTo(PrefetchStatus.State.STARTED);
+        assertThat(promptMetrics.get("recommendation.prompt.tokens").summary().count()).isEqualTo(1);
+        assertThatThrownBy(() -> service.recommend(PAYLOAD, Duration.ofMillis(200), subject))
+            .isInstanceOf(QuotaExceededException.class);
+    }
+
+    @Test
+    @DisplayName("같은 키로 동시에 들어온 요청은 하나만 생성을 시작해 한도를 한 번만 매긴다")
+    void concurrentJoinsAreFree() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(geminiClient.generateContent(anyString(), anyList(), any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(GEMINI_JSON);
+        });
+        usageQuotas = spy(usageQuotas);
+        doAnswer(invocation -> {
+            // Widens the window in which a second caller could start its own generation.
+            Thread.sleep(200);
+            return invocation.callRealMethod();
+        }).when(usageQuotas).acquire(any(), anyLong());
+        service = newService();
+        UsageSubject subject = UsageSubject.of("zep-1", "10.0.0.1");
+        EncodedAnswers answers = surveyService.encode(PAYLOAD.answers());
+        CanonicalAnswers key = CanonicalAnswers.of(answers, PAYLOAD.promptParams());
+
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        List<CompletableFuture<CompletableFuture<RecommendationResponse>>> joined = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            joined.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return service.generateInBackground(subject, key, answers, PAYLOAD.promptParams(), Priority.SURVEY);
+            }, pool));
+        }
+        start.countDown();
+
+        CompletableFuture<RecommendationResponse> first = joined.get(0).get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<CompletableFuture<RecommendationResponse>> caller : joined) {
+            assertThat(caller.get(5, TimeUnit.SECONDS)).isSameAs(first);
+        }
+        assertThat(promptMetrics.get("recommendation.prompt.tokens").summary().count()).isEqualTo(1);
+        verify(usageQuotas, times(1)).acquire(any(), anyLong());
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        verify(geminiClient, times(1)).generateContent(anyString(), anyList(), any(), any());
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("미리 생성은 같은 키로 진행 중인 생성에 합류해 LLM을 다시 부르지 않는다")
+    void precomputeJoinsRunningGeneration() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(geminiClient.generateContent(anyString(), anyList(), any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(GEMINI_JSON);
+        });
+        EncodedAnswers answers = surveyService.encode(PAYLOAD.answers());
+        CanonicalAnswers key = CanonicalAnswers.of(answers, PAYLOAD.promptParams());
+        CompletableFuture<RecommendationResponse> running =
+            service.generateInBackground(null, key, answers, PAYLOAD.promptParams(), Priority.SURVEY);
+
+        CompletableFuture<Boolean> precomputed =
+            CompletableFuture.supplyAsync(() -> service.precompute(answers, PAYLOAD.promptParams()));
+        Thread.sleep(100);
+        assertThat(precomputed).isNotDone();
+        release.countDown();
+
+        assertThat(precomputed.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(running.get(5, TimeUnit.SECONDS).summary()).isEqualTo("제미나이 요약");
+        verify(geminiClient, times(1)).generateContent(anyString(), anyList(), any(), any());
+    }
+}
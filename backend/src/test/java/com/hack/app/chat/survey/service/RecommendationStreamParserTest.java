@@ -0,0 +1,66 @@
+package com.hack.app.chat.survey.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hack.app.chat.survey.dto.ProductRecommendation;
+import com.hack.app.chat.survey.model.ProductType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecommendationStreamParserTest {
+
+    private static final String PAYLOAD = """
+        ```json
+        {"summary":" 꾸준히 모으는 습관이 좋아요 ","insights":["저축 성향","  ","용돈 관리"],
+         "savings":[{"productId":"S1","name":"청소년 적금","benefits":["우대금리"],"minMonthlyAmount":"10,000원"},
+                    {"productId":"S1","name":"중복 적금"}],
+         "cards":[{"name":"Teen Card","type":"CARD","nested":{"a":[1,2]}}]}
+        ```
+        """;
+
+    @Test
+    @DisplayName("잘게 나뉜 스트림에서도 필드가 완성되는 즉시 순서대로 이벤트를 낸다")
+    void emitsFieldsAsSoonAsTheyComplete() {
+        List<String> events = new ArrayList<>();
+        List<ProductRecommendation> products = new ArrayList<>();
+        RecommendationStreamParser parser = new RecommendationParser(new ObjectMapper(), new SimpleMeterRegistry()).streamParser(
+            new RecommendationStreamParser.Listener() {
+                @Override
+                public void onSummary(String summary) {
+                    events.add("summary:" + summary);
+                }
+
+                @Override
+                public void onInsight(String insight) {
+                    events.add("insight:" + insight);
+                }
+
+                @Override
+                public void onProduct(String field, ProductRecommendation product) {
+                    events.add(field + ":" + product.productId());
+                    products.add(product);
+                }
+            });
+
+        for (int i = 0; i < PAYLOAD.length(); i += 7) {
+            parser.feed(PAYLOAD.substring(i, Math.min(PAYLOAD.length(), i + 7)));
+            if (i > PAYLOAD.indexOf("\"insights\"") && i < PAYLOAD.indexOf("\"savings\"")) {
+                assertThat(events).startsWith("summary:꾸준히 모으는 습관이 좋아요");
+            }
+        }
+
+        assertThat(events).containsExactly(
+            "summary:꾸준히 모으는 습관이 좋아요",
+            "insight:저축 성향",
+            "insight:용돈 관리",
+            "savings:S1",
+            "cards:TEENCARD_0");
+        assertThat(products.get(0).minMonthlyAmount()).isEqualTo(10000);
+        assertThat(products.get(1).type()).isEqualTo(ProductType.CARD);
+    }
+}
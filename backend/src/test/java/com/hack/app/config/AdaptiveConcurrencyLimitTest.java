@@ -0,0 +1,86 @@
+package com.hack.app.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long THREE_SECONDS = TimeUnit.SECONDS.toNanos(3);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    @DisplayName("한도만큼 요청이 처리 중이면 추가 요청은 대기시키지 않고 바로 거절한다")
+    void rejectsBeyondLimit() {
+        AdaptiveConcurrencyLimit limit = newLimit(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.release(THREE_SECONDS, false);
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    @DisplayName("지연이 기준보다 크게 늘면 한도를 줄이고 다시 빨라지면 조금씩 늘린다")
+    void shrinksOnSlowResponsesAndRecovers() {
+        AdaptiveConcurrencyLimit limit = newLimit(20);
+        fill(limit, 20);
+        limit.release(THREE_SECONDS, false);
+        assertThat(limit.retryAfterSeconds(30)).isEqualTo(3);
+
+        for (int window = 0; window < 5; window++) {
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+            limit.tryAcquire();
+            limit.release(TimeUnit.SECONDS.toNanos(60), false);
+        }
+        drain(limit);
+        int reduced = limit.limit();
+        assertThat(reduced).isLessThan(15);
+
+        for (int round = 0; round < 20; round++) {
+            fill(limit, limit.limit());
+            drain(limit);
+        }
+        assertThat(limit.limit()).isGreaterThan(reduced);
+    }
+
+    @Test
+    @DisplayName("느린 응답이 한꺼번에 몰려도 기준 지연 한 번에 한 번만 줄인다")
+    void decreasesOncePerLatencyWindow() {
+        AdaptiveConcurrencyLimit limit = newLimit(20);
+        fill(limit, 20);
+        limit.release(THREE_SECONDS, false);
+
+        limit.release(TimeUnit.SECONDS.toNanos(30), true);
+        limit.release(TimeUnit.SECONDS.toNanos(30), true);
+        limit.release(TimeUnit.SECONDS.toNanos(30), true);
+
+        assertThat(limit.limit()).isEqualTo(18);
+    }
+
+    private AdaptiveConcurrencyLimit newLimit(int initialLimit) {
+        AdaptiveLimitProperties properties = new AdaptiveLimitProperties();
+        properties.setInitialLimit(initialLimit);
+        return new AdaptiveConcurrencyLimit(properties, clock::get);
+    }
+
+    private static void fill(AdaptiveConcurrencyLimit limit, int count) {
+        for (int i = 0; i < count && limit.tryAcquire(); i++) {
+            // take every free slot so the limit counts as used
+        }
+    }
+
+    private static void drain(AdaptiveConcurrencyLimit limit) {
+        while (limit.inFlight() > 0) {
+            limit.release(THREE_SECONDS, false);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.hack.app.config;
+
+import com.hack.app.llm.Priority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class RoutePermitsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("슬롯이 비면 먼저 기다린 설문 요청보다 상담 요청을 먼저 들여보낸다")
+    void admitsInteractiveWaiterFirst() throws Exception {
+        RoutePermits permits = newPermits(1, 0);
+        assertThat(permits.acquire(Priority.BACKGROUND, Duration.ofSeconds(1))).isTrue();
+
+        List<Priority> admitted = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> survey = waitFor(permits, Priority.SURVEY, admitted);
+        await().until(() -> queued(Priority.SURVEY) == 1);
+        CompletableFuture<Void> interactive = waitFor(permits, Priority.INTERACTIVE, admitted);
+        await().until(() -> queued(Priority.INTERACTIVE) == 1);
+
+        permits.release();
+        interactive.get(5, TimeUnit.SECONDS);
+        permits.release();
+        survey.get(5, TimeUnit.SECONDS);
+
+        assertThat(admitted).containsExactly(Priority.INTERACTIVE, Priority.SURVEY);
+        assertThat(meterRegistry.get("llm.permits.wait").tag("route", "test").tag("priority", "survey").timer().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("예약 슬롯은 백그라운드 작업에 내주지 않고 대기 시간이 지나면 포기한다")
+    void keepsReserveForInteractiveCalls() {
+        RoutePermits permits = newPermits(2, 1);
+
+        assertThat(permits.acquire(Priority.BACKGROUND, Duration.ofSeconds(1))).isTrue();
+        assertThat(permits.acquire(Priority.BACKGROUND, Duration.ofMillis(50))).isFalse();
+        assertThat(permits.acquire(Priority.INTERACTIVE, Duration.ofMillis(50))).isTrue();
+
+        assertThat(meterRegistry.get("llm.permits.timeouts").tag("priority", "background").counter().count())
+            .isEqualTo(1.0);
+        assertThat(meterRegistry.get("llm.permits.in-use").gauge().value()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("비동기 대기는 스레드를 잡지 않고 반납된 슬롯을 받거나, 취소하면 줄에서 빠진다")
+    void handsReleasedSlotToAsyncWaiter() throws Exception {
+        RoutePermits permits = newPermits(1, 0);
+        assertThat(permits.acquireAsync(Priority.SURVEY, Duration.ofSeconds(1)).get()).isTrue();
+
+        CompletableFuture<Boolean> cancelled = permits.acquireAsync(Priority.SURVEY, Duration.ofSeconds(5));
+        CompletableFuture<Boolean> waiting = permits.acquireAsync(Priority.SURVEY, Duration.ofSeconds(5));
+        CompletableFuture<Boolean> expired = permits.acquireAsync(Priority.BACKGROUND, Duration.ofMillis(50));
+        assertThat(queued(Priority.SURVEY)).isEqualTo(2.0);
+        cancelled.cancel(false);
+        assertThat(queued(Priority.SURVEY)).isEqualTo(1.0);
+        assertThat(expired.get(5, TimeUnit.SECONDS)).isFalse();
+
+        permits.release();
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get("llm.permits.in-use").gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("llm.permits.timeouts").tag("priority", "background").counter().count())
+            .isEqualTo(1.0);
+    }
+
+    private RoutePermits newPermits(int maxConnections, int interactiveReserve) {
+        HttpClientProperties properties = new HttpClientProperties();
+        properties.setMaxConnectionsPerRoute(maxConnections);
+        properties.setInteractiveReserve(interactiveReserve);
+        return new RoutePermits("Test", properties, meterRegistry);
+    }
+
+    private CompletableFuture<Void> waitFor(RoutePermits permits, Priority priority, List<Priority> admitted) {
+        return CompletableFuture.runAsync(() -> {
+            if (permits.acquire(priority, Duration.ofSeconds(5))) {
+                admitted.add(priority);
+            }
+        });
+    }
+
+    private double queued(Priority priority) {
+        return meterRegistry.get("llm.permits.queued").tag("priority", priority.name().toLowerCase(Locale.ROOT)).gauge().value();
+    }
+}
@@ -0,0 +1,48 @@
+package com.hack.app.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ServerTimingDataSourceTest {
+
+    private final ServerTiming timing = ServerTiming.begin();
+    private final ServerTiming previous = ServerTiming.bind(timing);
+
+    @AfterEach
+    void unbind() {
+        ServerTiming.bind(previous);
+    }
+
+    @Test
+    @DisplayName("커넥션 획득, 쿼리 실행, 커밋이 모두 db 구간으로 합산된다")
+    void timesConnectionStatementsAndCommit() throws Exception {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("update users set gold = ?")).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(1);
+
+        try (Connection timed = new ServerTimingDataSource(target).getConnection()) {
+            PreparedStatement prepared = timed.prepareStatement("update users set gold = ?");
+            prepared.setLong(1, 10L);
+            assertThat(prepared.executeUpdate()).isEqualTo(1);
+            timed.commit();
+        }
+
+        verify(statement).setLong(1, 10L);
+        verify(connection).commit();
+        verify(connection).close();
+        assertThat(timing.header()).startsWith("db;desc=\"3 calls\";dur=");
+    }
+}
@@ -0,0 +1,63 @@
+package com.hack.app.config;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServerTimingFilterTest {
+
+    private final ServerTimingProperties properties = new ServerTimingProperties();
+
+    @Test
+    @DisplayName("요청 스레드와 넘겨받은 작업 스레드에서 기록한 구간이 Server-Timing 헤더에 담긴다")
+    void reportsPhasesAsHeader() throws Exception {
+        MockHttpServletResponse response = run(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                ServerTiming.start("db").close();
+                ServerTiming.start("db").close();
+                CompletableFuture.runAsync(ServerTiming.wrap(() -> ServerTiming.start("gemini").close())).join();
+                response.getWriter().write("{}");
+            }
+        });
+
+        assertThat(response.getHeader(ServerTimingFilter.HEADER))
+            .startsWith("db;desc=\"2 calls\";dur=")
+            .contains("gemini;dur=")
+            .contains("total;dur=");
+        assertThat(ServerTiming.current().header()).as("unbound after the request").startsWith("total;dur=");
+    }
+
+    @Test
+    @DisplayName("비활성화하면 헤더를 붙이지 않고 기록은 아무 일도 하지 않는다")
+    void skipsWhenDisabled() throws Exception {
+        properties.setEnabled(false);
+
+        MockHttpServletResponse response = run(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                ServerTiming.start("db").close();
+                assertThat(ServerTiming.current().header()).startsWith("total;dur=");
+            }
+        });
+
+        assertThat(response.getHeader(ServerTimingFilter.HEADER)).isNull();
+    }
+
+    private MockHttpServletResponse run(HttpServlet servlet) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new ServerTimingFilter(properties).doFilter(request, response, new MockFilterChain(servlet));
+        return response;
+    }
+}
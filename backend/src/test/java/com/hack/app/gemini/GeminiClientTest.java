@@ -0,0 +1,108 @@
+package com.hack.app.gemini;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hack.app.config.HttpClientProperties;
+import com.hack.app.llm.TokenEstimator;
+import com.hack.app.llm.stub.LlmStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeminiClientTest {
+
+    private static final String SYSTEM_INSTRUCTION = "당신은 한국 청소년을 돕는 금융 코치입니다.";
+
+    private LlmStubServer stub;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void startStub() {
+        stub = LlmStubServer.start();
+        stub.behavior().reply("추천 결과");
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    @DisplayName("시스템 지시문은 한 번만 캐시로 만들고 이후 요청은 학생별 내용만 보낸다")
+    void sendsOnlyDeltaAfterCachingPrefix() {
+        GeminiClient client = newClient();
+
+        assertThat(client.generateContent(SYSTEM_INSTRUCTION, "학생 1 응답", null)).contains("추천 결과");
+        assertThat(client.generateContent(SYSTEM_INSTRUCTION, "학생 2 응답", null)).contains("추천 결과");
+
+        assertThat(stub.cacheCreations()).isEqualTo(1);
+        assertThat(generateBodies()).hasSize(2).allSatisfy(body -> {
+            assertThat(body).contains("\"cachedContent\":\"cachedContents/stub-1\"");
+            assertThat(body).doesNotContain("systemInstruction").doesNotContain("금융 코치");
+        });
+        assertThat(meterRegistry.get("gemini.tokens.cached").summary().totalAmount())
+            .isEqualTo(2.0 * TokenEstimator.estimate(SYSTEM_INSTRUCTION));
+        assertThat(meterRegistry.get("gemini.generate").tag("cache", "hit").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("만료된 캐시를 거절하면 지시문을 직접 보내 다시 호출하고 다음 요청에서 캐시를 새로 만든다")
+    void retriesInlineWhenCachedContentIsRejected() {
+        GeminiClient client = newClient();
+        assertThat(client.generateContent(SYSTEM_INSTRUCTION, "학생 1 응답", null)).contains("추천 결과");
+        stub.expireCachedContents();
+
+        assertThat(client.generateContent(SYSTEM_INSTRUCTION, "학생 2 응답", null)).contains("추천 결과");
+        assertThat(generateBodies()).hasSize(3);
+        assertThat(generateBodies().get(2)).contains("systemInstruction").doesNotContain("cachedContent");
+
+        assertThat(client.generateContent(SYSTEM_INSTRUCTION, "학생 3 응답", null)).contains("추천 결과");
+        assertThat(stub.cacheCreations()).isEqualTo(2);
+        assertThat(generateBodies().get(3)).contains("cachedContents/stub-2");
+    }
+
+    @Test
+    @DisplayName("스트리밍 응답은 도착하는 조각마다 전달하고 마지막에 전체 문장을 돌려준다")
+    void streamsChunksAsTheyArrive() {
+        stub.behavior().reply("이번 달 용돈의 20%를 적금에 넣어 보세요").streaming(4, Duration.ofMillis(5));
+        GeminiClient client = newClient();
+        List<String> chunks = new ArrayList<>();
+
+        assertThat(client.streamGenerateContent(SYSTEM_INSTRUCTION, "학생 응답", null, chunks::add))
+            .contains("이번 달 용돈의 20%를 적금에 넣어 보세요");
+        assertThat(chunks).hasSizeGreaterThan(1);
+        assertThat(String.join("", chunks)).isEqualTo("이번 달 용돈의 20%를 적금에 넣어 보세요");
+    }
+
+    private GeminiClient newClient() {
+        GeminiProperties properties = new GeminiProperties();
+        properties.setApiKey("test-key");
+        properties.setModel("test-model");
+        properties.setBaseUrl(stub.geminiBaseUrl());
+        properties.setTimeout(Duration.ofSeconds(5));
+        properties.getContextCache().setEnabled(true);
+        properties.getContextCache().setMinTokens(1);
+        HttpClientProperties httpProperties = new HttpClientProperties();
+        HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(httpProperties.getConnectTimeout())
+            .build();
+        ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        meterRegistry = new SimpleMeterRegistry();
+        return new GeminiClient(properties, httpClient, objectMapper, httpProperties, meterRegistry);
+    }
+
+    private List<String> generateBodies() {
+        return stub.requests(":generateContent").stream().map(LlmStubServer.RecordedRequest::body).toList();
+    }
+}
@@ -0,0 +1,180 @@
+package com.hack.app.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LlmGatewayTest {
+
+    private static final LlmRequest REQUEST = LlmRequest.of("test", "primary", "system", "질문", 0.2);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LlmGateway gateway;
+
+    @AfterEach
+    void shutdown() {
+        gateway.shutdown();
+    }
+
+    @Test
+    @DisplayName("선호 공급자가 실패하면 다음 공급자로 넘기고, 연속 실패로 차단기가 열리면 호출하지 않는다")
+    void failsOverAndOpensBreaker() {
+        FakeProvider primary = new FakeProvider("primary", Optional::empty);
+        FakeProvider secondary = new FakeProvider("secondary", () -> Optional.of("대체 답변"));
+        LlmGatewayProperties properties = new LlmGatewayProperties();
+        properties.getBreaker().setFailureThreshold(2);
+        properties.getHedging().setEnabled(false);
+        gateway = new LlmGateway(List.of(primary, secondary), properties, meterRegistry);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(gateway.complete(REQUEST)).contains(new LlmResult("대체 답변", "secondary"));
+        }
+
+        assertThat(primary.calls).hasValue(2);
+        assertThat(secondary.calls).hasValue(3);
+        assertThat(meterRegistry.get("llm.gateway.breaker.state").tag("provider", "primary").gauge().value())
+            .isEqualTo(CircuitBreaker.State.OPEN.ordinal());
+        assertThat(meterRegistry.get("llm.gateway.calls").tag("provider", "secondary").tag("outcome", "success")
+            .counter().count()).isEqualTo(3.0);
+        assertThat(meterRegistry.get("llm.gateway.calls").tag("provider", "primary").tag("outcome", "failure")
+            .counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("선호 공급자가 지연 기준을 넘기면 다음 공급자로 헤지하고 먼저 온 답을 쓴 뒤 느린 호출은 취소한다")
+    void hedgesSlowPrimaryAndCancelsIt() {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        FakeProvider primary = new FakeProvider("primary", () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+            }
+            return Optional.of("늦은 답변");
+        });
+        FakeProvider secondary = new FakeProvider("secondary", () -> Optional.of("빠른 답변"));
+        LlmGatewayProperties properties = new LlmGatewayProperties();
+        properties.getHedging().setMinDelay(Duration.ofMillis(50));
+        properties.getHedging().setMaxDelay(Duration.ofMillis(50));
+        gateway = new LlmGateway(List.of(primary, secondary), properties, meterRegistry);
+
+        long started = System.nanoTime();
+        assertThat(gateway.complete(REQUEST)).contains(new LlmResult("빠른 답변", "secondary"));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(5));
+        assertThat(meterRegistry.get("llm.gateway.hedges").counter().count()).isEqualTo(1.0);
+        assertThat(awaitQuietly(interrupted)).isTrue();
+    }
+
+    @Test
+    @DisplayName("마감 시간이 지나면 빈 결과를 돌려주고 진행 중인 호출을 취소한다")
+    void abandonsCallsPastTheDeadline() {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        FakeProvider slow = new FakeProvider("primary", () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+            }
+            return Optional.empty();
+        });
+        LlmGatewayProperties properties = new LlmGatewayProperties();
+        properties.getHedging().setEnabled(false);
+        gateway = new LlmGateway(List.of(slow), properties, meterRegistry);
+
+        long started = System.nanoTime();
+        assertThat(gateway.complete(REQUEST.withDeadline(Deadline.after(Duration.ofMillis(100))))).isEmpty();
+        assertThat(gateway.stream(REQUEST.withDeadline(Deadline.after(Duration.ofMillis(100))), chunk -> { })).isEmpty();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(5));
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+        assertThat(awaitQuietly(interrupted)).isTrue();
+        assertThat(meterRegistry.get("llm.gateway.deadline.exceeded").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("모든 공급자가 실패하면 지터 백오프 후 한 번 더 시도한다")
+    void retriesWithinTheRemainingBudget() {
+        AtomicInteger attempts = new AtomicInteger();
+        FakeProvider flaky = new FakeProvider("primary",
+            () -> attempts.incrementAndGet() == 1 ? Optional.empty() : Optional.of("재시도 답변"));
+        LlmGatewayProperties properties = new LlmGatewayProperties();
+        properties.getHedging().setEnabled(false);
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(20));
+        gateway = new LlmGateway(List.of(flaky), properties, meterRegistry);
+
+        assertThat(gateway.complete(REQUEST)).contains(new LlmResult("재시도 답변", "primary"));
+        assertThat(meterRegistry.get("llm.gateway.retries").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("연결 슬롯을 얻지 못해 보내지 못한 호출은 차단기에 실패로 세지 않고 보내지 않았다고 알려 준다")
+    void reportsRequestsThatWereNeverSent() {
+        FakeProvider saturated = new FakeProvider("primary", () -> {
+            throw new RequestNotSentException("no slot");
+        });
+        LlmGatewayProperties properties = new LlmGatewayProperties();
+        properties.getBreaker().setFailureThreshold(1);
+        properties.getHedging().setEnabled(false);
+        properties.getRetry().setMaxAttempts(1);
+        gateway = new LlmGateway(List.of(saturated), properties, meterRegistry);
+
+        LlmGateway.Completion completion = gateway.completeTracked(REQUEST);
+
+        assertThat(completion.result()).isEmpty();
+        assertThat(completion.sent()).isFalse();
+        assertThat(meterRegistry.get("llm.gateway.breaker.state").tag("provider", "primary").gauge().value())
+            .isEqualTo(CircuitBreaker.State.CLOSED.ordinal());
+        assertThat(meterRegistry.get("llm.gateway.calls").tag("provider", "primary").tag("outcome", "rejected")
+            .counter().count()).isEqualTo(1.0);
+        assertThat(gateway.completeTracked(REQUEST.withDeadline(Deadline.after(Duration.ZERO))).sent()).isFalse();
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static final class FakeProvider implements LlmProvider {
+
+        private final String name;
+        private final Supplier<Optional<String>> answer;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private FakeProvider(String name, Supplier<Optional<String>> answer) {
+            this.name = name;
+            this.answer = answer;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public Optional<String> complete(LlmRequest request) {
+            calls.incrementAndGet();
+            return answer.get();
+        }
+    }
+}
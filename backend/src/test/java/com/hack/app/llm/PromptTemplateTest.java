@@ -0,0 +1,50 @@
+package com.hack.app.llm;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PromptTemplateTest {
+
+    @Test
+    @DisplayName("슬롯을 한 번에 치환하고 값이 없는 슬롯과 JSON 중괄호는 그대로 둔다")
+    void rendersSlotsInSinglePass() {
+        PromptTemplate template = PromptTemplate.compile("test",
+            "나이는 ${age}, 목표는 ${goal}. {\"summary\": \"${missing}\"} ${not a slot} $${age}");
+
+        String rendered = template.render(Map.of("age", "17세", "goal", "${age}"));
+
+        assertThat(template.slots()).containsExactly("age", "goal", "missing");
+        assertThat(template.fingerprint()).isNotEqualTo(PromptTemplate.compile("test", "나이는 ${age}").fingerprint());
+        assertThat(rendered).isEqualTo("나이는 17세, 목표는 ${age}. {\"summary\": \"${missing}\"} ${not a slot} $17세");
+    }
+
+    @Test
+    @DisplayName("오버라이드 파일이 바뀌면 다시 컴파일한다")
+    void reloadsOverrideOnChange(@TempDir Path overrideDir) throws Exception {
+        String path = "survey-recommendation/system.v1.txt";
+        PromptTemplateSource source = new PromptTemplateSource(path, overrideDir, Duration.ZERO);
+        assertThat(source.get().render(Map.of())).startsWith("당신은 한국 청소년을 돕는 금융 코치입니다.");
+
+        Path override = overrideDir.resolve(path);
+        Files.createDirectories(override.getParent());
+        Files.writeString(override, "첫 번째 ${value}");
+        assertThat(source.get().render(Map.of("value", "버전"))).isEqualTo("첫 번째 버전");
+
+        Files.writeString(override, "두 번째 ${value}");
+        Files.setLastModifiedTime(override, FileTime.from(Instant.now().plusSeconds(5)));
+        assertThat(source.get().render(Map.of("value", "버전"))).isEqualTo("두 번째 버전");
+
+        Files.delete(override);
+        assertThat(source.get().render(Map.of())).startsWith("당신은");
+    }
+}
@@ -0,0 +1,135 @@
+package com.hack.app.llm.quota;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UsageQuotasTest {
+
+    private static final UsageSubject USER = new UsageSubject("zep-1", null);
+
+    private final MutableClock clock = new MutableClock();
+    private UsageQuotaProperties properties;
+    private UsageQuotas quotas;
+
+    @BeforeEach
+    void setUp() {
+        properties = new UsageQuotaProperties();
+        properties.setWindow(Duration.ofMinutes(10));
+        properties.setBuckets(10);
+        properties.getUser().setRequests(3);
+        properties.getUser().setTokens(1_000);
+        properties.getSession().setRequests(2);
+        properties.getSession().setTokens(1_000);
+        properties.getClient().setRequests(5);
+        properties.getClient().setTokens(10_000);
+        quotas = new UsageQuotas(properties, new SimpleMeterRegistry(), clock);
+    }
+
+    @Test
+    @DisplayName("요청 수 한도를 넘기면 429와 남은 예산 헤더로 거절한다")
+    void rejectsPastRequestLimitWithHeaders() {
+        for (int i = 0; i < 3; i++) {
+            quotas.acquire(USER, 100);
+        }
+
+        assertThatThrownBy(() -> quotas.acquire(USER, 100))
+            .isInstanceOfSatisfying(QuotaExceededException.class, ex -> {
+                assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                HttpHeaders headers = ex.getHeaders();
+                assertThat(headers.getFirst("X-RateLimit-Scope")).isEqualTo("user");
+                assertThat(headers.getFirst("X-RateLimit-Remaining-Requests")).isEqualTo("0");
+                assertThat(headers.getFirst("X-RateLimit-Remaining-Tokens")).isEqualTo("700");
+                assertThat(headers.getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("600");
+            });
+    }
+
+    @Test
+    @DisplayName("세션 한도에 걸리면 사용자 예산에 매긴 몫은 돌려준다")
+    void sessionRejectionRefundsUserCharge() {
+        UsageSubject session = USER.withSession("s-1");
+        quotas.acquire(session, 10);
+        quotas.acquire(session, 10);
+
+        assertThatThrownBy(() -> quotas.acquire(session, 10))
+            .isInstanceOfSatisfying(QuotaExceededException.class,
+                ex -> assertThat(ex.getHeaders().getFirst("X-RateLimit-Scope")).isEqualTo("session"));
+
+        assertThatCode(() -> quotas.acquire(USER.withSession("s-2"), 10)).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("요청마다 사용자 id를 바꿔도 같은 주소의 한도에 걸린다")
+    void rotatingUserIdsHitClientLimit() {
+        for (int i = 0; i < 5; i++) {
+            quotas.acquire(UsageSubject.of("zep-" + i, "10.0.0.1"), 10);
+        }
+
+        assertThatThrownBy(() -> quotas.acquire(UsageSubject.of("zep-new", "10.0.0.1"), 10))
+            .isInstanceOfSatisfying(QuotaExceededException.class,
+                ex -> assertThat(ex.getHeaders().getFirst("X-RateLimit-Scope")).isEqualTo("client"));
+        assertThatCode(() -> quotas.acquire(UsageSubject.of("zep-new", "10.0.0.2"), 10)).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("창이 밀려나면 오래된 사용량은 빠지고 다시 호출할 수 있다")
+    void windowSlidesOverTime() {
+        quotas.acquire(USER, 100);
+        clock.advance(Duration.ofMinutes(5));
+        quotas.acquire(USER, 100);
+        quotas.acquire(USER, 100);
+        assertThatThrownBy(() -> quotas.acquire(USER, 100)).isInstanceOf(QuotaExceededException.class);
+
+        clock.advance(Duration.ofMinutes(5));
+
+        assertThatCode(() -> quotas.acquire(USER, 100)).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("응답 뒤에 기록한 토큰도 예산에 반영한다")
+    void recordedTokensCountAgainstBudget() {
+        quotas.acquire(USER, 100);
+        quotas.record(USER, 900);
+
+        assertThatThrownBy(() -> quotas.acquire(USER, 100))
+            .isInstanceOfSatisfying(QuotaExceededException.class,
+                ex -> assertThat(ex.getHeaders().getFirst("X-RateLimit-Remaining-Tokens")).isEqualTo("0"));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.hack.app.llm.stub;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Time the stub waits before it starts answering. {@link #logNormal} reproduces the long right tail
+ * LLM APIs show in production: most calls near the median, a few many times slower.
+ */
+@FunctionalInterface
+public interface LatencyModel {
+
+    long sampleMillis(Random random);
+
+    static LatencyModel none() {
+        return random -> 0;
+    }
+
+    static LatencyModel fixed(Duration latency) {
+        long millis = latency.toMillis();
+        return random -> millis;
+    }
+
+    static LatencyModel uniform(Duration min, Duration max) {
+        long low = min.toMillis();
+        long span = Math.max(1, max.toMillis() - low);
+        return random -> low + (long) (random.nextDouble() * span);
+    }
+
+    /**
+     * {@code sigma} around 0.5 gives a p99 roughly three times the median; 1.0 roughly ten times.
+     */
+    static LatencyModel logNormal(Duration median, double sigma) {
+        double mu = Math.log(Math.max(1, median.toMillis()));
+        return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+}
@@ -0,0 +1,407 @@
+package com.hack.app.llm.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hack.app.llm.TokenEstimator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the OpenAI and Gemini HTTP APIs. It speaks {@code /v1/chat/completions}
+ * (plain and {@code stream=true}), {@code /v1beta/models/*:generateContent},
+ * {@code :streamGenerateContent?alt=sse} and {@code /v1beta/cachedContents}. Point
+ * {@code openai.base-url} at {@link #openAiBaseUrl()} and {@code gemini.base-url} at
+ * {@link #geminiBaseUrl()}; {@link #behavior()} injects latency, errors, rate limits and malformed
+ * bodies. {@link #main} runs it standalone for load runs ({@code gradle llmStub}).
+ */
+public final class LlmStubServer implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "llm-stub");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final StubBehavior behavior = new StubBehavior();
+    private final Random random;
+    private final List<RecordedRequest> requests = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> cachedContents = new ConcurrentHashMap<>();
+    private final AtomicInteger cacheSequence = new AtomicInteger();
+
+    private LlmStubServer(int port, long seed) throws IOException {
+        this.random = new Random(seed);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(executor);
+        server.createContext("/v1/chat/completions", exchange -> handle(exchange, this::chatCompletions));
+        server.createContext("/v1beta/models/", exchange -> handle(exchange, this::generateContent));
+        server.createContext("/v1beta/cachedContents", exchange -> handle(exchange, this::cachedContent));
+        server.start();
+    }
+
+    public static LlmStubServer start() {
+        return start(0, 42);
+    }
+
+    public static LlmStubServer start(int port, long seed) {
+        try {
+            return new LlmStubServer(port, seed);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public StubBehavior behavior() {
+        return behavior;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public String openAiBaseUrl() {
+        return "http://127.0.0.1:" + port() + "/v1";
+    }
+
+    public String geminiBaseUrl() {
+        return "http://127.0.0.1:" + port() + "/v1beta";
+    }
+
+    public List<RecordedRequest> requests() {
+        return List.copyOf(requests);
+    }
+
+    public List<RecordedRequest> requests(String pathFragment) {
+        return requests.stream().filter(request -> request.path().contains(pathFragment)).toList();
+    }
+
+    public int cacheCreations() {
+        return cacheSequence.get();
+    }
+
+    /**
+     * Forgets every cached content entry, as Gemini does once their TTL passes; generate calls that
+     * still reference them get 404.
+     */
+    public void expireCachedContents() {
+        cachedContents.clear();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            String path = exchange.getRequestURI().getPath();
+            String query = exchange.getRequestURI().getQuery();
+            requests.add(new RecordedRequest(exchange.getRequestMethod(), path + (query == null ? "" : "?" + query),
+                body, exchange.getRemoteAddress().getPort()));
+            handler.handle(exchange, path, body);
+        } catch (IOException ex) {
+            // the client went away mid-response, e.g. after its own timeout
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void chatCompletions(HttpExchange exchange, String path, String body) throws IOException, InterruptedException {
+        JsonNode request = JSON.readTree(body);
+        if (failed(exchange, Provider.OPENAI)) {
+            return;
+        }
+        String reply = behavior.replyTo(lastOpenAiUserMessage(request));
+        boolean truncated = roll(behavior.truncateRate());
+        if (!request.path("stream").asBoolean(false)) {
+            ObjectNode response = JSON.createObjectNode()
+                .put("id", "chatcmpl-stub")
+                .put("object", "chat.completion")
+                .put("model", request.path("model").asText("stub"));
+            ObjectNode choice = response.putArray("choices").addObject().put("index", 0).put("finish_reason", "stop");
+            choice.putObject("message").put("role", "assistant").put("content", reply);
+            response.putObject("usage")
+                .put("prompt_tokens", TokenEstimator.estimate(body))
+                .put("completion_tokens", TokenEstimator.estimate(reply));
+            respond(exchange, 200, JSON.writeValueAsString(response), truncated);
+            return;
+        }
+
+        List<String> chunks = chunks(reply);
+        streamEvents(exchange, chunks, truncated, (chunk, last) -> {
+            ObjectNode event = JSON.createObjectNode().put("id", "chatcmpl-stub").put("object", "chat.completion.chunk");
+            ObjectNode choice = event.putArray("choices").addObject().put("index", 0);
+            choice.putObject("delta").put("content", chunk);
+            if (last) {
+                choice.put("finish_reason", "stop");
+            } else {
+                choice.putNull("finish_reason");
+            }
+            return JSON.writeValueAsString(event);
+        }, "[DONE]");
+    }
+
+    private void generateContent(HttpExchange exchange, String path, String body) throws IOException, InterruptedException {
+        JsonNode request = JSON.readTree(body);
+        String cachedContent = request.path("cachedContent").asText(null);
+        if (cachedContent != null && !cachedContents.containsKey(cachedContent)) {
+            respond(exchange, 404, Provider.GEMINI.error(404, "CachedContent not found (or permission denied)"), false);
+            return;
+        }
+        if (failed(exchange, Provider.GEMINI)) {
+            return;
+        }
+        String reply = behavior.replyTo(lastGeminiUserText(request));
+        boolean truncated = roll(behavior.truncateRate());
+        int cachedTokens = cachedContent == null ? 0 : cachedContents.getOrDefault(cachedContent, 0);
+        int promptTokens = TokenEstimator.estimate(body) + cachedTokens;
+
+        if (path.endsWith(":generateContent")) {
+            ObjectNode response = geminiChunk(reply, true);
+            response.set("usageMetadata", geminiUsage(promptTokens, cachedTokens, reply));
+            respond(exchange, 200, JSON.writeValueAsString(response), truncated);
+            return;
+        }
+        if (!path.endsWith(":streamGenerateContent")) {
+            respond(exchange, 404, Provider.GEMINI.error(404, "Unknown method " + path), false);
+            return;
+        }
+        List<String> chunks = chunks(reply);
+        streamEvents(exchange, chunks, truncated, (chunk, last) -> {
+            ObjectNode event = geminiChunk(chunk, last);
+            if (last) {
+                event.set("usageMetadata", geminiUsage(promptTokens, cachedTokens, reply));
+            }
+            return JSON.writeValueAsString(event);
+        }, null);
+    }
+
+    private void cachedContent(HttpExchange exchange, String path, String body) throws IOException {
+        JsonNode request = JSON.readTree(body.isEmpty() ? "{}" : body);
+        Instant expireTime = Instant.now().plus(Duration.ofHours(1));
+        if ("PATCH".equals(exchange.getRequestMethod())) {
+            String name = path.substring("/v1beta/".length());
+            if (!cachedContents.containsKey(name)) {
+                respond(exchange, 404, Provider.GEMINI.error(404, "CachedContent not found"), false);
+                return;
+            }
+            respond(exchange, 200, JSON.writeValueAsString(JSON.createObjectNode()
+                .put("name", name).put("expireTime", expireTime.toString())), false);
+            return;
+        }
+
+        String name = "cachedContents/stub-" + cacheSequence.incrementAndGet();
+        int tokens = TokenEstimator.estimate(request.path("systemInstruction").path("parts").path(0).path("text").asText(""));
+        cachedContents.put(name, tokens);
+        ObjectNode response = JSON.createObjectNode().put("name", name).put("expireTime", expireTime.toString());
+        response.putObject("usageMetadata").put("totalTokenCount", tokens);
+        respond(exchange, 200, JSON.writeValueAsString(response), false);
+    }
+
+    /**
+     * Applies latency and answers with a scripted or randomly rolled failure if there is one.
+     */
+    private boolean failed(HttpExchange exchange, Provider provider) throws IOException, InterruptedException {
+        Integer scripted = behavior.pollScriptedFailure();
+        Thread.sleep(Math.max(0, behavior.latency().sampleMillis(random)));
+        int status = scripted != null ? scripted
+            : roll(behavior.rateLimitRate()) ? 429
+            : roll(behavior.errorRate()) ? 500
+            : 0;
+        if (status == 0) {
+            return false;
+        }
+        if (status == 429) {
+            exchange.getResponseHeaders().add("Retry-After", String.valueOf(behavior.retryAfterSeconds()));
+        }
+        respond(exchange, status, provider.error(status, status == 429 ? "Rate limit exceeded" : "Internal error"), false);
+        return true;
+    }
+
+    private void streamEvents(HttpExchange exchange,
+                              List<String> chunks,
+                              boolean truncated,
+                              EventWriter writer,
+                              String terminator) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        int count = truncated ? Math.max(1, chunks.size() / 2) : chunks.size();
+        OutputStream out = exchange.getResponseBody();
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && !behavior.chunkDelay().isZero()) {
+                Thread.sleep(behavior.chunkDelay().toMillis());
+            }
+            String data = writer.write(chunks.get(i), !truncated && i == chunks.size() - 1);
+            out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+        if (!truncated && terminator != null) {
+            out.write(("data: " + terminator + "\n\n").getBytes(StandardCharsets.UTF_8));
+        }
+        out.close();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json, boolean truncated) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        if (truncated) {
+            body = json.substring(0, json.length() / 2).getBytes(StandardCharsets.UTF_8);
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private List<String> chunks(String reply) {
+        int size = behavior.chunkSize();
+        List<String> chunks = new ArrayList<>();
+        for (int start = 0; start < reply.length(); start += size) {
+            chunks.add(reply.substring(start, Math.min(reply.length(), start + size)));
+        }
+        if (chunks.isEmpty()) {
+            chunks.add("");
+        }
+        return chunks;
+    }
+
+    private boolean roll(double rate) {
+        return rate > 0 && random.nextDouble() < rate;
+    }
+
+    private static ObjectNode geminiChunk(String text, boolean last) {
+        ObjectNode response = JSON.createObjectNode();
+        ObjectNode candidate = response.putArray("candidates").addObject();
+        ObjectNode content = candidate.putObject("content").put("role", "model");
+        content.putArray("parts").addObject().put("text", text);
+        if (last) {
+            candidate.put("finishReason", "STOP");
+        }
+        return response;
+    }
+
+    private static ObjectNode geminiUsage(int promptTokens, int cachedTokens, String reply) {
+        int candidates = TokenEstimator.estimate(reply);
+        ObjectNode usage = JSON.createObjectNode()
+            .put("promptTokenCount", promptTokens)
+            .put("candidatesTokenCount", candidates)
+            .put("totalTokenCount", promptTokens + candidates);
+        if (cachedTokens > 0) {
+            usage.put("cachedContentTokenCount", cachedTokens);
+        }
+        return usage;
+    }
+
+    private static String lastOpenAiUserMessage(JsonNode request) {
+        String last = "";
+        for (JsonNode message : request.path("messages")) {
+            if ("user".equals(message.path("role").asText())) {
+                last = message.path("content").asText("");
+            }
+        }
+        return last;
+    }
+
+    private static String lastGeminiUserText(JsonNode request) {
+        String last = "";
+        for (JsonNode content : request.path("contents")) {
+            if (!"model".equals(content.path("role").asText())) {
+                last = content.path("parts").path(0).path("text").asText("");
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Runs the stub until the JVM is stopped. Arguments are {@code key=value} pairs: {@code port},
+     * {@code seed}, {@code latency-ms} (median), {@code latency-sigma} (log-normal spread, 0 for a fixed
+     * latency), {@code rate-limit-rate}, {@code error-rate}, {@code truncate-rate}, {@code fenced},
+     * {@code reply} and {@code chunk-delay-ms}.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new ConcurrentHashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = option.indexOf('=');
+            if (eq > 0) {
+                options.put(option.substring(0, eq), option.substring(eq + 1));
+            }
+        }
+        LlmStubServer stub = start(Integer.parseInt(options.getOrDefault("port", "8089")),
+            Long.parseLong(options.getOrDefault("seed", "42")));
+        Duration median = Duration.ofMillis(Long.parseLong(options.getOrDefault("latency-ms", "0")));
+        double sigma = Double.parseDouble(options.getOrDefault("latency-sigma", "0"));
+        stub.behavior()
+            .latency(sigma > 0 ? LatencyModel.logNormal(median, sigma) : LatencyModel.fixed(median))
+            .rateLimitRate(Double.parseDouble(options.getOrDefault("rate-limit-rate", "0")))
+            .errorRate(Double.parseDouble(options.getOrDefault("error-rate", "0")))
+            .truncateRate(Double.parseDouble(options.getOrDefault("truncate-rate", "0")))
+            .fenced(Boolean.parseBoolean(options.getOrDefault("fenced", "false")))
+            .streaming(16, Duration.ofMillis(Long.parseLong(options.getOrDefault("chunk-delay-ms", "0"))));
+        if (options.containsKey("reply")) {
+            stub.behavior().reply(options.get("reply"));
+        }
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stub.close();
+            stopped.countDown();
+        }));
+        System.out.printf("LLM stub listening: openai.base-url=%s gemini.base-url=%s%n",
+            stub.openAiBaseUrl(), stub.geminiBaseUrl());
+        stopped.await();
+    }
+
+    public record RecordedRequest(String method, String path, String body, int clientPort) {}
+
+    private enum Provider {
+        OPENAI, GEMINI;
+
+        String error(int status, String message) {
+            ObjectNode error = JSON.createObjectNode();
+            ObjectNode detail = error.putObject("error").put("message", message);
+            if (this == OPENAI) {
+                detail.put("type", status == 429 ? "requests" : "server_error")
+                    .put("code", status == 429 ? "rate_limit_exceeded" : null);
+            } else {
+                detail.put("code", status).put("status", status == 429 ? "RESOURCE_EXHAUSTED"
+                    : status == 404 ? "NOT_FOUND" : "INTERNAL");
+            }
+            return error.toString();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange, String path, String body) throws IOException, InterruptedException;
+    }
+
+    @FunctionalInterface
+    private interface EventWriter {
+        String write(String chunk, boolean last) throws IOException;
+    }
+}
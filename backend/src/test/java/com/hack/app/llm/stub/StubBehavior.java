@@ -0,0 +1,133 @@
+package com.hack.app.llm.stub;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.UnaryOperator;
+
+/**
+ * What the {@link LlmStubServer} answers. Settings can change while the server runs; every request
+ * reads them once when it arrives. Scripted failures from {@link #failNext} are served first, then
+ * latency is applied and the random outcomes are rolled in order: rate limit, server error,
+ * truncated body.
+ */
+public final class StubBehavior {
+
+    private volatile LatencyModel latency = LatencyModel.none();
+    private volatile double rateLimitRate;
+    private volatile double errorRate;
+    private volatile double truncateRate;
+    private volatile boolean fenced;
+    private volatile UnaryOperator<String> responder = prompt -> "stub reply";
+    private volatile int chunkSize = 16;
+    private volatile Duration chunkDelay = Duration.ZERO;
+    private volatile int retryAfterSeconds = 1;
+    private final Queue<Integer> scriptedFailures = new ConcurrentLinkedQueue<>();
+
+    public StubBehavior latency(LatencyModel latency) {
+        this.latency = Objects.requireNonNull(latency);
+        return this;
+    }
+
+    /**
+     * Share of requests answered with 429 and {@code Retry-After}.
+     */
+    public StubBehavior rateLimitRate(double rate) {
+        this.rateLimitRate = rate;
+        return this;
+    }
+
+    /**
+     * Share of requests answered with 500.
+     */
+    public StubBehavior errorRate(double rate) {
+        this.errorRate = rate;
+        return this;
+    }
+
+    /**
+     * Share of successful responses cut off halfway: non-streaming bodies stop mid-JSON, streams end
+     * before their final event.
+     */
+    public StubBehavior truncateRate(double rate) {
+        this.truncateRate = rate;
+        return this;
+    }
+
+    /**
+     * Wraps replies in a {@code ```json} fence the way models often do despite being asked not to.
+     */
+    public StubBehavior fenced(boolean fenced) {
+        this.fenced = fenced;
+        return this;
+    }
+
+    public StubBehavior reply(String text) {
+        return responder(prompt -> text);
+    }
+
+    /**
+     * Builds the reply from the last user message of the request.
+     */
+    public StubBehavior responder(UnaryOperator<String> responder) {
+        this.responder = Objects.requireNonNull(responder);
+        return this;
+    }
+
+    public StubBehavior streaming(int chunkSize, Duration chunkDelay) {
+        this.chunkSize = Math.max(1, chunkSize);
+        this.chunkDelay = chunkDelay;
+        return this;
+    }
+
+    public StubBehavior retryAfterSeconds(int seconds) {
+        this.retryAfterSeconds = seconds;
+        return this;
+    }
+
+    /**
+     * Answers the next request with {@code status}, before any random outcome. Calls queue up.
+     */
+    public StubBehavior failNext(int status) {
+        scriptedFailures.add(status);
+        return this;
+    }
+
+    LatencyModel latency() {
+        return latency;
+    }
+
+    double rateLimitRate() {
+        return rateLimitRate;
+    }
+
+    double errorRate() {
+        return errorRate;
+    }
+
+    double truncateRate() {
+        return truncateRate;
+    }
+
+    int chunkSize() {
+        return chunkSize;
+    }
+
+    Duration chunkDelay() {
+        return chunkDelay;
+    }
+
+    int retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    Integer pollScriptedFailure() {
+        return scriptedFailures.poll();
+    }
+
+    String replyTo(String prompt) {
+        String reply = responder.apply(prompt);
+        return fenced ? "```json\n" + reply + "\n```" : reply;
+    }
+}
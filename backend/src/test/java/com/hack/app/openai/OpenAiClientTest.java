@@ -0,0 +1,142 @@
+package com.hack.app.openai;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hack.app.config.HttpClientProperties;
+import com.hack.app.llm.Priority;
+import com.hack.app.llm.stub.LatencyModel;
+import com.hack.app.llm.stub.LlmStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpenAiClientTest {
+
+    private LlmStubServer stub;
+
+    @BeforeEach
+    void startStub() {
+        stub = LlmStubServer.start();
+        stub.behavior().reply("안녕하세요");
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    @DisplayName("여러 번 호출해도 커넥션을 재사용한다")
+    void reusesPooledConnections() {
+        OpenAiClient client = newClient(Duration.ofSeconds(5));
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(client.createChatCompletion(List.of(OpenAiClient.Message.user("hi")), 0.2))
+                .contains("안녕하세요");
+        }
+
+        assertThat(stub.requests().stream().map(LlmStubServer.RecordedRequest::clientPort).distinct()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("비동기 호출도 같은 응답을 돌려준다")
+    void asyncVariantReturnsContent() throws Exception {
+        OpenAiClient client = newClient(Duration.ofSeconds(5));
+
+        Optional<String> result = client.createChatCompletionAsync(List.of(OpenAiClient.Message.user("hi")), 0.2)
+            .get(5, TimeUnit.SECONDS);
+
+        assertThat(result).contains("안녕하세요");
+    }
+
+    @Test
+    @DisplayName("동시에 비동기 호출을 이어서 보내도 호출자 수만큼의 커넥션만 쓴다")
+    void asyncCallsReuseConnections() throws Exception {
+        OpenAiClient client = newClient(Duration.ofSeconds(5));
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        List<Future<?>> done = new ArrayList<>();
+        for (int caller = 0; caller < 4; caller++) {
+            done.add(callers.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    assertThat(client.createChatCompletionAsync(List.of(OpenAiClient.Message.user("hi")), 0.2).join())
+                        .contains("안녕하세요");
+                }
+            }));
+        }
+        for (Future<?> caller : done) {
+            caller.get(30, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+
+        assertThat(stub.requests().stream().map(LlmStubServer.RecordedRequest::clientPort).distinct().count())
+            .isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("동기 호출도 넘겨받은 남은 시간이 지나면 빈 결과를 반환한다")
+    void syncCallHonoursTheGivenTimeout() {
+        stub.behavior().latency(LatencyModel.fixed(Duration.ofSeconds(1)));
+        OpenAiClient client = newClient(Duration.ofSeconds(5));
+
+        long started = System.nanoTime();
+        Optional<String> result = client.createChatCompletion(List.of(OpenAiClient.Message.user("hi")), 0.2,
+            Map.of(), Duration.ofMillis(200), Priority.INTERACTIVE);
+
+        assertThat(result).isEmpty();
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(900));
+    }
+
+    @Test
+    @DisplayName("응답이 read timeout보다 늦으면 빈 결과를 반환한다")
+    void appliesReadTimeout() {
+        stub.behavior().latency(LatencyModel.fixed(Duration.ofSeconds(1)));
+        OpenAiClient client = newClient(Duration.ofMillis(200));
+
+        long started = System.nanoTime();
+        Optional<String> result = client.createChatCompletion(List.of(OpenAiClient.Message.user("hi")), 0.2);
+
+        assertThat(result).isEmpty();
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(900));
+    }
+
+    @Test
+    @DisplayName("429나 500 응답을 받으면 예외 없이 빈 결과를 반환한다")
+    void returnsEmptyOnRateLimitAndServerError() {
+        stub.behavior().failNext(429).failNext(500);
+        OpenAiClient client = newClient(Duration.ofSeconds(5));
+
+        assertThat(client.createChatCompletion(List.of(OpenAiClient.Message.user("hi")), 0.2)).isEmpty();
+        assertThat(client.createChatCompletion(List.of(OpenAiClient.Message.user("hi")), 0.2)).isEmpty();
+        assertThat(client.createChatCompletion(List.of(OpenAiClient.Message.user("hi")), 0.2)).contains("안녕하세요");
+    }
+
+    private OpenAiClient newClient(Duration timeout) {
+        OpenAiProperties properties = new OpenAiProperties();
+        properties.setApiKey("test-key");
+        properties.setBaseUrl(stub.openAiBaseUrl());
+        properties.setTimeout(timeout);
+        HttpClientProperties httpProperties = new HttpClientProperties();
+        HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(httpProperties.getConnectTimeout())
+            .build();
+        ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return new OpenAiClient(properties, httpClient, objectMapper, httpProperties, new SimpleMeterRegistry());
+    }
+}
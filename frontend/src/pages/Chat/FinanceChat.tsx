@@ -2,6 +2,7 @@ import { useEffect, useMemo, useRef, useState } from "react";
 import type { FormEvent } from "react";
 import { Link } from "react-router-dom";
 import { Send, Loader2 } from "lucide-react";
+import { userHeaders } from "../Game/gameApi";
 
 interface ChatMessage {
   id: string;
@@ -37,6 +38,7 @@ export default function FinanceChat() {
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState<string | null>(null);
   const containerRef = useRef<HTMLDivElement>(null);
+  const requestHeaders = useMemo(() => userHeaders(), []);
 
   const sessionId = useMemo(() => {
     if (typeof window === "undefined") {
@@ -80,10 +82,20 @@ export default function FinanceChat() {
         method: "POST",
         headers: {
           "Content-Type": "application/json",
+          ...requestHeaders,
         },
         body: JSON.stringify({ question, sessionId }),
       });
 
+      if (response.status === 429) {
+        const retryAfter = Number(response.headers.get("Retry-After"));
+        const minutes = Number.isFinite(retryAfter) && retryAfter > 0 ? Math.ceil(retryAfter / 60) : null;
+        setError(minutes
+          ? `AI 사용 한도를 다 썼어요. 약 ${minutes}분 뒤에 다시 시도해 주세요.`
+          : "AI 사용 한도를 다 썼어요. 잠시 뒤에 다시 시도해 주세요.");
+        return;
+      }
+
       if (!response.ok) {
         throw new Error("서버에서 응답을 받지 못했어요.");
       }
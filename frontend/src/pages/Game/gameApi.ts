@@ -34,6 +34,19 @@ export function getZepContext(): ZepContext {
   }
 }
 
+/**
+ * Identifies a real ZEP user to the backend's LLM quota. Without one no header is sent, so the
+ * server charges the client address instead of a shared placeholder id.
+ */
+export function userHeaders(): Record<string, string> {
+  try {
+    const zepUserId = new URLSearchParams(window.location.search).get("zep_user_id");
+    return zepUserId ? { "X-User-Id": zepUserId } : {};
+  } catch {
+    return {};
+  }
+}
+
 export async function postReward(payload: RewardPayload): Promise<RewardResponse> {
   const response = await fetch("/api/users/rewards", {
     method: "POST",
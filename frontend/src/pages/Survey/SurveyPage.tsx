@@ -1,11 +1,16 @@
-﻿import { useEffect, useMemo, useState } from "react";
+﻿import { useEffect, useMemo, useRef, useState } from "react";
 import { Link, useNavigate } from "react-router-dom";
 import { Loader2, ChevronLeft, Info } from "lucide-react";
+import { userHeaders } from "../Game/gameApi";
 
 type AnswerState = Record<string, string[]>;
 
 type PromptParamMap = Record<string, string>;
 
+const PREFETCH_REQUIRED_QUESTIONS = ["age-band", "monthly-funds", "risk-attitude"];
+
+const PREFETCH_DELAY_MS = 600;
+
 interface SurveyOption {
   id: string;
   label: string;
@@ -203,13 +208,19 @@ export default function SurveyPage() {
   const [submitting, setSubmitting] = useState(false);
   const [error, setError] = useState<string | null>(null);
   const [showIntro, setShowIntro] = useState(true);
+  const predictedAnswers = useRef<AnswerState>({});
+  const prefetchedKey = useRef<string | null>(null);
+  const prefetchTimer = useRef<number | null>(null);
   const navigate = useNavigate();
+  const requestHeaders = useMemo(() => userHeaders(), []);
 
   useEffect(() => {
     window.localStorage.removeItem("financeSurveyContext");
     window.scrollTo({ top: 0, behavior: "auto" });
   }, []);
 
+  useEffect(() => cancelPrefetch, []);
+
   useEffect(() => {
     const loadQuestions = async () => {
       setLoading(true);
@@ -286,14 +297,73 @@ export default function SurveyPage() {
     }
 
     if (currentIndex < questions.length - 1) {
+      schedulePrefetch(answers);
       setCurrentIndex(index => Math.min(index + 1, questions.length - 1));
       window.scrollTo({ top: 0, behavior: "smooth" });
       return;
     }
 
+    cancelPrefetch();
     void submitAnswers();
   };
 
+  const cancelPrefetch = () => {
+    if (prefetchTimer.current !== null) {
+      window.clearTimeout(prefetchTimer.current);
+      prefetchTimer.current = null;
+    }
+  };
+
+  // Waits until the student pauses so quick clicks through the survey send one prefetch.
+  const schedulePrefetch = (current: AnswerState) => {
+    cancelPrefetch();
+    prefetchTimer.current = window.setTimeout(() => {
+      prefetchTimer.current = null;
+      void prefetchRecommendation(current);
+    }, PREFETCH_DELAY_MS);
+  };
+
+  const prefetchRecommendation = async (current: AnswerState) => {
+    if (!PREFETCH_REQUIRED_QUESTIONS.every(id => (current[id] ?? []).length > 0)) return;
+
+    // The server fills unanswered questions with its prediction and derives the prompt params from
+    // the completed survey. While the answers keep matching that prediction the speculative
+    // generation already started covers them, so only a changed prediction is sent again.
+    const predicted = { ...predictedAnswers.current, ...current };
+    const key = JSON.stringify(questions.map(question => predicted[question.id] ?? []));
+    if (key === prefetchedKey.current) return;
+    prefetchedKey.current = key;
+
+    const payload: SurveyAnswerPayload[] = questions
+      .filter(question => (current[question.id] ?? []).length > 0)
+      .map(question => ({
+        questionId: question.id,
+        selectedOptionIds: current[question.id],
+      }));
+
+    try {
+      const response = await fetch("/api/recommendations/prefetch", {
+        method: "POST",
+        headers: {
+          "Content-Type": "application/json",
+          ...requestHeaders,
+        },
+        body: JSON.stringify({ answers: payload }),
+      });
+      if (response.ok) {
+        const data = (await response.json()) as { predictedAnswers?: AnswerState };
+        predictedAnswers.current = data.predictedAnswers ?? {};
+        const completed = { ...predictedAnswers.current, ...current };
+        prefetchedKey.current = JSON.stringify(questions.map(question => completed[question.id] ?? []));
+      } else {
+        prefetchedKey.current = null;
+      }
+    } catch (err) {
+      prefetchedKey.current = null;
+      console.debug("Recommendation prefetch failed", err);
+    }
+  };
+
   const submitAnswers = async () => {
     if (submitting) return;
     setSubmitting(true);
@@ -311,10 +381,16 @@ export default function SurveyPage() {
         method: "POST",
         headers: {
           "Content-Type": "application/json",
+          ...requestHeaders,
         },
         body: JSON.stringify({ answers: payload, promptParams }),
       });
 
+      if (response.status === 429) {
+        setError("AI 사용 한도를 다 썼어요. 잠시 후 다시 시도해 주세요.");
+        return;
+      }
+
       if (!response.ok) {
         const contentType = response.headers.get("content-type");
         if (contentType && contentType.includes("application/json")) {